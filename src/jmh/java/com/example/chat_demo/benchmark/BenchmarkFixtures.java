@@ -0,0 +1,127 @@
+package com.example.chat_demo.benchmark;
+
+import com.example.chat_demo.api.mapper.MessageMapper;
+import com.example.chat_demo.common.ChannelType;
+import com.example.chat_demo.core.model.Conversation;
+import com.example.chat_demo.core.model.Message;
+import com.example.chat_demo.core.model.User;
+import com.example.chat_demo.core.service.JitsiService;
+import com.example.chat_demo.storage.MediaStorageService;
+import com.example.chat_demo.storage.MinioConfig;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.minio.MinioClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * BenchmarkFixtures - Dựng các bean cần cho benchmark mà không khởi động Spring context
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * ObjectMapper cấu hình giống AppConfig.objectMapper
+     */
+    static ObjectMapper objectMapper() {
+        return new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    /**
+     * Đọc payload webhook mẫu trong src/jmh/resources/fixtures thành Map (như @RequestBody của WebhookController)
+     */
+    static Map<String, Object> readFixture(ObjectMapper objectMapper, String name) {
+        try (InputStream in = BenchmarkFixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Fixture not found: " + name);
+            }
+            return objectMapper.readValue(in, new TypeReference<>() {
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * MessageMapper với MinIO client thật (ký presigned URL chạy local, không gọi mạng khi đã set region)
+     */
+    static MessageMapper messageMapper() {
+        MinioClient minioClient = MinioClient.builder()
+                .endpoint("http://127.0.0.1:9000")
+                .credentials("benchmark", "benchmark-secret")
+                .region("us-east-1")
+                .build();
+        MinioConfig minioConfig = new MinioConfig();
+        minioConfig.setBucketName("chat-media");
+        return new MessageMapper(new MediaStorageService(minioClient, minioConfig));
+    }
+
+    static JitsiService jitsiService() {
+        JitsiService jitsiService = new JitsiService();
+        setField(jitsiService, "jitsiBaseUrl", "https://meet.jit.si");
+        setField(jitsiService, "roomPrefix", "support-call");
+        return jitsiService;
+    }
+
+    static Message textMessage() {
+        Message message = baseMessage(4821L);
+        message.setContent("Chào shop, mình đặt đơn #DH20241019 hôm qua nhưng chưa thấy cập nhật trạng thái giao hàng.");
+        return message;
+    }
+
+    static Message attachmentMessage() {
+        Message message = baseMessage(4822L);
+        message.setContent("[Photo]");
+        message.setMessageType("image");
+        message.setAttachmentUrl("conversations/1024/messages/4822/7f3c2a9e-5b1d-4f7a-9c3e-2d8b6a1f0e4c-photo.jpg");
+        message.setAttachmentType("image");
+        message.setAttachmentFilename("photo.jpg");
+        message.setAttachmentSize(118342L);
+        return message;
+    }
+
+    private static Message baseMessage(Long id) {
+        User user = new User();
+        user.setId(77L);
+        user.setPlatformUserId("5123456789");
+        user.setChannelType(ChannelType.TELEGRAM);
+        user.setUsername("minh_nguyen");
+        user.setFirstName("Minh");
+        user.setLastName("Nguyễn");
+
+        Conversation conversation = new Conversation();
+        conversation.setId(1024L);
+        conversation.setUser(user);
+
+        Message message = new Message();
+        message.setId(id);
+        message.setUser(user);
+        message.setConversation(conversation);
+        message.setPlatformMessageId(String.valueOf(id));
+        message.setReceivedAt(LocalDateTime.of(2024, 10, 19, 9, 30, 15));
+        message.setDirection(Message.MessageDirection.INBOUND);
+        message.setStatus(Message.MessageStatus.DELIVERED);
+        return message;
+    }
+
+    private static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + name + " on " + target.getClass().getSimpleName(), e);
+        }
+    }
+}
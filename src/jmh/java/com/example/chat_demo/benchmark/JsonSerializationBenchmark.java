@@ -0,0 +1,122 @@
+package com.example.chat_demo.benchmark;
+
+import com.example.chat_demo.api.dto.ConversationDetailDto;
+import com.example.chat_demo.api.dto.MessageDto;
+import com.example.chat_demo.api.mapper.MessageMapper;
+import com.example.chat_demo.core.model.Message;
+import com.example.chat_demo.core.realtime.MessageDeltaEncoder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JsonSerializationBenchmark - Jackson serialize MessageDto/ConversationDetailDto và so sánh
+ * frame realtime đầy đủ với delta frame (MessageDeltaEncoder) cho một update status.
+ *
+ * Counter "bytes" (AuxCounters) cho biết số byte trên wire mỗi frame.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JsonSerializationBenchmark {
+
+    private static final String DELTA_DESTINATION = "/topic/conversations/1/delta";
+
+    private ObjectMapper objectMapper;
+    private MessageDto messageDto;
+    private MessageDto statusUpdateDto;
+    private ConversationDetailDto conversationDetail;
+    private MessageDeltaEncoder deltaEncoder;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WireBytes {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        objectMapper = BenchmarkFixtures.objectMapper();
+        MessageMapper messageMapper = BenchmarkFixtures.messageMapper();
+
+        Message attachmentMessage = BenchmarkFixtures.attachmentMessage();
+        messageDto = messageMapper.toDto(attachmentMessage);
+        attachmentMessage.setStatus(Message.MessageStatus.READ);
+        statusUpdateDto = messageMapper.toDto(attachmentMessage);
+
+        List<MessageDto> messages = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Message message = i % 5 == 0 ? BenchmarkFixtures.attachmentMessage() : BenchmarkFixtures.textMessage();
+            message.setId(4000L + i);
+            messages.add(messageMapper.toDto(message));
+        }
+        conversationDetail = new ConversationDetailDto();
+        conversationDetail.setId(1024L);
+        conversationDetail.setUserId(77L);
+        conversationDetail.setUserName("Minh Nguyễn");
+        conversationDetail.setUserPlatformId("5123456789");
+        conversationDetail.setChannelType("TELEGRAM");
+        conversationDetail.setStatus("OPEN");
+        conversationDetail.setStartedAt(LocalDateTime.of(2024, 10, 19, 9, 0));
+        conversationDetail.setLastMessageAt(LocalDateTime.of(2024, 10, 19, 9, 30, 15));
+        conversationDetail.setMessages(messages);
+        conversationDetail.setHasMore(true);
+        conversationDetail.setOldestMessageId(4000L);
+        conversationDetail.setNewestMessageId(4049L);
+        conversationDetail.setTotalCount(312);
+
+        // Encoder đã thấy frame đầu tiên, các lần encode sau là delta của update status
+        deltaEncoder = new MessageDeltaEncoder(10_000);
+        deltaEncoder.encode(DELTA_DESTINATION, messageDto);
+    }
+
+    @Benchmark
+    public byte[] messageDto(WireBytes wire) throws JsonProcessingException {
+        byte[] json = objectMapper.writeValueAsBytes(messageDto);
+        wire.bytes += json.length;
+        return json;
+    }
+
+    @Benchmark
+    public byte[] conversationDetail(WireBytes wire) throws JsonProcessingException {
+        byte[] json = objectMapper.writeValueAsBytes(conversationDetail);
+        wire.bytes += json.length;
+        return json;
+    }
+
+    @Benchmark
+    public byte[] statusUpdateFullFrame(WireBytes wire) throws JsonProcessingException {
+        byte[] json = objectMapper.writeValueAsBytes(statusUpdateDto);
+        wire.bytes += json.length;
+        return json;
+    }
+
+    @Benchmark
+    public byte[] statusUpdateDeltaFrame(WireBytes wire) throws JsonProcessingException {
+        // Xen kẽ hai trạng thái để mỗi lần encode đều có field thay đổi
+        deltaEncoder.encode(DELTA_DESTINATION, messageDto);
+        Map<String, Object> delta = deltaEncoder.encode(DELTA_DESTINATION, statusUpdateDto);
+        byte[] json = objectMapper.writeValueAsBytes(delta);
+        wire.bytes += json.length;
+        return json;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.chat_demo.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.example.chat_demo.common.logging.LogSampler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LoggingBenchmark - Chi phí log trên mỗi message inbound (webhook → route → lưu DB → gửi platform)
+ *
+ * perMessageBefore: các dòng INFO cũ (payload đầy đủ, URL gửi, mỗi bước một dòng).
+ * perMessageAfter: chi tiết ở DEBUG + một dòng INFO được lấy mẫu 1/100 qua LogSampler.
+ * Logger ở mức INFO, appender ghi vào null stream để chỉ đo format + encode, không đo I/O đĩa.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LoggingBenchmark {
+
+    private LoggerContext context;
+    private Logger log;
+    private LogSampler sampler;
+    private Map<String, Object> payload;
+    private final String channel = "TELEGRAM";
+    private final String platformUserId = "123456789";
+    private final Long messageId = 4242L;
+    private final Long conversationId = 17L;
+
+    @Setup
+    public void setup() {
+        ObjectMapper objectMapper = BenchmarkFixtures.objectMapper();
+        payload = BenchmarkFixtures.readFixture(objectMapper, "telegram-text.json");
+
+        context = new LoggerContext();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p [%t] %logger{40} : %m%n");
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+
+        log = context.getLogger("com.example.chat_demo.pipeline");
+        log.setLevel(Level.INFO);
+        log.setAdditive(false);
+        log.addAppender(appender);
+
+        // Mặc định của LogSampler: 1/100 cho WEBHOOK và CONNECTOR
+        sampler = new LogSampler(new StandardEnvironment());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.stop();
+    }
+
+    @Benchmark
+    public void perMessageBefore() {
+        log.info("[WEBHOOK] Received telegram webhook payload: {}", payload);
+        log.info("Routing message from {} user {}", channel, platformUserId);
+        log.info("Inbound message saved: {} (conversation {})", messageId, conversationId);
+        log.info("Saved inbound message {} for conversation {}", messageId, conversationId);
+        log.info("Sending Telegram message to {} via {}", platformUserId,
+                "https://api.telegram.org/bot<token>/sendMessage");
+        log.info("Sent message to Telegram user {}", platformUserId);
+        log.info("[WEBHOOK] telegram webhook processed");
+    }
+
+    @Benchmark
+    public void perMessageAfter() {
+        log.debug("[WEBHOOK] Received telegram webhook payload: {}", payload);
+        log.debug("Routing message from {} user {}", channel, platformUserId);
+        log.debug("Saved inbound message {} for conversation {}", messageId, conversationId);
+        log.debug("Sending Telegram message to {}", platformUserId);
+        if (sampler.sample(LogSampler.Category.CONNECTOR)) {
+            log.info("Sent message to Telegram user {} (sampled)", platformUserId);
+        }
+        if (sampler.sample(LogSampler.Category.WEBHOOK)) {
+            log.info("[WEBHOOK] telegram webhook processed (sampled)");
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.chat_demo.benchmark;
+
+import com.example.chat_demo.api.dto.MessageDto;
+import com.example.chat_demo.api.mapper.MessageMapper;
+import com.example.chat_demo.core.model.Message;
+import com.example.chat_demo.core.service.JitsiService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MessageMapperBenchmark - MessageMapper.toDto (có/không attachment) và JitsiService.buildRoomUrl
+ *
+ * Attachment tạo presigned URL mỗi lần map (ký HMAC), là phần đắt nhất của toDto.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MessageMapperBenchmark {
+
+    private MessageMapper messageMapper;
+    private JitsiService jitsiService;
+    private Message textMessage;
+    private Message attachmentMessage;
+
+    @Setup
+    public void setup() {
+        messageMapper = BenchmarkFixtures.messageMapper();
+        jitsiService = BenchmarkFixtures.jitsiService();
+        textMessage = BenchmarkFixtures.textMessage();
+        attachmentMessage = BenchmarkFixtures.attachmentMessage();
+    }
+
+    @Benchmark
+    public MessageDto toDtoText() {
+        return messageMapper.toDto(textMessage);
+    }
+
+    @Benchmark
+    public MessageDto toDtoWithAttachment() {
+        return messageMapper.toDto(attachmentMessage);
+    }
+
+    @Benchmark
+    public String buildRoomUrl() {
+        return jitsiService.buildRoomUrl("support-call-1024-7f3c2a9e");
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.chat_demo.benchmark;
+
+import com.example.chat_demo.core.model.UnifiedMessage;
+import com.example.chat_demo.core.service.MessengerUserProfileService;
+import com.example.chat_demo.omnichannel.parser.platform.MessengerParser;
+import com.example.chat_demo.omnichannel.parser.platform.TelegramParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ParserBenchmark - Chi phí parse webhook payload (chạy trên mỗi message inbound)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ParserBenchmark {
+
+    private TelegramParser telegramParser;
+    private MessengerParser messengerParser;
+    private Map<String, Object> telegramText;
+    private Map<String, Object> telegramPhoto;
+    private Map<String, Object> messengerBatch;
+
+    @Setup
+    public void setup() {
+        ObjectMapper objectMapper = BenchmarkFixtures.objectMapper();
+        telegramParser = new TelegramParser(objectMapper);
+        // Parser chỉ đọc profile cache, không gọi Graph API
+        messengerParser = new MessengerParser(objectMapper, new MessengerUserProfileService(new RestTemplate()));
+
+        telegramText = BenchmarkFixtures.readFixture(objectMapper, "telegram-text.json");
+        telegramPhoto = BenchmarkFixtures.readFixture(objectMapper, "telegram-photo.json");
+        messengerBatch = BenchmarkFixtures.readFixture(objectMapper, "messenger-batch.json");
+    }
+
+    @Benchmark
+    public UnifiedMessage telegramText() {
+        return telegramParser.parse(telegramText);
+    }
+
+    @Benchmark
+    public UnifiedMessage telegramPhoto() {
+        return telegramParser.parse(telegramPhoto);
+    }
+
+    @Benchmark
+    public UnifiedMessage messengerFirst() {
+        return messengerParser.parse(messengerBatch);
+    }
+
+    @Benchmark
+    public List<UnifiedMessage> messengerBatch() {
+        return messengerParser.parseAll(messengerBatch);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.chat_demo.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyRecorder - Ghi latency (nanos) của từng request để tính percentile khi kết thúc
+ * Số mẫu của một lần chạy chỉ cỡ vài trăm nghìn nên giữ toàn bộ thay vì dùng histogram xấp xỉ.
+ */
+final class LatencyRecorder {
+
+    private final String name;
+    private final LongAdder errors = new LongAdder();
+    private long[] samples = new long[16_384];
+    private int size;
+
+    LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    String name() {
+        return name;
+    }
+
+    synchronized void record(long latencyNanos) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = latencyNanos;
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    synchronized Snapshot snapshot() {
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        return new Snapshot(sorted);
+    }
+
+    /**
+     * Snapshot - Mẫu đã sort, percentile tính theo nearest-rank
+     */
+    record Snapshot(long[] sorted) {
+
+        int count() {
+            return sorted.length;
+        }
+
+        double percentileMillis(double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+            return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / 1_000_000.0;
+        }
+
+        double maxMillis() {
+            return sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1_000_000.0;
+        }
+    }
+}
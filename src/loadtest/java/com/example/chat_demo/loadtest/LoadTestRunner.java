@@ -0,0 +1,180 @@
+package com.example.chat_demo.loadtest;
+
+import com.example.chat_demo.ChatDemoApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LoadTestRunner - Entry point của task ./gradlew loadTest
+ * 1. Bật PlatformStubServer thay cho Telegram/Graph/Discord API
+ * 2. Khởi động app trong cùng JVM, trỏ platform.* vào stub và Postgres/MinIO local (docker-compose)
+ * 3. Warmup, rồi bắn webhook theo rate cố định (hoặc loadtest.concurrency client đồng thời) trong thời gian đo
+ * 4. In báo cáo latency/throughput/độ bão hoà pool và ghi ra loadtest.report-file
+ *
+ * Mọi cấu hình của app đều có thể override bằng -D (system property ưu tiên hơn giá trị mặc định ở đây).
+ */
+public final class LoadTestRunner {
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+        try (PlatformStubServer stubs = new PlatformStubServer(settings.stubLatency(), settings.attachmentBytes())) {
+            stubs.start();
+            ConfigurableApplicationContext app = new SpringApplicationBuilder(ChatDemoApplication.class)
+                    .properties(applicationDefaults(stubs))
+                    .run(args);
+            try {
+                run(settings, stubs, app);
+            } finally {
+                app.close();
+            }
+        }
+    }
+
+    private static void run(LoadTestSettings settings, PlatformStubServer stubs,
+                            ConfigurableApplicationContext app) throws Exception {
+        int port = Integer.parseInt(app.getEnvironment().getRequiredProperty("local.server.port"));
+        MeterRegistry registry = app.getBean(MeterRegistry.class);
+
+        WebhookPayloads payloads = new WebhookPayloads(new ObjectMapper(), stubs, settings.customers());
+        WebhookLoadGenerator generator = new WebhookLoadGenerator(settings, payloads, "http://127.0.0.1:" + port);
+
+        try (RealtimeProbe probe = new RealtimeProbe("127.0.0.1", port);
+             SaturationSampler sampler = new SaturationSampler(registry)) {
+            probe.connect(settings.websocketClients(), settings.stalledClients());
+
+            System.out.printf("Warmup %ds at %s...%n", settings.warmup().toSeconds(), settings.loadDescription());
+            generator.run(settings.warmup(), false);
+
+            System.out.printf("Measuring %ds at %s...%n", settings.duration().toSeconds(), settings.loadDescription());
+            sampler.start();
+            long started = System.nanoTime();
+            generator.run(settings.duration(), true);
+            double elapsedSeconds = (System.nanoTime() - started) / 1_000_000_000.0;
+
+            String report = report(settings, app, generator, probe, sampler, stubs, registry, elapsedSeconds);
+            System.out.println(report);
+            writeReport(settings, report);
+        }
+    }
+
+    /**
+     * Cấu hình mặc định cho app khi chạy load test (ưu tiên thấp nhất, override được bằng -D/env)
+     */
+    private static Map<String, Object> applicationDefaults(PlatformStubServer stubs) {
+        Map<String, Object> props = new HashMap<>();
+        props.put("server.port", 0);
+        // Cần để Micrometer có tomcat.threads.busy / tomcat.threads.config.max
+        props.put("server.tomcat.mbeanregistry.enabled", true);
+
+        // Postgres + MinIO theo docker-compose.yml
+        props.putAll(LocalInfrastructure.properties());
+        props.put("minio.bucket-name", "chat-media-loadtest");
+
+        // Platform API trỏ vào stub; Discord gateway tắt (không có bot token)
+        props.put("platform.telegram.bot-token", "loadtest");
+        props.put("platform.telegram.api-url", stubs.telegramApiUrl());
+        props.put("platform.telegram.file-url", stubs.telegramFileUrl());
+        props.put("platform.messenger.api-url", stubs.graphApiUrl());
+        props.put("platform.messenger.page-access-token", "loadtest");
+        props.put("platform.messenger.verify-token", "loadtest");
+        props.put("platform.discord.bot-token", "");
+        props.put("platform.discord.api-url", stubs.discordApiUrl());
+        return props;
+    }
+
+    private static String report(LoadTestSettings settings, ConfigurableApplicationContext app,
+                                 WebhookLoadGenerator generator, RealtimeProbe probe,
+                                 SaturationSampler sampler, PlatformStubServer stubs, MeterRegistry registry,
+                                 double elapsedSeconds) {
+        StringBuilder out = new StringBuilder();
+        boolean virtualThreads = Boolean.parseBoolean(
+                app.getEnvironment().getProperty("spring.threads.virtual.enabled", "false"));
+        out.append(String.format(Locale.ROOT,
+                "%n=== Load test: %s, %.0fs, %s threads, telegram-share=%.2f, attachment-ratio=%.2f, stub-latency=%dms ===%n",
+                settings.closedModel() ? settings.loadDescription() : settings.loadDescription() + " target",
+                elapsedSeconds, virtualThreads ? "virtual" : "platform", settings.telegramShare(),
+                settings.attachmentRatio(), settings.stubLatency().toMillis()));
+
+        long completed = 0;
+        long errors = 0;
+        out.append(String.format(Locale.ROOT, "%-20s %8s %7s %9s %9s %9s %9s%n",
+                "endpoint", "ok", "errors", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)"));
+        for (LatencyRecorder recorder : new LatencyRecorder[]{generator.telegram(), generator.messenger(), probe.delivery()}) {
+            LatencyRecorder.Snapshot snapshot = recorder.snapshot();
+            out.append(String.format(Locale.ROOT, "%-20s %8d %7d %9.1f %9.1f %9.1f %9.1f%n",
+                    recorder.name(), snapshot.count(), recorder.errors(),
+                    snapshot.percentileMillis(50), snapshot.percentileMillis(90),
+                    snapshot.percentileMillis(99), snapshot.maxMillis()));
+            if (recorder != probe.delivery()) {
+                completed += snapshot.count();
+                errors += recorder.errors();
+            }
+        }
+
+        out.append(String.format(Locale.ROOT,
+                "throughput: %.1f ok/s (sent %d, errors %d, rejected by client max-in-flight %d)%n",
+                completed / elapsedSeconds, generator.sent(), errors, generator.clientRejected()));
+        out.append(String.format(Locale.ROOT, "jvm: peak %.0f platform threads%n", gauge(registry, "jvm.threads.peak")));
+        out.append(String.format(Locale.ROOT, "websocket: %d frames to %d healthy clients, %d stalled, slow-consumer disconnects %.0f%n",
+                probe.frames(), settings.websocketClients(), settings.stalledClients(),
+                counter(registry, "chat.websocket.slow_consumer.disconnects")));
+
+        out.append(String.format(Locale.ROOT, "%-32s %9s %9s%n", "pool gauge", "mean", "max"));
+        sampler.stats().forEach((name, stat) -> out.append(String.format(Locale.ROOT, "%-32s %9.1f %9.1f%n",
+                name, stat.mean(), stat.max())));
+
+        out.append(String.format(Locale.ROOT, "%-44s %9s %9s %9s%n", "pipeline timer (incl. warmup)", "count", "mean(ms)", "max(ms)"));
+        for (String name : new String[]{"chat.pipeline.stage", "chat.connector.send", "chat.realtime.frame.send"}) {
+            registry.find(name).timers().stream()
+                    .filter(timer -> timer.count() > 0)
+                    .forEach(timer -> out.append(String.format(Locale.ROOT, "%-44s %9d %9.2f %9.2f%n",
+                            describe(timer), timer.count(), timer.mean(TimeUnit.MILLISECONDS),
+                            timer.max(TimeUnit.MILLISECONDS))));
+        }
+
+        out.append(String.format("outbound HTTP: max %d concurrent requests to platform stubs%n", stubs.maxInFlight()));
+        stubs.callsByRoute().forEach((route, count) -> out.append(String.format("  %-28s %d%n", route, count)));
+        return out.toString();
+    }
+
+    private static String describe(Timer timer) {
+        StringBuilder name = new StringBuilder(timer.getId().getName());
+        timer.getId().getTags().stream()
+                .filter(tag -> !"application".equals(tag.getKey()))
+                .forEach(tag -> name.append(' ').append(tag.getValue()));
+        return name.toString();
+    }
+
+    private static double gauge(MeterRegistry registry, String name) {
+        Gauge gauge = registry.find(name).gauge();
+        return gauge != null ? gauge.value() : Double.NaN;
+    }
+
+    private static double counter(MeterRegistry registry, String name) {
+        return registry.find(name).counters().stream().mapToDouble(Counter::count).sum();
+    }
+
+    private static void writeReport(LoadTestSettings settings, String report) throws IOException {
+        if (settings.reportFile().getParent() != null) {
+            Files.createDirectories(settings.reportFile().getParent());
+        }
+        Files.writeString(settings.reportFile(), report);
+        System.out.println("Report written to " + settings.reportFile().toAbsolutePath());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.chat_demo.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * LoadTestSettings - Tham số của một lần chạy load test, đọc từ system property loadtest.*
+ * (Gradle truyền -Ploadtest.xxx=... thành -Dloadtest.xxx=...)
+ *
+ * concurrency > 0: closed model, concurrency client gửi webhook liên tục (bỏ qua rate)
+ */
+record LoadTestSettings(
+        int rate,
+        int concurrency,
+        Duration warmup,
+        Duration duration,
+        double telegramShare,
+        double attachmentRatio,
+        int customers,
+        int maxInFlight,
+        Duration stubLatency,
+        int attachmentBytes,
+        int websocketClients,
+        int stalledClients,
+        Path reportFile) {
+
+    static LoadTestSettings fromSystemProperties() {
+        LoadTestSettings settings = new LoadTestSettings(
+                intProp("loadtest.rate", 50),
+                intProp("loadtest.concurrency", 0),
+                Duration.ofSeconds(intProp("loadtest.warmup-seconds", 10)),
+                Duration.ofSeconds(intProp("loadtest.duration-seconds", 60)),
+                doubleProp("loadtest.telegram-share", 0.7),
+                doubleProp("loadtest.attachment-ratio", 0.2),
+                intProp("loadtest.customers", 500),
+                intProp("loadtest.max-in-flight", 2000),
+                Duration.ofMillis(intProp("loadtest.stub-latency-ms", 50)),
+                intProp("loadtest.attachment-kb", 256) * 1024,
+                intProp("loadtest.websocket-clients", 20),
+                intProp("loadtest.stalled-clients", 1),
+                Path.of(System.getProperty("loadtest.report-file", "build/reports/loadtest/report.txt")));
+        settings.validate();
+        return settings;
+    }
+
+    private void validate() {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("loadtest.rate must be > 0");
+        }
+        if (concurrency < 0) {
+            throw new IllegalArgumentException("loadtest.concurrency must be >= 0");
+        }
+        if (duration.isZero() || duration.isNegative()) {
+            throw new IllegalArgumentException("loadtest.duration-seconds must be > 0");
+        }
+        if (telegramShare < 0 || telegramShare > 1 || attachmentRatio < 0 || attachmentRatio > 1) {
+            throw new IllegalArgumentException("loadtest.telegram-share and loadtest.attachment-ratio must be within [0, 1]");
+        }
+        if (customers <= 0 || maxInFlight <= 0) {
+            throw new IllegalArgumentException("loadtest.customers and loadtest.max-in-flight must be > 0");
+        }
+    }
+
+    boolean closedModel() {
+        return concurrency > 0;
+    }
+
+    /**
+     * Mô tả tải cho log/báo cáo
+     */
+    String loadDescription() {
+        return closedModel() ? concurrency + " concurrent clients" : rate + " req/s";
+    }
+
+    private static int intProp(String key, int defaultValue) {
+        String value = System.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static double doubleProp(String key, double defaultValue) {
+        String value = System.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Double.parseDouble(value.trim());
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.chat_demo.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LocalInfrastructure - Kết nối tới Postgres + MinIO của docker-compose.yml, dùng chung cho loadTest và startupReport
+ */
+final class LocalInfrastructure {
+
+    private LocalInfrastructure() {
+    }
+
+    static Map<String, Object> properties() {
+        Map<String, Object> props = new LinkedHashMap<>();
+        props.put("spring.datasource.url", "jdbc:postgresql://localhost:5432/chatdemo");
+        props.put("spring.datasource.username", "postgres");
+        props.put("spring.datasource.password", "Haiminh1002@");
+        props.put("spring.jpa.hibernate.ddl-auto", "update");
+        props.put("minio.endpoint", "http://localhost:9000");
+        props.put("minio.access-key", "admin");
+        props.put("minio.secret-key", "admin123");
+        return props;
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.chat_demo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NativeSmokeTestRunner - Entry point của task ./gradlew -Pnative nativeSmokeTest
+ *
+ * Khởi động native binary (build/native/nativeCompile/chat-demo) với Postgres/MinIO của docker-compose
+ * và PlatformStubServer thay Telegram Bot API, rồi kiểm tra:
+ * 1. readiness trả 200
+ * 2. webhook Telegram có ảnh → 200, được route (chat.pipeline.webhooks outcome=routed), ảnh tải từ stub lên MinIO
+ * 3. staff reply qua /api/conversations/{id}/messages → gọi sendMessage của stub
+ * In thời gian tới readiness và RSS của process; lỗi bất kỳ bước nào thì exit code 1.
+ */
+public final class NativeSmokeTestRunner {
+
+    private static final String TELEGRAM_USER_ID = "9000000000";
+    private static final Duration READY_TIMEOUT = Duration.ofSeconds(60);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(500))
+            .build();
+    private final Path binary;
+    private final int port;
+    private final Path reportDir;
+
+    private NativeSmokeTestRunner() {
+        this.binary = Path.of(System.getProperty("native.smoke.binary", "build/native/nativeCompile/chat-demo"));
+        this.port = Integer.parseInt(System.getProperty("native.smoke.port", "18082"));
+        this.reportDir = Path.of(System.getProperty("native.smoke.report-dir", "build/reports/native"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        try {
+            new NativeSmokeTestRunner().run();
+        } catch (AssertionError | IllegalStateException e) {
+            System.err.println("Native smoke test FAILED: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private void run() throws Exception {
+        if (!Files.isExecutable(binary)) {
+            throw new IllegalStateException("Native binary not found: " + binary.toAbsolutePath()
+                    + " (run ./gradlew -Pnative nativeCompile)");
+        }
+        Files.createDirectories(reportDir);
+        Path log = reportDir.resolve("smoke.log");
+
+        try (PlatformStubServer stubs = new PlatformStubServer(Duration.ZERO, 64 * 1024)) {
+            stubs.start();
+            long forkedAt = System.nanoTime();
+            Process process = new ProcessBuilder(command(stubs))
+                    .redirectErrorStream(true)
+                    .redirectOutput(log.toFile())
+                    .start();
+            try {
+                double readySeconds = awaitReady(process, forkedAt, log);
+                checkTelegramWebhook(stubs);
+                long conversationId = findConversation();
+                checkStaffReply(stubs, conversationId);
+
+                String report = String.format(Locale.ROOT,
+                        "Native smoke test PASSED: ready in %.2fs, RSS %s, platform calls %s%n",
+                        readySeconds, residentSetSize(process), stubs.callsByRoute());
+                System.out.print(report);
+                Files.writeString(reportDir.resolve("smoke.txt"), report);
+            } finally {
+                process.destroy();
+                if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+        }
+    }
+
+    private List<String> command(PlatformStubServer stubs) {
+        Map<String, Object> props = new LinkedHashMap<>(LocalInfrastructure.properties());
+        props.put("spring.profiles.active", "native");
+        props.put("server.port", port);
+        props.put("minio.bucket-name", "chat-media-native-smoke");
+        props.put("platform.telegram.bot-token", "native-smoke");
+        props.put("platform.telegram.api-url", stubs.telegramApiUrl());
+        props.put("platform.telegram.file-url", stubs.telegramFileUrl());
+        props.put("platform.discord.bot-token", "");
+        // Override thêm bằng -Pspring.* / -Pminio.* / ...
+        System.getProperties().stringPropertyNames().stream()
+                .filter(key -> key.startsWith("spring.") || key.startsWith("minio.") || key.startsWith("platform."))
+                .forEach(key -> props.put(key, System.getProperty(key)));
+
+        List<String> command = new ArrayList<>();
+        command.add(binary.toAbsolutePath().toString());
+        props.forEach((key, value) -> command.add("--" + key + "=" + value));
+        return command;
+    }
+
+    private double awaitReady(Process process, long forkedAt, Path log) throws Exception {
+        long deadline = forkedAt + READY_TIMEOUT.toNanos();
+        while (true) {
+            try {
+                if (get("/actuator/health/readiness").statusCode() == 200) {
+                    return (System.nanoTime() - forkedAt) / 1_000_000_000.0;
+                }
+            } catch (IOException e) {
+                // Chưa mở port
+            }
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Native app exited with " + process.exitValue() + ", see " + log.toAbsolutePath());
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Native app not ready after " + READY_TIMEOUT + ", see " + log.toAbsolutePath());
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private void checkTelegramWebhook(PlatformStubServer stubs) throws Exception {
+        WebhookPayloads payloads = new WebhookPayloads(objectMapper, stubs, 1);
+        HttpResponse<String> response = post("/webhook/telegram", payloads.telegram(true));
+        check(response.statusCode() == 200, "POST /webhook/telegram returned " + response.statusCode() + ": " + response.body());
+
+        JsonNode routed = objectMapper.readTree(
+                get("/actuator/metrics/chat.pipeline.webhooks?tag=channel:TELEGRAM&tag=outcome:routed").body());
+        check(routed.path("measurements").path(0).path("value").asDouble() >= 1,
+                "webhook was not routed: " + routed);
+        check(stubs.callsByRoute().getOrDefault("telegram.file", 0L) >= 1,
+                "attachment was not downloaded from the Telegram file stub: " + stubs.callsByRoute());
+    }
+
+    private long findConversation() throws Exception {
+        HttpResponse<String> response = get("/api/conversations");
+        check(response.statusCode() == 200, "GET /api/conversations returned " + response.statusCode());
+        for (JsonNode conversation : objectMapper.readTree(response.body())) {
+            if ("TELEGRAM".equals(conversation.path("channelType").asText())
+                    && TELEGRAM_USER_ID.equals(conversation.path("userPlatformId").asText())) {
+                return conversation.path("id").asLong();
+            }
+        }
+        throw new AssertionError("no Telegram conversation for user " + TELEGRAM_USER_ID);
+    }
+
+    private void checkStaffReply(PlatformStubServer stubs, long conversationId) throws Exception {
+        long sentBefore = stubs.callsByRoute().getOrDefault("telegram.sendMessage", 0L);
+        HttpResponse<String> response = post("/api/conversations/" + conversationId + "/messages",
+                objectMapper.writeValueAsString(Map.of("content", "native smoke reply")));
+        check(response.statusCode() == 200, "staff reply returned " + response.statusCode() + ": " + response.body());
+        check(stubs.callsByRoute().getOrDefault("telegram.sendMessage", 0L) > sentBefore,
+                "staff reply did not call Telegram sendMessage: " + stubs.callsByRoute());
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri(path)).timeout(Duration.ofSeconds(5)).GET().build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String json) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri(path))
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + port + path);
+    }
+
+    /**
+     * VmRSS từ /proc (Linux), "n/a" trên OS khác
+     */
+    private static String residentSetSize(Process process) {
+        Path status = Path.of("/proc", String.valueOf(process.pid()), "status");
+        try {
+            return Files.readAllLines(status).stream()
+                    .filter(line -> line.startsWith("VmRSS:"))
+                    .map(line -> line.substring("VmRSS:".length()).trim())
+                    .findFirst()
+                    .orElse("n/a");
+        } catch (IOException e) {
+            return "n/a";
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.chat_demo.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PlatformStubServer - HTTP server local giả lập Telegram Bot API, Graph API (Messenger) và Discord REST API
+ * Mỗi response trễ một khoảng cố định để mô phỏng round-trip tới host thật;
+ * đếm số call theo route và số outbound request đồng thời lớn nhất của app.
+ */
+final class PlatformStubServer implements AutoCloseable {
+
+    private final Duration latency;
+    private final byte[] attachmentBody;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, LongAdder> callsByRoute = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicLong outboundIds = new AtomicLong();
+
+    PlatformStubServer(Duration latency, int attachmentBytes) throws IOException {
+        this.latency = latency;
+        this.attachmentBody = new byte[attachmentBytes];
+        ThreadLocalRandom.current().nextBytes(attachmentBody);
+
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.createContext("/telegram/", this::telegramApi);
+        server.createContext("/telegram-file/", exchange -> handle(exchange, "telegram.file", this::attachment));
+        server.createContext("/media/", exchange -> handle(exchange, "media.file", this::attachment));
+        server.createContext("/graph/", this::graphApi);
+        server.createContext("/discord/", exchange -> handle(exchange, "discord." + lastSegment(exchange),
+                ex -> json(ex, "{\"id\":\"" + outboundIds.incrementAndGet() + "\"}")));
+        server.setExecutor(executor);
+    }
+
+    void start() {
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Giá trị cho platform.telegram.api-url (app nối thêm {botToken}/{method})
+     */
+    String telegramApiUrl() {
+        return baseUrl() + "/telegram/bot";
+    }
+
+    /**
+     * Giá trị cho platform.telegram.file-url (app nối thêm {botToken}/{file_path})
+     */
+    String telegramFileUrl() {
+        return baseUrl() + "/telegram-file/bot";
+    }
+
+    String graphApiUrl() {
+        return baseUrl() + "/graph";
+    }
+
+    String discordApiUrl() {
+        return baseUrl() + "/discord";
+    }
+
+    /**
+     * URL ảnh cho attachment Messenger (payload.url của webhook)
+     */
+    String mediaUrl(String name) {
+        return baseUrl() + "/media/" + name + ".jpg";
+    }
+
+    Map<String, Long> callsByRoute() {
+        Map<String, Long> result = new TreeMap<>();
+        callsByRoute.forEach((route, count) -> result.put(route, count.sum()));
+        return result;
+    }
+
+    int maxInFlight() {
+        return maxInFlight.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * /telegram/bot{token}/{method}
+     */
+    private void telegramApi(HttpExchange exchange) throws IOException {
+        String method = lastSegment(exchange);
+        handle(exchange, "telegram." + method, ex -> {
+            switch (method) {
+                case "getFile" -> {
+                    String query = ex.getRequestURI().getQuery();
+                    String fileId = query != null && query.startsWith("file_id=") ? query.substring(8) : "file";
+                    json(ex, "{\"ok\":true,\"result\":{\"file_id\":\"" + fileId + "\",\"file_unique_id\":\"" + fileId
+                            + "\",\"file_size\":" + attachmentBody.length + ",\"file_path\":\"photos/" + fileId + ".jpg\"}}");
+                }
+                case "sendMessage" -> json(ex, "{\"ok\":true,\"result\":{\"message_id\":" + outboundIds.incrementAndGet()
+                        + ",\"date\":" + System.currentTimeMillis() / 1000 + "}}");
+                default -> json(ex, "{\"ok\":true,\"result\":true}");
+            }
+        });
+    }
+
+    /**
+     * /graph/me/messages (Send API) và /graph/{psid} (profile)
+     */
+    private void graphApi(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.endsWith("/me/messages")) {
+            handle(exchange, "graph.messages", ex -> json(ex,
+                    "{\"recipient_id\":\"stub\",\"message_id\":\"m_stub_" + outboundIds.incrementAndGet() + "\"}"));
+        } else {
+            String psid = lastSegment(exchange);
+            handle(exchange, "graph.profile", ex -> json(ex,
+                    "{\"id\":\"" + psid + "\",\"first_name\":\"Load\",\"last_name\":\"Tester " + psid + "\"}"));
+        }
+    }
+
+    private void attachment(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "image/jpeg");
+        exchange.sendResponseHeaders(200, attachmentBody.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(attachmentBody);
+        }
+    }
+
+    private void handle(HttpExchange exchange, String route, StubHandler handler) throws IOException {
+        callsByRoute.computeIfAbsent(route, key -> new LongAdder()).increment();
+        int current = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(current, Math::max);
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream());
+            if (!latency.isZero()) {
+                Thread.sleep(latency);
+            }
+            handler.handle(exchange);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private static void json(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static String lastSegment(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    @FunctionalInterface
+    private interface StubHandler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.chat_demo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RealtimeProbe - Client STOMP subscribe /topic/inbox trong lúc chạy load test
+ * Client khoẻ đo độ trễ từ lúc message được lưu (lastMessageAt) tới khi frame tới client;
+ * client "stalled" bắt tay WebSocket, subscribe rồi không bao giờ đọc socket để kiểm tra
+ * một consumer chậm không kéo trễ các client khác (server phải tự ngắt nó theo send-time-limit).
+ */
+final class RealtimeProbe implements AutoCloseable {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final String host;
+    private final int port;
+    private final LatencyRecorder delivery = new LatencyRecorder("websocket.delivery");
+    private final LongAdder frames = new LongAdder();
+    private final List<StompSession> sessions = new ArrayList<>();
+    private final List<Socket> stalledSockets = new ArrayList<>();
+    private WebSocketStompClient stompClient;
+
+    RealtimeProbe(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    LatencyRecorder delivery() {
+        return delivery;
+    }
+
+    long frames() {
+        return frames.sum();
+    }
+
+    void connect(int healthyClients, int stalledClients) throws Exception {
+        if (healthyClients > 0) {
+            stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+            stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+            String url = "ws://" + host + ":" + port + "/ws";
+            for (int i = 0; i < healthyClients; i++) {
+                sessions.add(stompClient.connectAsync(url, new InboxSubscriber()).get(10, TimeUnit.SECONDS));
+            }
+        }
+        for (int i = 0; i < stalledClients; i++) {
+            stalledSockets.add(openStalledClient());
+        }
+    }
+
+    @Override
+    public void close() {
+        sessions.forEach(session -> {
+            if (session.isConnected()) {
+                session.disconnect();
+            }
+        });
+        stalledSockets.forEach(socket -> {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // socket có thể đã bị server đóng
+            }
+        });
+        if (stompClient != null) {
+            stompClient.stop();
+        }
+    }
+
+    /**
+     * InboxSubscriber - Subscribe firehose /topic/inbox và ghi độ trễ giao frame
+     */
+    private final class InboxSubscriber extends StompSessionHandlerAdapter {
+
+        @Override
+        public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+            session.subscribe("/topic/inbox", new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return JsonNode.class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    frames.increment();
+                    JsonNode lastMessageAt = ((JsonNode) payload).get("lastMessageAt");
+                    if (lastMessageAt == null || !lastMessageAt.isTextual()) {
+                        return;
+                    }
+                    long savedAtMillis = LocalDateTime.parse(lastMessageAt.asText())
+                            .atZone(ZONE).toInstant().toEpochMilli();
+                    long lagMillis = Math.max(0, System.currentTimeMillis() - savedAtMillis);
+                    delivery.record(TimeUnit.MILLISECONDS.toNanos(lagMillis));
+                }
+            });
+        }
+    }
+
+    /**
+     * Handshake WebSocket + CONNECT/SUBSCRIBE bằng socket thô với receive buffer nhỏ, sau đó không đọc nữa
+     */
+    private Socket openStalledClient() throws IOException {
+        Socket socket = new Socket();
+        socket.setReceiveBufferSize(4096);
+        socket.connect(new InetSocketAddress(host, port), 5000);
+        socket.setSoTimeout(5000);
+
+        byte[] key = new byte[16];
+        ThreadLocalRandom.current().nextBytes(key);
+        String handshake = "GET /ws HTTP/1.1\r\n"
+                + "Host: " + host + ":" + port + "\r\n"
+                + "Upgrade: websocket\r\n"
+                + "Connection: Upgrade\r\n"
+                + "Sec-WebSocket-Key: " + Base64.getEncoder().encodeToString(key) + "\r\n"
+                + "Sec-WebSocket-Version: 13\r\n"
+                + "Sec-WebSocket-Protocol: v12.stomp\r\n\r\n";
+        OutputStream out = socket.getOutputStream();
+        out.write(handshake.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+
+        String response = readHttpHeaders(socket.getInputStream());
+        if (!response.startsWith("HTTP/1.1 101")) {
+            socket.close();
+            throw new IllegalStateException("WebSocket handshake failed: " + response.lines().findFirst().orElse(""));
+        }
+
+        writeTextFrame(out, "CONNECT\naccept-version:1.2\nhost:" + host + "\n\n\0");
+        writeTextFrame(out, "SUBSCRIBE\nid:stalled-0\ndestination:/topic/inbox\n\n\0");
+        return socket;
+    }
+
+    private static String readHttpHeaders(InputStream in) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        int matched = 0;
+        byte[] terminator = {'\r', '\n', '\r', '\n'};
+        while (matched < terminator.length) {
+            int b = in.read();
+            if (b < 0) {
+                break;
+            }
+            buffer.write(b);
+            matched = b == terminator[matched] ? matched + 1 : (b == '\r' ? 1 : 0);
+        }
+        return buffer.toString(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Frame text từ client bắt buộc phải được mask (RFC 6455 §5.3)
+     */
+    private static void writeTextFrame(OutputStream out, String text) throws IOException {
+        byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+        byte[] mask = new byte[4];
+        ThreadLocalRandom.current().nextBytes(mask);
+
+        out.write(0x81);
+        if (payload.length < 126) {
+            out.write(0x80 | payload.length);
+        } else {
+            out.write(0x80 | 126);
+            out.write((payload.length >>> 8) & 0xFF);
+            out.write(payload.length & 0xFF);
+        }
+        out.write(mask);
+        for (int i = 0; i < payload.length; i++) {
+            out.write(payload[i] ^ mask[i % 4]);
+        }
+        out.flush();
+    }
+}
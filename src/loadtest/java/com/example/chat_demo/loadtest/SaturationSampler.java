@@ -0,0 +1,97 @@
+package com.example.chat_demo.loadtest;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SaturationSampler - Lấy mẫu mỗi giây các gauge về độ bão hoà pool trong MeterRegistry của app
+ * (Hikari connection pool, Tomcat request threads, hàng đợi WebSocket) để báo cáo mean/max khi kết thúc.
+ */
+final class SaturationSampler implements AutoCloseable {
+
+    static final List<String> GAUGES = List.of(
+            "hikaricp.connections.active",
+            "hikaricp.connections.pending",
+            "hikaricp.connections.max",
+            "tomcat.threads.busy",
+            "tomcat.threads.config.max",
+            "chat.websocket.sessions",
+            "chat.websocket.outbound.queue");
+
+    private final MeterRegistry registry;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "loadtest-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, Stat> stats = new LinkedHashMap<>();
+
+    SaturationSampler(MeterRegistry registry) {
+        this.registry = registry;
+        GAUGES.forEach(name -> stats.put(name, new Stat()));
+    }
+
+    void start() {
+        scheduler.scheduleAtFixedRate(this::sample, 0, 1, TimeUnit.SECONDS);
+    }
+
+    synchronized Map<String, Stat> stats() {
+        Map<String, Stat> copy = new LinkedHashMap<>();
+        stats.forEach((name, stat) -> copy.put(name, stat.copy()));
+        return copy;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private synchronized void sample() {
+        stats.forEach((name, stat) -> {
+            // Gauge có thể có nhiều tag (nhiều pool); cộng dồn để ra tổng của app
+            double value = registry.find(name).gauges().stream()
+                    .mapToDouble(Gauge::value)
+                    .filter(v -> !Double.isNaN(v))
+                    .sum();
+            stat.add(value);
+        });
+    }
+
+    /**
+     * Stat - Mean/max của một gauge qua các lần lấy mẫu
+     */
+    static final class Stat {
+        private double sum;
+        private double max;
+        private int samples;
+
+        void add(double value) {
+            sum += value;
+            max = Math.max(max, value);
+            samples++;
+        }
+
+        double mean() {
+            return samples == 0 ? 0 : sum / samples;
+        }
+
+        double max() {
+            return max;
+        }
+
+        Stat copy() {
+            Stat copy = new Stat();
+            copy.sum = sum;
+            copy.max = max;
+            copy.samples = samples;
+            return copy;
+        }
+    }
+}
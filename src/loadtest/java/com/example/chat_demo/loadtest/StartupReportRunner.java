@@ -0,0 +1,238 @@
+package com.example.chat_demo.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * StartupReportRunner - Entry point của task ./gradlew cdsArchive và ./gradlew startupReport
+ *
+ * startup.mode=train: chạy app (jar đã giải nén ở build/cds/app) tới hết refresh với
+ * -XX:ArchiveClassesAtExit để tạo CDS archive.
+ * startup.mode=report: khởi động app nhiều lần ở từng cấu hình (mặc định / profile fast-startup /
+ * fast-startup + CDS), đo thời gian tới log "Started" và tới khi /actuator/health/readiness trả 200,
+ * in trung vị + min và ghi ra build/reports/startup/report.txt.
+ *
+ * Cần Postgres/MinIO của docker-compose. Cấu hình app override được bằng -Pspring.* / -Pplatform.* / ...
+ */
+public final class StartupReportRunner {
+
+    private static final Pattern STARTED = Pattern.compile(
+            "Started \\S+ in ([0-9.]+) seconds \\(process running for ([0-9.]+)\\)");
+    private static final List<String> FORWARDED_PREFIXES = List.of(
+            "spring.", "server.", "minio.", "platform.", "management.", "omnichannel.");
+    private static final Duration READY_TIMEOUT = Duration.ofMinutes(3);
+
+    private final Path appJar;
+    private final Path cdsArchive;
+    private final int port;
+    private final Path reportDir;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(200))
+            .build();
+
+    private StartupReportRunner() {
+        this.appJar = Path.of(requiredProperty("startup.app-jar"));
+        this.cdsArchive = Path.of(requiredProperty("startup.cds-archive"));
+        this.port = Integer.parseInt(System.getProperty("startup.port", "18081"));
+        this.reportDir = Path.of(System.getProperty("startup.report-dir", "build/reports/startup"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        StartupReportRunner runner = new StartupReportRunner();
+        String mode = System.getProperty("startup.mode", "report");
+        switch (mode) {
+            case "train" -> runner.train();
+            case "report" -> runner.report(Integer.parseInt(System.getProperty("startup.runs", "3")));
+            default -> throw new IllegalArgumentException("startup.mode must be train or report: " + mode);
+        }
+    }
+
+    /**
+     * Training run: Spring thoát ngay sau refresh (spring.context.exit=onRefresh), JVM ghi archive lúc exit
+     */
+    private void train() throws Exception {
+        Files.deleteIfExists(cdsArchive);
+        List<String> command = javaCommand(List.of(
+                "-XX:ArchiveClassesAtExit=" + cdsArchive,
+                "-Dspring.context.exit=onRefresh"), "fast-startup");
+        Files.createDirectories(reportDir);
+        Path log = reportDir.resolve("cds-training.log");
+        System.out.println("Training CDS archive: " + String.join(" ", command));
+
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        if (!process.waitFor(READY_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            throw new IllegalStateException("CDS training run did not exit, see " + log.toAbsolutePath());
+        }
+        if (process.exitValue() != 0 || !Files.exists(cdsArchive)) {
+            throw new IllegalStateException("CDS training run failed (exit " + process.exitValue()
+                    + "), see " + log.toAbsolutePath());
+        }
+        System.out.printf(Locale.ROOT, "CDS archive written to %s (%.1f MB)%n",
+                cdsArchive.toAbsolutePath(), Files.size(cdsArchive) / (1024.0 * 1024.0));
+    }
+
+    private void report(int runs) throws Exception {
+        Map<String, List<String>> variants = new LinkedHashMap<>();
+        variants.put("default", List.of());
+        variants.put("fast-startup", List.of());
+        if (Files.exists(cdsArchive)) {
+            variants.put("fast-startup + CDS", List.of("-XX:SharedArchiveFile=" + cdsArchive));
+        } else {
+            System.out.println("No CDS archive at " + cdsArchive + ", run ./gradlew cdsArchive to include it");
+        }
+
+        Map<String, List<Sample>> results = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> variant : variants.entrySet()) {
+            String profile = variant.getKey().startsWith("fast-startup") ? "fast-startup" : null;
+            List<Sample> samples = new ArrayList<>();
+            for (int run = 1; run <= runs; run++) {
+                Sample sample = measure(variant.getKey(), run, javaCommand(variant.getValue(), profile));
+                System.out.printf(Locale.ROOT, "%-20s run %d: started %.2fs, ready %.2fs%n",
+                        variant.getKey(), run, sample.startedSeconds(), sample.readySeconds());
+                samples.add(sample);
+            }
+            results.put(variant.getKey(), samples);
+        }
+
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "%n=== Startup report: %d runs per variant, %s ===%n", runs, appJar.getFileName()));
+        out.append(String.format(Locale.ROOT, "%-20s %14s %14s %14s %14s%n",
+                "variant", "started p50(s)", "started min(s)", "ready p50(s)", "ready min(s)"));
+        results.forEach((name, samples) -> {
+            double[] started = samples.stream().mapToDouble(Sample::startedSeconds).sorted().toArray();
+            double[] ready = samples.stream().mapToDouble(Sample::readySeconds).sorted().toArray();
+            out.append(String.format(Locale.ROOT, "%-20s %14.2f %14.2f %14.2f %14.2f%n",
+                    name, median(started), started[0], median(ready), ready[0]));
+        });
+        out.append("started = \"process running for\" trong log Started; ready = từ lúc fork process tới khi readiness trả 200\n");
+
+        System.out.println(out);
+        Path reportFile = reportDir.resolve("report.txt");
+        Files.createDirectories(reportDir);
+        Files.writeString(reportFile, out.toString());
+        System.out.println("Report written to " + reportFile.toAbsolutePath());
+    }
+
+    private Sample measure(String variant, int run, List<String> command) throws Exception {
+        Path log = reportDir.resolve(variant.replaceAll("[^a-z0-9]+", "-") + "-" + run + ".log");
+        Files.createDirectories(reportDir);
+        AtomicReference<Double> started = new AtomicReference<>();
+
+        long forkedAt = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        Thread pump = Thread.ofPlatform().daemon().start(() -> pumpOutput(process, log, started));
+        try {
+            long deadline = forkedAt + READY_TIMEOUT.toNanos();
+            while (!isReady()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("App exited with " + process.exitValue() + ", see " + log.toAbsolutePath());
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("App not ready after " + READY_TIMEOUT + ", see " + log.toAbsolutePath());
+                }
+                Thread.sleep(20);
+            }
+            double readySeconds = (System.nanoTime() - forkedAt) / 1_000_000_000.0;
+            return new Sample(started.get() != null ? started.get() : Double.NaN, readySeconds);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+            pump.join(5_000);
+        }
+    }
+
+    private boolean isReady() {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/actuator/health/readiness"))
+                .timeout(Duration.ofSeconds(1))
+                .GET()
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void pumpOutput(Process process, Path log, AtomicReference<Double> started) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter writer = new PrintWriter(Files.newBufferedWriter(log))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                writer.println(line);
+                Matcher matcher = STARTED.matcher(line);
+                if (started.get() == null && matcher.find()) {
+                    started.set(Double.parseDouble(matcher.group(2)));
+                }
+            }
+        } catch (IOException e) {
+            // Process bị dừng giữa chừng, log đã ghi tới đâu giữ tới đó
+        }
+    }
+
+    /**
+     * java [jvmArgs] -jar app.jar --k=v...: mặc định docker-compose, ghi đè bằng system property đã forward
+     */
+    private List<String> javaCommand(List<String> jvmArgs, String profile) {
+        Map<String, Object> appProperties = new LinkedHashMap<>(LocalInfrastructure.properties());
+        appProperties.put("server.port", port);
+        appProperties.put("platform.telegram.bot-token", "startup-report");
+        if (profile != null) {
+            appProperties.put("spring.profiles.active", profile);
+        }
+        System.getProperties().stringPropertyNames().stream()
+                .filter(key -> FORWARDED_PREFIXES.stream().anyMatch(key::startsWith))
+                .forEach(key -> appProperties.put(key, System.getProperty(key)));
+
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(jvmArgs);
+        command.addAll(Arrays.asList("-jar", appJar.toString()));
+        appProperties.forEach((key, value) -> command.add("--" + key + "=" + value));
+        return command;
+    }
+
+    private static double median(double[] sorted) {
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    private static String requiredProperty(String key) {
+        String value = System.getProperty(key);
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(key + " is required (set by the Gradle task)");
+        }
+        return value;
+    }
+
+    private record Sample(double startedSeconds, double readySeconds) {
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.chat_demo.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * WebhookLoadGenerator - Bắn webhook theo rate cố định (open model)
+ * Thời điểm gửi được lên lịch trước; latency tính từ thời điểm dự kiến nên khi app chậm,
+ * thời gian request phải chờ cũng được tính (tránh coordinated omission).
+ * Số request đang chờ bị chặn bởi max-in-flight; vượt ngưỡng thì tính là rejected phía client.
+ *
+ * loadtest.concurrency > 0: closed model, mỗi client (virtual thread) gửi request kế tiếp ngay khi
+ * nhận response; throughput đo được là khả năng phục vụ của app ở mức đồng thời đó.
+ */
+final class WebhookLoadGenerator {
+
+    private final LoadTestSettings settings;
+    private final WebhookPayloads payloads;
+    private final URI telegramUri;
+    private final URI messengerUri;
+    private final HttpClient httpClient;
+    private final Semaphore inFlight;
+
+    private final LatencyRecorder telegram = new LatencyRecorder("webhook.telegram");
+    private final LatencyRecorder messenger = new LatencyRecorder("webhook.messenger");
+    private final LongAdder clientRejected = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+
+    WebhookLoadGenerator(LoadTestSettings settings, WebhookPayloads payloads, String appBaseUrl) {
+        this.settings = settings;
+        this.payloads = payloads;
+        this.telegramUri = URI.create(appBaseUrl + "/webhook/telegram");
+        this.messengerUri = URI.create(appBaseUrl + "/webhook/messenger");
+        this.httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.inFlight = new Semaphore(settings.maxInFlight());
+    }
+
+    LatencyRecorder telegram() {
+        return telegram;
+    }
+
+    LatencyRecorder messenger() {
+        return messenger;
+    }
+
+    long clientRejected() {
+        return clientRejected.sum();
+    }
+
+    long sent() {
+        return sent.sum();
+    }
+
+    /**
+     * Chạy phase (warmup hoặc đo); record=false thì bỏ qua kết quả
+     */
+    void run(Duration phase, boolean record) throws InterruptedException {
+        if (settings.closedModel()) {
+            runClosed(phase, record);
+            return;
+        }
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / settings.rate();
+        long start = System.nanoTime();
+        long end = start + phase.toNanos();
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!inFlight.tryAcquire()) {
+                if (record) {
+                    clientRejected.increment();
+                }
+                continue;
+            }
+            fire(intended, record);
+        }
+        // Chờ các request cuối cùng trả về trước khi kết thúc phase
+        inFlight.acquire(settings.maxInFlight());
+        inFlight.release(settings.maxInFlight());
+    }
+
+    private void runClosed(Duration phase, boolean record) {
+        long end = System.nanoTime() + phase.toNanos();
+        // close() chờ mọi client kết thúc request cuối cùng
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < settings.concurrency(); i++) {
+                clients.execute(() -> {
+                    while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+                        sendBlocking(record);
+                    }
+                });
+            }
+        }
+    }
+
+    private void sendBlocking(boolean record) {
+        boolean toTelegram = ThreadLocalRandom.current().nextDouble() < settings.telegramShare();
+        LatencyRecorder recorder = toTelegram ? telegram : messenger;
+        HttpRequest request = newRequest(toTelegram);
+        if (record) {
+            sent.increment();
+        }
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (record) {
+                if (response.statusCode() >= 300) {
+                    recorder.recordError();
+                } else {
+                    recorder.record(System.nanoTime() - start);
+                }
+            }
+        } catch (IOException e) {
+            if (record) {
+                recorder.recordError();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private HttpRequest newRequest(boolean toTelegram) {
+        boolean withAttachment = ThreadLocalRandom.current().nextDouble() < settings.attachmentRatio();
+        return HttpRequest.newBuilder(toTelegram ? telegramUri : messengerUri)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(toTelegram
+                        ? payloads.telegram(withAttachment)
+                        : payloads.messenger(withAttachment)))
+                .build();
+    }
+
+    private void fire(long intendedNanos, boolean record) {
+        boolean toTelegram = ThreadLocalRandom.current().nextDouble() < settings.telegramShare();
+        LatencyRecorder recorder = toTelegram ? telegram : messenger;
+
+        HttpRequest request = newRequest(toTelegram);
+        if (record) {
+            sent.increment();
+        }
+
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    long latency = System.nanoTime() - intendedNanos;
+                    inFlight.release();
+                    if (!record) {
+                        return;
+                    }
+                    if (error != null || response.statusCode() >= 300) {
+                        recorder.recordError();
+                    } else {
+                        recorder.record(latency);
+                    }
+                });
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.chat_demo.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WebhookPayloads - Sinh payload webhook Telegram/Messenger với id tăng dần
+ * Khách hàng được chọn ngẫu nhiên trong một tập cố định để tạo cả conversation mới lẫn conversation đang mở.
+ */
+final class WebhookPayloads {
+
+    private static final long TELEGRAM_USER_BASE = 9_000_000_000L;
+    private static final String MESSENGER_PAGE_ID = "100000000000001";
+
+    private final ObjectMapper objectMapper;
+    private final PlatformStubServer stubs;
+    private final int customers;
+    private final AtomicLong sequence = new AtomicLong();
+
+    WebhookPayloads(ObjectMapper objectMapper, PlatformStubServer stubs, int customers) {
+        this.objectMapper = objectMapper;
+        this.stubs = stubs;
+        this.customers = customers;
+    }
+
+    String telegram(boolean withAttachment) {
+        long seq = sequence.incrementAndGet();
+        long userId = TELEGRAM_USER_BASE + ThreadLocalRandom.current().nextInt(customers);
+
+        Map<String, Object> from = new LinkedHashMap<>();
+        from.put("id", userId);
+        from.put("is_bot", false);
+        from.put("first_name", "Load");
+        from.put("last_name", "Tester " + userId);
+        from.put("username", "lt_" + userId);
+
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("message_id", seq);
+        message.put("from", from);
+        message.put("chat", Map.of("id", userId, "type", "private"));
+        message.put("date", System.currentTimeMillis() / 1000);
+        if (withAttachment) {
+            message.put("photo", List.of(Map.of(
+                    "file_id", "lt-photo-" + seq,
+                    "file_unique_id", "lt-u-" + seq,
+                    "file_size", 1024,
+                    "width", 1280,
+                    "height", 960)));
+            message.put("caption", "Ảnh load test #" + seq);
+        } else {
+            message.put("text", "Tin nhắn load test #" + seq);
+        }
+        return write(Map.of("update_id", seq, "message", message));
+    }
+
+    String messenger(boolean withAttachment) {
+        long seq = sequence.incrementAndGet();
+        String psid = "lt" + (1_000_000 + ThreadLocalRandom.current().nextInt(customers));
+        long now = System.currentTimeMillis();
+
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("mid", "m_lt_" + seq);
+        if (withAttachment) {
+            message.put("attachments", List.of(Map.of(
+                    "type", "image",
+                    "payload", Map.of("url", stubs.mediaUrl("lt-" + seq)))));
+        } else {
+            message.put("text", "Tin nhắn load test #" + seq);
+        }
+
+        Map<String, Object> messaging = Map.of(
+                "sender", Map.of("id", psid),
+                "recipient", Map.of("id", MESSENGER_PAGE_ID),
+                "timestamp", now,
+                "message", message);
+        Map<String, Object> entry = Map.of("id", MESSENGER_PAGE_ID, "time", now, "messaging", List.of(messaging));
+        return write(Map.of("object", "page", "entry", List.of(entry)));
+    }
+
+    private String write(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize webhook payload", e);
+        }
+    }
+}
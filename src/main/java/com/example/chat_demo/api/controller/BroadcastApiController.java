@@ -0,0 +1,81 @@
+package com.example.chat_demo.api.controller;
+
+import com.example.chat_demo.api.dto.BroadcastProgressDto;
+import com.example.chat_demo.api.dto.BroadcastRequest;
+import com.example.chat_demo.common.ChannelType;
+import com.example.chat_demo.core.model.BroadcastJob;
+import com.example.chat_demo.core.service.BroadcastService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * BroadcastApiController - API gửi thông báo hàng loạt cho Staff
+ */
+@Slf4j
+@RestController
+@Tag(name = "Broadcast API", description = "Gửi thông báo hàng loạt tới một segment conversations và theo dõi tiến độ.")
+@RequestMapping("/api/broadcasts")
+@CrossOrigin(origins = {"http://localhost:3000", "http://localhost:3001"})
+@RequiredArgsConstructor
+public class BroadcastApiController {
+
+    private final BroadcastService broadcastService;
+
+    @Operation(summary = "Tạo broadcast",
+              description = "Gửi nội dung tới các conversation theo segment (channel, status, last-active window). " +
+                      "Tiến độ realtime ở /topic/broadcasts/{jobId}.")
+    @PostMapping
+    public ResponseEntity<BroadcastProgressDto> startBroadcast(@RequestBody @Valid BroadcastRequest request) {
+        log.info("[API] POST /api/broadcasts channelType={} status={} lastActiveWithinHours={}",
+            request.getChannelType(), request.getStatus(), request.getLastActiveWithinHours());
+
+        ChannelType channelType = null;
+        if (request.getChannelType() != null && !request.getChannelType().isBlank()) {
+            try {
+                channelType = ChannelType.valueOf(request.getChannelType().trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid channel type: " + request.getChannelType() +
+                    ". Valid values: TELEGRAM, MESSENGER, DISCORD");
+            }
+        }
+        String status = request.getStatus() != null && !request.getStatus().isBlank()
+            ? request.getStatus().trim()
+            : null;
+
+        BroadcastJob job = broadcastService.startBroadcast(
+            request.getContent(), channelType, status, request.getLastActiveWithinHours());
+        return ResponseEntity.accepted().body(broadcastService.toProgress(job));
+    }
+
+    @Operation(summary = "Danh sách broadcast", description = "Tiến độ của các broadcast đang chạy và đã kết thúc gần đây (giữ tối đa omnichannel.broadcast.retention-minutes).")
+    @GetMapping
+    public ResponseEntity<List<BroadcastProgressDto>> getBroadcasts() {
+        return ResponseEntity.ok(broadcastService.getJobs().stream()
+            .map(broadcastService::toProgress)
+            .toList());
+    }
+
+    @Operation(summary = "Tiến độ broadcast", description = "Số recipients đã duyệt, đã gửi, lỗi và throughput.")
+    @GetMapping("/{jobId}")
+    public ResponseEntity<BroadcastProgressDto> getBroadcast(@PathVariable String jobId) {
+        BroadcastJob job = broadcastService.getJob(jobId)
+            .orElseThrow(() -> new RuntimeException("Broadcast not found: " + jobId));
+        return ResponseEntity.ok(broadcastService.toProgress(job));
+    }
+
+    @Operation(summary = "Huỷ broadcast", description = "Dừng broadcast sau batch hiện tại.")
+    @PostMapping("/{jobId}/cancel")
+    public ResponseEntity<BroadcastProgressDto> cancelBroadcast(@PathVariable String jobId) {
+        log.info("[API] POST /api/broadcasts/{}/cancel", jobId);
+        BroadcastJob job = broadcastService.cancel(jobId)
+            .orElseThrow(() -> new RuntimeException("Broadcast not found: " + jobId));
+        return ResponseEntity.ok(broadcastService.toProgress(job));
+    }
+}
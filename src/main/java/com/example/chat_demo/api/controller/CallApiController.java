@@ -1,25 +1,26 @@
 package com.example.chat_demo.api.controller;
 
 import com.example.chat_demo.api.dto.CallDto;
+import com.example.chat_demo.api.dto.CallStatsDto;
 import com.example.chat_demo.api.dto.InitiateCallResponse;
 import com.example.chat_demo.core.model.Call;
+import com.example.chat_demo.core.model.CallDailyStats;
 import com.example.chat_demo.core.model.Conversation;
 import com.example.chat_demo.core.model.User;
+import com.example.chat_demo.core.repository.CallDailyStatsRepository;
 import com.example.chat_demo.core.repository.ConversationRepository;
+import com.example.chat_demo.core.service.CallNotificationService;
 import com.example.chat_demo.core.service.CallService;
-import com.example.chat_demo.omnichannel.connector.ConnectorFactory;
-import com.example.chat_demo.omnichannel.connector.PlatformConnector;
-import com.example.chat_demo.omnichannel.connector.TelegramConnector;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -35,7 +36,8 @@ public class CallApiController {
     
     private final CallService callService;
     private final ConversationRepository conversationRepository;
-    private final ConnectorFactory connectorFactory;
+    private final CallNotificationService callNotificationService;
+    private final CallDailyStatsRepository callDailyStatsRepository;
     
     /**
      * Staff bấm "Gọi khách hàng" → Tạo call và gửi link qua Telegram
@@ -64,7 +66,7 @@ public class CallApiController {
         User user = conversation.getUser();
         
         // Gửi notification ASYNC (không block response) - Tối ưu tốc độ
-        sendCallNotificationAsync(call, user);
+        callNotificationService.sendCallNotificationAsync(call, user);
         
         // Build response ngay lập tức (không đợi notification)
         InitiateCallResponse response = new InitiateCallResponse();
@@ -80,40 +82,6 @@ public class CallApiController {
         return ResponseEntity.ok(response);
     }
     
-    /**
-     * Gửi notification async để không block response
-     * Tối ưu: Response trả về ngay, notification gửi ở background
-     */
-    @Async("callNotificationExecutor")
-    public CompletableFuture<Void> sendCallNotificationAsync(Call call, User user) {
-        try {
-            String recipientId = user.getPlatformUserId();
-            // Hiển thị link trong message (giống Google Meet) + button để mở tab mới
-            String messageText = "Bấm để tham gia cuộc gọi:\n" + call.getJitsiRoomUrl();
-            
-            PlatformConnector connector = connectorFactory.getConnector(user.getChannelType());
-            if (connector instanceof TelegramConnector) {
-                TelegramConnector telegramConnector = (TelegramConnector) connector;
-                telegramConnector.sendMessageWithButton(
-                    recipientId,
-                    messageText,
-                    "Join Call",
-                    call.getJitsiRoomUrl()
-                );
-                log.info("Sent call notification to Telegram user {} with room URL {}", recipientId, call.getJitsiRoomUrl());
-            } else {
-                // Platform khác: gửi text message với link
-                connector.sendMessage(recipientId, messageText);
-                log.info("Sent call notification to {} user {} with room URL {}", 
-                    user.getChannelType(), recipientId, call.getJitsiRoomUrl());
-            }
-            return CompletableFuture.completedFuture(null);
-        } catch (Exception e) {
-            log.error("Failed to send call notification for call {} to user {}", call.getId(), user.getId(), e);
-            return CompletableFuture.failedFuture(e);
-        }
-    }
-    
     /**
      * Lấy thông tin call
      */
@@ -251,6 +219,53 @@ public class CallApiController {
         return ResponseEntity.ok(dto);
     }
     
+    /**
+     * Thống kê call theo ngày/channel (precomputed, không scan bảng calls)
+     */
+    @Operation(summary = "Thống kê cuộc gọi", 
+              description = "Số call, tỷ lệ từ chối, thời gian trả lời và thời lượng trung bình theo ngày/channel")
+    @GetMapping("/calls/stats")
+    public ResponseEntity<List<CallStatsDto>> getCallStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String channelType) {
+        LocalDate toDate = to != null ? to : LocalDate.now();
+        LocalDate fromDate = from != null ? from : toDate.minusDays(30);
+        if (fromDate.isAfter(toDate)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        
+        List<CallDailyStats> stats = channelType != null && !channelType.isBlank()
+            ? callDailyStatsRepository.findByStatDateBetweenAndChannelTypeOrderByStatDateAsc(
+                fromDate, toDate, channelType.toUpperCase())
+            : callDailyStatsRepository.findByStatDateBetweenOrderByStatDateAscChannelTypeAsc(fromDate, toDate);
+        
+        return ResponseEntity.ok(stats.stream().map(this::toStatsDto).collect(Collectors.toList()));
+    }
+    
+    private CallStatsDto toStatsDto(CallDailyStats stats) {
+        CallStatsDto dto = new CallStatsDto();
+        dto.setDate(stats.getStatDate());
+        dto.setChannelType(stats.getChannelType());
+        dto.setCallsInitiated(stats.getCallsInitiated());
+        dto.setCallsAnswered(stats.getCallsAnswered());
+        dto.setCallsRejected(stats.getCallsRejected());
+        dto.setCallsMissed(stats.getCallsMissed());
+        dto.setCallsCompleted(stats.getCallsCompleted());
+        if (stats.getCallsAnswered() > 0) {
+            dto.setAvgRingToAnswerMs(stats.getTotalRingToAnswerMs() / stats.getCallsAnswered());
+        }
+        if (stats.getCallsCompleted() > 0) {
+            dto.setAvgDurationMs(stats.getTotalDurationMs() / stats.getCallsCompleted());
+        }
+        // Chỉ tính call đã có kết quả đổ chuông: call còn đang ring không làm tỷ lệ thấp đi
+        long resolved = stats.getCallsAnswered() + stats.getCallsRejected() + stats.getCallsMissed();
+        if (resolved > 0) {
+            dto.setRejectionRate((double) stats.getCallsRejected() / resolved);
+        }
+        return dto;
+    }
+    
     private CallDto toDto(Call call) {
         CallDto dto = new CallDto();
         dto.setId(call.getId());
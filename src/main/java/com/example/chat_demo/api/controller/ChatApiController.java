@@ -8,6 +8,7 @@ import com.example.chat_demo.core.model.User;
 import com.example.chat_demo.core.repository.ConversationRepository;
 import com.example.chat_demo.core.repository.MessageRepository;
 import com.example.chat_demo.core.bus.OmnichannelMessageBus;
+import com.example.chat_demo.core.realtime.InboxEventPublisher;
 import com.example.chat_demo.core.realtime.RealtimeMessagePublisher;
 import com.example.chat_demo.omnichannel.connector.ConnectorFactory;
 import com.example.chat_demo.omnichannel.connector.PlatformConnector;
@@ -53,6 +54,7 @@ public class ChatApiController {
     private final ConnectorFactory connectorFactory;
     private final MessageMapper messageMapper;
     private final RealtimeMessagePublisher realtimeMessagePublisher;
+    private final InboxEventPublisher inboxEventPublisher;
     private final MediaStorageService mediaStorageService;
     
     /**
@@ -118,7 +120,8 @@ public class ChatApiController {
     public ResponseEntity<MessageDto> sendMessage(
             @PathVariable Long id,
             @RequestBody @Valid SendMessageRequest request) {
-        log.info("[API] POST /api/conversations/{}/messages payload={}", id, request);
+        log.info("[API] POST /api/conversations/{}/messages", id);
+        log.debug("[API] POST /api/conversations/{}/messages payload={}", id, request);
         
         if (request.getContent() == null || request.getContent().trim().isEmpty()) {
             throw new IllegalArgumentException("Message content cannot be empty");
@@ -343,6 +346,9 @@ public class ChatApiController {
             message.setStatus(Message.MessageStatus.READ);
             messageRepository.save(message);
             realtimeMessagePublisher.publish(message);
+            if (message.getDirection() == Message.MessageDirection.INBOUND) {
+                inboxEventPublisher.publishRead(message.getConversation(), 1);
+            }
             log.info("Message {} marked as read", messageId);
         }
         
@@ -373,6 +379,7 @@ public class ChatApiController {
             }
         }
         
+        inboxEventPublisher.publishRead(conversation, count);
         log.info("Marked {} messages as read in conversation {}", count, id);
         
         return ResponseEntity.ok(Map.of(
@@ -403,6 +410,9 @@ public class ChatApiController {
         }
         
         conversationRepository.save(conversation);
+        if (!status.equals(oldStatus)) {
+            inboxEventPublisher.publishStatusChange(conversation, oldStatus);
+        }
         log.info("Updated conversation {} status from {} to {}", id, oldStatus, status);
         
         return ResponseEntity.ok(toConversationDto(conversation));
@@ -0,0 +1,20 @@
+package com.example.chat_demo.api.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * BroadcastProgressDto - Tiến độ broadcast (trả qua API và /topic/broadcasts/{jobId})
+ */
+@Data
+public class BroadcastProgressDto {
+    private String jobId;
+    private String status;              // RUNNING, COMPLETED, CANCELLED, FAILED
+    private long matched;               // Số conversation đã duyệt qua cursor
+    private long sent;
+    private long failed;
+    private double throughputPerSecond;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
@@ -0,0 +1,20 @@
+package com.example.chat_demo.api.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+/**
+ * BroadcastRequest - Nội dung và segment nhận broadcast
+ */
+@Data
+public class BroadcastRequest {
+    @NotBlank(message = "Content cannot be blank")
+    private String content;
+    
+    private String channelType;             // TELEGRAM, DISCORD, MESSENGER (null = tất cả)
+    private String status;                  // OPEN, PENDING, CLOSED (null = tất cả)
+    
+    @Positive(message = "lastActiveWithinHours must be positive")
+    private Integer lastActiveWithinHours;  // Chỉ gửi conversation hoạt động trong N giờ gần nhất
+}
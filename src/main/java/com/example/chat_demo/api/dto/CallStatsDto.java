@@ -0,0 +1,21 @@
+package com.example.chat_demo.api.dto;
+
+import lombok.Data;
+import java.time.LocalDate;
+
+/**
+ * CallStatsDto - Thống kê call theo ngày/channel (đọc từ call_daily_stats)
+ */
+@Data
+public class CallStatsDto {
+    private LocalDate date;
+    private String channelType;
+    private long callsInitiated;
+    private long callsAnswered;
+    private long callsRejected;
+    private long callsMissed;
+    private long callsCompleted;
+    private Long avgRingToAnswerMs;  // null nếu chưa có call được trả lời
+    private Long avgDurationMs;      // null nếu chưa có call hoàn thành
+    private Double rejectionRate;    // rejected / (answered + rejected + missed), null nếu chưa có call nào có kết quả
+}
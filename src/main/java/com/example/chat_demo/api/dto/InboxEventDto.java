@@ -0,0 +1,21 @@
+package com.example.chat_demo.api.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * InboxEventDto - Event tóm tắt conversation gửi qua /topic/inbox
+ * eventType: MESSAGE, READ, STATUS
+ * previousStatus: chỉ có ở event STATUS (trạng thái trước khi đổi)
+ */
+@Data
+public class InboxEventDto {
+    private String eventType;
+    private Long conversationId;
+    private String channelType;
+    private String status;
+    private String previousStatus;
+    private LocalDateTime lastMessageAt;
+    private int unreadDelta;
+    private String snippet;
+}
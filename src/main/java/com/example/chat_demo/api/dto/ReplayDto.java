@@ -0,0 +1,23 @@
+package com.example.chat_demo.api.dto;
+
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ReplayDto - Các frame bị lỡ của conversation, trả về khi client WebSocket reconnect
+ * source: BUFFER (frame từ ring buffer, có seq) hoặc DATABASE (message mới hơn lastMessageId, seq null)
+ */
+@Data
+public class ReplayDto {
+    private Long conversationId;
+    private String source;
+    private Long latestSeq;
+    private List<Frame> frames = new ArrayList<>();
+
+    @Data
+    public static class Frame {
+        private Long seq;
+        private MessageDto message;
+    }
+}
@@ -1,9 +1,11 @@
 package com.example.chat_demo.api.websocket;
 
 import com.example.chat_demo.core.model.Call;
+import com.example.chat_demo.core.service.CallRegistry;
 import com.example.chat_demo.core.service.CallService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -23,6 +25,10 @@ public class CallSignalingController {
     
     private final CallService callService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final CallRegistry callRegistry;
+    
+    @Value("${omnichannel.logging.payloads:false}")
+    private boolean logPayloads;
     
     /**
      * Staff/Customer join call → notify qua WebSocket
@@ -34,23 +40,20 @@ public class CallSignalingController {
         String roomId = payload.get("roomId");
         String userId = payload.get("userId");
         
-        log.info("[CALL WS] ===== JOIN CALL =====");
-        log.info("[CALL WS] User {} joined call room {}", userId, roomId);
-        log.info("[CALL WS] Payload: {}", payload);
+        if (logPayloads) {
+            log.debug("[CALL WS] Join payload: {}", payload);
+        }
         
         try {
             Call call = callService.findByRoomId(roomId);
-            log.info("[CALL WS] Call found - ID: {}, CurrentStatus: {}, RoomId: {}, ConversationId: {}", 
-                call.getId(), call.getStatus(), roomId, call.getConversation().getId());
             
             // Update status nếu cần
             if (call.getStatus() == Call.CallStatus.INITIATED || call.getStatus() == Call.CallStatus.RINGING) {
-                log.info("[CALL WS] Updating status from {} to ACTIVE", call.getStatus());
-                call = callService.updateCallStatus(call.getId(), Call.CallStatus.ACTIVE);
-                log.info("[CALL WS] Status updated - ID: {}, NewStatus: {}", call.getId(), call.getStatus());
+                call = callService.updateCallStatus(call, Call.CallStatus.ACTIVE);
             } else {
-                log.info("[CALL WS] Status is already {}, no update needed", call.getStatus());
+                log.debug("[CALL WS] Call {} is already {}, no update needed", call.getId(), call.getStatus());
             }
+            callRegistry.heartbeat(roomId);
             
             // Broadcast đến conversation
             Map<String, Object> response = new HashMap<>();
@@ -63,15 +66,27 @@ public class CallSignalingController {
             String destination = "/topic/conversations/" + call.getConversation().getId() + "/call";
             messagingTemplate.convertAndSend(destination, response);
             
-            log.info("[CALL WS] Broadcasted call_joined event to {} - CallId: {}, Status: ACTIVE", 
-                destination, call.getId());
-        log.info("[CALL WS] ===== JOIN CALL COMPLETE =====");
+            log.info("[CALL WS] User {} joined call {} (room {})", userId, call.getId(), roomId);
             
         } catch (Exception e) {
             log.error("[CALL WS] Error handling join call for room {}", roomId, e);
         }
     }
     
+    /**
+     * Heartbeat của client đang trong call (gửi định kỳ, ví dụ 30 giây)
+     * Thiếu heartbeat quá lâu thì CallLifecycleSweeper sẽ kết thúc call ACTIVE
+     * Destination: /app/call/heartbeat
+     * Payload: { "roomId": "support-call-123-456", "userId": "staff" }
+     */
+    @MessageMapping("/call/heartbeat")
+    public void handleHeartbeat(@Payload Map<String, String> payload) {
+        String roomId = payload.get("roomId");
+        if (!callRegistry.heartbeat(roomId)) {
+            log.debug("[CALL WS] Heartbeat for unknown or ended room {}", roomId);
+        }
+    }
+    
     /**
      * End call
      * Destination: /app/call/end
@@ -82,19 +97,13 @@ public class CallSignalingController {
         String roomId = payload.get("roomId");
         String userId = payload.get("userId");
         
-        log.info("[CALL WS] ===== END CALL =====");
-        log.info("[CALL WS] User {} ended call room {}", userId, roomId);
-        log.info("[CALL WS] Payload: {}", payload);
+        if (logPayloads) {
+            log.debug("[CALL WS] End payload: {}", payload);
+        }
         
         try {
             Call call = callService.findByRoomId(roomId);
-            log.info("[CALL WS] Call found - ID: {}, CurrentStatus: {}, RoomId: {}, ConversationId: {}", 
-                call.getId(), call.getStatus(), roomId, call.getConversation().getId());
-            
-            Call.CallStatus oldStatus = call.getStatus();
-            call = callService.updateCallStatus(call.getId(), Call.CallStatus.ENDED);
-            log.info("[CALL WS] Status updated - ID: {}, OldStatus: {}, NewStatus: ENDED", 
-                call.getId(), oldStatus);
+            call = callService.updateCallStatus(call, Call.CallStatus.ENDED);
             
             Map<String, Object> response = new HashMap<>();
             response.put("type", "call_ended");
@@ -105,9 +114,7 @@ public class CallSignalingController {
             String destination = "/topic/conversations/" + call.getConversation().getId() + "/call";
             messagingTemplate.convertAndSend(destination, response);
             
-            log.info("[CALL WS] Broadcasted call_ended event to {} - CallId: {}, Status: ENDED", 
-                destination, call.getId());
-        log.info("[CALL WS] ===== END CALL COMPLETE =====");
+            log.info("[CALL WS] User {} ended call {} (room {})", userId, call.getId(), roomId);
             
         } catch (Exception e) {
             log.error("[CALL WS] Error handling end call for room {}", roomId, e);
@@ -0,0 +1,59 @@
+package com.example.chat_demo.api.websocket;
+
+import com.example.chat_demo.core.realtime.PresenceService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Controller;
+
+import java.util.Map;
+
+/**
+ * PresenceController - WebSocket controller cho typing indicator và presence (ephemeral)
+ */
+@Slf4j
+@Controller
+@RequiredArgsConstructor
+public class PresenceController {
+
+    private final PresenceService presenceService;
+
+    /**
+     * Staff đang nhập
+     * Destination: /app/typing
+     * Payload: { "conversationId": 1, "userId": "staff", "typing": true }
+     */
+    @MessageMapping("/typing")
+    public void handleTyping(@Payload Map<String, Object> payload) {
+        Object conversationId = payload.get("conversationId");
+        Object userId = payload.get("userId");
+        if (conversationId == null || userId == null) {
+            log.debug("Ignoring typing frame without conversationId/userId");
+            return;
+        }
+
+        try {
+            boolean typing = !Boolean.FALSE.equals(payload.get("typing"));
+            presenceService.staffTyping(Long.valueOf(conversationId.toString()), userId.toString(), typing);
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring typing frame with invalid conversationId {}", conversationId);
+        }
+    }
+
+    /**
+     * Heartbeat presence của staff (gửi định kỳ, ví dụ 30 giây)
+     * Destination: /app/presence
+     * Payload: { "userId": "staff", "status": "ONLINE" }
+     */
+    @MessageMapping("/presence")
+    public void handlePresence(@Payload Map<String, Object> payload, SimpMessageHeaderAccessor headerAccessor) {
+        Object userId = payload.get("userId");
+        if (userId == null) {
+            return;
+        }
+        Object status = payload.getOrDefault("status", "ONLINE");
+        presenceService.heartbeat(userId.toString(), status.toString().toUpperCase(), headerAccessor.getSessionId());
+    }
+}
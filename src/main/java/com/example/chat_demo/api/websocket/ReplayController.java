@@ -0,0 +1,50 @@
+package com.example.chat_demo.api.websocket;
+
+import com.example.chat_demo.api.dto.ReplayDto;
+import com.example.chat_demo.core.realtime.ReplayService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+
+import java.util.Map;
+
+/**
+ * ReplayController - WebSocket controller cho resume sau khi reconnect
+ */
+@Slf4j
+@Controller
+@RequiredArgsConstructor
+public class ReplayController {
+
+    private final ReplayService replayService;
+
+    /**
+     * Client reconnect gửi seq cuối cùng đã nhận (header "seq" của frame) và message ID cuối cùng
+     * Destination: /app/conversations/{conversationId}/resume
+     * Payload: { "lastSeq": 1700000000000123, "lastMessageId": 456 }
+     * Kết quả gửi riêng cho session: subscribe /user/queue/replay
+     */
+    @MessageMapping("/conversations/{conversationId}/resume")
+    @SendToUser(destinations = "/queue/replay", broadcast = false)
+    public ReplayDto resume(@DestinationVariable Long conversationId, @Payload Map<String, Object> payload) {
+        Long lastSeq = toLong(payload.get("lastSeq"));
+        Long lastMessageId = toLong(payload.get("lastMessageId"));
+        log.debug("Resume conversation {} from seq {} / message {}", conversationId, lastSeq, lastMessageId);
+        return replayService.resume(conversationId, lastSeq, lastMessageId);
+    }
+
+    private Long toLong(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.chat_demo.common.health;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * CachedHealthIndicator - Health indicator có probe chạy nền, /actuator/health chỉ đọc kết quả đã cache
+ *
+ * - Probe chạy lại mỗi omnichannel.health.probe-interval-ms trên virtual thread riêng, không trên
+ *   thread của request health hay thread của @Scheduled
+ * - Probe quá omnichannel.health.probe-timeout-ms: DOWN (dependency treo thì request thật cũng treo);
+ *   probe đang treo thì lượt sau không chạy chồng thêm
+ * - Chưa probe lần nào: UNKNOWN
+ */
+@Slf4j
+public abstract class CachedHealthIndicator implements HealthIndicator {
+
+    private static final ExecutorService PROBE_EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("health-probe-", 0).factory());
+
+    private final String name;
+    private final Duration timeout;
+    private volatile Health cached = Health.unknown().withDetail("probe", "pending").build();
+    private volatile CompletableFuture<Health> running;
+
+    protected CachedHealthIndicator(String name, Duration timeout) {
+        this.name = name;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Kiểm tra thật (I/O được phép block); ném exception thì coi là DOWN
+     */
+    protected abstract Health probe() throws Exception;
+
+    @Override
+    public Health health() {
+        return cached;
+    }
+
+    @Scheduled(fixedDelayString = "${omnichannel.health.probe-interval-ms:10000}")
+    public void refresh() {
+        CompletableFuture<Health> previous = running;
+        if (previous != null && !previous.isDone()) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        CompletableFuture<Health> probe = CompletableFuture.supplyAsync(this::runProbe, PROBE_EXECUTOR);
+        running = probe;
+        // Timeout trên bản copy: probe treo vẫn được tính là đang chạy, không bị khởi động chồng
+        probe.copy()
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(e -> Health.down()
+                        .withDetail("error", e instanceof TimeoutException
+                                ? "probe timed out after " + timeout.toMillis() + "ms"
+                                : String.valueOf(e.getMessage()))
+                        .build())
+                .thenAccept(health -> update(health, startedAt));
+    }
+
+    private Health runProbe() {
+        try {
+            return probe();
+        } catch (Exception e) {
+            return Health.down().withDetail("error", String.valueOf(e.getMessage())).build();
+        }
+    }
+
+    private void update(Health health, long startedAt) {
+        Status previous = cached.getStatus();
+        cached = Health.status(health.getStatus())
+                .withDetails(health.getDetails())
+                .withDetail("checkedAt", Instant.now().toString())
+                .withDetail("probeMillis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt))
+                .build();
+        if (!previous.equals(health.getStatus()) && !Status.UNKNOWN.equals(previous)) {
+            log.warn("Health of {} changed {} -> {} {}", name, previous, health.getStatus(), health.getDetails());
+        }
+    }
+}
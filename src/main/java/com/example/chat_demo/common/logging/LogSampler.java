@@ -0,0 +1,51 @@
+package com.example.chat_demo.common.logging;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LogSampler - Lấy mẫu log INFO trên đường nóng theo category
+ *
+ * omnichannel.logging.sample-every.{category}=N: cứ N sự kiện thì một sự kiện được log ở INFO
+ * (1 = log tất cả, 0 = tắt). Chi tiết từng message vẫn có ở DEBUG.
+ * Chỉ là một phép tăng counter, không cấp phát nên gọi được trên mọi message.
+ */
+@Component
+public class LogSampler {
+
+    public enum Category {
+        WEBHOOK(100),
+        CONNECTOR(100);
+
+        private final long defaultEvery;
+
+        Category(long defaultEvery) {
+            this.defaultEvery = defaultEvery;
+        }
+    }
+
+    private final long[] every = new long[Category.values().length];
+    private final AtomicLong[] counters = new AtomicLong[Category.values().length];
+
+    public LogSampler(Environment environment) {
+        for (Category category : Category.values()) {
+            String key = "omnichannel.logging.sample-every." + category.name().toLowerCase(Locale.ROOT);
+            every[category.ordinal()] = environment.getProperty(key, Long.class, category.defaultEvery);
+            counters[category.ordinal()] = new AtomicLong();
+        }
+    }
+
+    /**
+     * @return true nếu sự kiện này nên được log ở INFO
+     */
+    public boolean sample(Category category) {
+        long n = every[category.ordinal()];
+        if (n <= 1) {
+            return n == 1;
+        }
+        return counters[category.ordinal()].getAndIncrement() % n == 0;
+    }
+}
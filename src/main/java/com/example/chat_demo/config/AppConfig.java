@@ -3,11 +3,16 @@ package com.example.chat_demo.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 
@@ -15,11 +20,25 @@ import java.util.concurrent.Executor;
 
 @Configuration
 @EnableAsync
+@EnableScheduling
 public class AppConfig {
     
+    /**
+     * Cùng cờ với Spring Boot (Tomcat handler, @Scheduled, applicationTaskExecutor đã tự chuyển sang virtual thread);
+     * các executor đặt tên bên dưới do app tự dựng nên phải chuyển theo ở đây
+     */
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+    
+    /**
+     * RestTemplate dựng qua RestTemplateBuilder để có observation http.client.requests (span + trace header)
+     * Giữ SimpleClientHttpRequestFactory như trước, không để builder tự chọn Reactor Netty trên classpath
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(RestTemplateBuilder builder) {
+        return builder
+            .requestFactory(SimpleClientHttpRequestFactory::new)
+            .build();
     }
     
     @Bean
@@ -37,13 +56,57 @@ public class AppConfig {
      */
     @Bean(name = "callNotificationExecutor")
     public Executor callNotificationExecutor() {
+        return executor("call-notification-", 2, 5, 100);
+    }
+    
+    /**
+     * Executor chạy các broadcast job (mỗi job một thread điều phối)
+     */
+    @Bean(name = "broadcastExecutor")
+    public Executor broadcastExecutor() {
+        return executor("broadcast-", 1, 2, 10);
+    }
+    
+    /**
+     * Executor fan-out gửi message của broadcast (blocking I/O, bị chặn bởi PlatformRateLimiter)
+     */
+    @Bean(name = "broadcastSendExecutor")
+    public Executor broadcastSendExecutor() {
+        return executor("broadcast-send-", 16, 16, 1000);
+    }
+    
+    /**
+     * Executor lấy profile Messenger ở background (không chạy trên webhook thread)
+     */
+    @Bean(name = "profileEnrichmentExecutor")
+    public Executor profileEnrichmentExecutor() {
+        return executor("profile-enrichment-", 2, 4, 500);
+    }
+
+    /**
+     * Executor relay typing indicator sang platform (ephemeral, queue nhỏ: đầy thì bỏ)
+     */
+    @Bean(name = "typingRelayExecutor")
+    public Executor typingRelayExecutor() {
+        return executor("typing-relay-", 2, 4, 200);
+    }
+
+    /**
+     * Pool platform thread như cũ, hoặc virtual thread mỗi task với cùng giới hạn max-pool-size/queue-capacity
+     * khi spring.threads.virtual.enabled=true (task vẫn bị từ chối khi vượt giới hạn)
+     */
+    private Executor executor(String threadNamePrefix, int corePoolSize, int maxPoolSize, int queueCapacity) {
+        if (virtualThreads) {
+            return new VirtualThreadTaskExecutor(threadNamePrefix, maxPoolSize, queueCapacity,
+                new ContextPropagatingTaskDecorator());
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(100);
-        executor.setThreadNamePrefix("call-notification-");
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
         executor.initialize();
         return executor;
     }
 }
-
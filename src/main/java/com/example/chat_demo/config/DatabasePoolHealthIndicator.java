@@ -0,0 +1,53 @@
+package com.example.chat_demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * DatabasePoolHealthIndicator - /actuator/health/dbPool (nhóm readiness)
+ *
+ * Đọc số liệu Hikari trong bộ nhớ (không I/O nên không cần cache). Quá
+ * omnichannel.health.db-pool.max-waiting thread đang chờ connection: OUT_OF_SERVICE, request mới
+ * tới node này chỉ xếp hàng chờ tới connection-timeout, để load balancer chuyển sang node khác.
+ */
+@Component("dbPoolHealthIndicator")
+public class DatabasePoolHealthIndicator implements HealthIndicator {
+
+    private final HikariDataSource hikariDataSource;
+    private final int maxWaiting;
+
+    public DatabasePoolHealthIndicator(DataSource dataSource,
+                                       @Value("${omnichannel.health.db-pool.max-waiting:10}") int maxWaiting) throws SQLException {
+        this.hikariDataSource = dataSource.isWrapperFor(HikariDataSource.class)
+                ? dataSource.unwrap(HikariDataSource.class)
+                : null;
+        this.maxWaiting = maxWaiting;
+    }
+
+    @Override
+    public Health health() {
+        if (hikariDataSource == null) {
+            return Health.unknown().withDetail("pool", "not a Hikari pool").build();
+        }
+        HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            return Health.unknown().withDetail("pool", "not started").build();
+        }
+        int waiting = pool.getThreadsAwaitingConnection();
+        Health.Builder builder = waiting > maxWaiting ? Health.outOfService() : Health.up();
+        return builder
+                .withDetail("active", pool.getActiveConnections())
+                .withDetail("idle", pool.getIdleConnections())
+                .withDetail("max", hikariDataSource.getMaximumPoolSize())
+                .withDetail("waiting", waiting)
+                .withDetail("maxWaiting", maxWaiting)
+                .build();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.chat_demo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+
+/**
+ * MetricsConfig - Expose /actuator/prometheus và gắn tag chung cho mọi meter
+ *
+ * Meter của pipeline: chat.pipeline.stage, chat.pipeline.webhooks (MessagePipelineMetrics),
+ * chat.connector.send (ConnectorMetrics), chat.realtime.frame.send (RealtimeFrameBuffer).
+ * Giá trị trong metrics-defaults.properties có độ ưu tiên thấp nhất, cấu hình local vẫn override được.
+ */
+@Configuration
+@PropertySource("classpath:config/metrics-defaults.properties")
+public class MetricsConfig {
+}
@@ -31,8 +31,6 @@ public class MultipartContentTypeFilter implements Filter {
         
         if (request instanceof HttpServletRequest httpRequest) {
             String contentType = httpRequest.getContentType();
-            log.info("MultipartContentTypeFilter contentType={}", contentType);
-            
             // Chỉ xử lý multipart/form-data có charset
             if (contentType != null && 
                 contentType.startsWith("multipart/form-data") &&
@@ -0,0 +1,87 @@
+package com.example.chat_demo.config;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.util.ClassUtils;
+
+import java.util.List;
+
+/**
+ * NativeHintsConfig - Reflection/resource hints cho GraalVM native image (./gradlew -Pnative nativeCompile)
+ *
+ * Registrar chạy lúc build (processAot) nên quét package được; ngoài lúc build không có tác dụng.
+ * - api.dto, core.model: DTO/entity Lombok được Jackson (REST, STOMP frame, Postgres fan-out) đọc/ghi qua getter/setter;
+ *   Spring chỉ tự đăng ký kiểu trong chữ ký @RequestBody/@ResponseBody, không thấy DTO gửi qua SimpMessagingTemplate
+ * - MinIO: io.minio.messages được simple-xml parse bằng reflection, simple-xml tạo label qua constructor
+ * - OkHttp (MinIO, JDA): danh sách public suffix đọc từ classpath
+ * - JDA: ListenerAdapter tìm handler onXxx bằng MethodHandles theo tên event
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeHintsConfig.ChatDemoRuntimeHints.class)
+public class NativeHintsConfig {
+
+    static class ChatDemoRuntimeHints implements RuntimeHintsRegistrar {
+
+        private static final List<String> BINDING_PACKAGES = List.of(
+            "com.example.chat_demo.api.dto",
+            "com.example.chat_demo.core.model"
+        );
+
+        private static final List<String> REFLECTIVE_PACKAGES = List.of(
+            "io.minio.messages",
+            "org.simpleframework.xml.core"
+        );
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+            for (String basePackage : BINDING_PACKAGES) {
+                for (Class<?> type : scan(basePackage, classLoader)) {
+                    bindingRegistrar.registerReflectionHints(hints.reflection(), type);
+                }
+            }
+
+            for (String basePackage : REFLECTIVE_PACKAGES) {
+                for (Class<?> type : scan(basePackage, classLoader)) {
+                    hints.reflection().registerType(type,
+                        MemberCategory.DECLARED_FIELDS,
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                        MemberCategory.INVOKE_DECLARED_METHODS);
+                }
+            }
+
+            hints.resources().registerPattern("okhttp3/internal/publicsuffix/*");
+
+            hints.reflection().registerType(TypeReference.of("net.dv8tion.jda.api.hooks.ListenerAdapter"),
+                MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+
+        /**
+         * Mọi class (kể cả nested static, enum) trong package, không chỉ Spring component
+         */
+        private static List<Class<?>> scan(String basePackage, ClassLoader classLoader) {
+            ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+                @Override
+                protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+                    return beanDefinition.getMetadata().isIndependent();
+                }
+            };
+            scanner.addIncludeFilter((metadataReader, metadataReaderFactory) -> true);
+            scanner.setResourceLoader(new DefaultResourceLoader(classLoader));
+            return scanner.findCandidateComponents(basePackage).stream()
+                .map(BeanDefinition::getBeanClassName)
+                .filter(name -> name != null && ClassUtils.isPresent(name, classLoader))
+                .<Class<?>>map(name -> ClassUtils.resolveClassName(name, classLoader))
+                .toList();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.chat_demo.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.type.MethodMetadata;
+
+/**
+ * StartupConfig - Cấu hình liên quan tới thời gian khởi động và health probe
+ *
+ * omnichannel.startup.lazy-dev-endpoints=true (profile fast-startup): bean của springdoc và các
+ * *TestController được đánh dấu lazy, chỉ tạo khi request đầu tiên tới /swagger-ui, /v3/api-docs, /test/*.
+ * Handler mapping vẫn đăng ký route theo kiểu bean nên không cần khởi tạo trước.
+ *
+ * spring.data.jpa.repositories.bootstrap-mode=deferred: EntityManagerFactory được dựng trên thread riêng.
+ * App có nhiều executor nên Boot không tự chọn được bootstrap executor, khai báo ở đây.
+ */
+@Slf4j
+@Configuration
+@PropertySource("classpath:config/startup-defaults.properties")
+public class StartupConfig {
+
+    private static final String SPRINGDOC_PACKAGE = "org.springdoc.";
+    private static final String TEST_CONTROLLER_SUFFIX = "TestController";
+
+    @Bean
+    public static BeanFactoryPostProcessor lazyDevEndpointsPostProcessor(Environment environment) {
+        boolean enabled = environment.getProperty("omnichannel.startup.lazy-dev-endpoints", Boolean.class, false);
+        return beanFactory -> {
+            if (!enabled) {
+                return;
+            }
+            int count = 0;
+            for (String beanName : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+                String source = sourceClassName(definition);
+                if (source != null && definition.getRole() == BeanDefinition.ROLE_APPLICATION
+                        && (source.startsWith(SPRINGDOC_PACKAGE) || source.endsWith(TEST_CONTROLLER_SUFFIX))) {
+                    definition.setLazyInit(true);
+                    count++;
+                }
+            }
+            log.info("Lazy initialization enabled for {} springdoc/test endpoint beans", count);
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.data.jpa.repositories.bootstrap-mode", havingValue = "deferred")
+    public EntityManagerFactoryBuilderCustomizer jpaBootstrapExecutorCustomizer() {
+        return builder -> builder.setBootstrapExecutor(new SimpleAsyncTaskExecutor("jpa-bootstrap-"));
+    }
+
+    /**
+     * Class khai báo bean: class của bean, hoặc class chứa @Bean method (bean của auto-configuration)
+     */
+    private static String sourceClassName(BeanDefinition definition) {
+        if (definition instanceof AnnotatedBeanDefinition annotated) {
+            MethodMetadata factoryMethod = annotated.getFactoryMethodMetadata();
+            if (factoryMethod != null) {
+                return factoryMethod.getDeclaringClassName();
+            }
+        }
+        return definition.getBeanClassName();
+    }
+}
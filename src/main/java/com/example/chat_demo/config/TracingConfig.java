@@ -0,0 +1,86 @@
+package com.example.chat_demo.config;
+
+import io.micrometer.common.KeyValue;
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.http.client.observation.ClientRequestObservationContext;
+import org.springframework.http.client.observation.ClientRequestObservationConvention;
+import org.springframework.http.client.observation.ClientRequestObservationDocumentation.HighCardinalityKeyNames;
+import org.springframework.http.client.observation.ClientRequestObservationDocumentation.LowCardinalityKeyNames;
+import org.springframework.http.client.observation.DefaultClientRequestObservationConvention;
+
+import java.util.regex.Pattern;
+
+/**
+ * TracingConfig - Tracing qua Micrometer Observation + OpenTelemetry bridge
+ *
+ * Span: request webhook (http.server.requests), chat.message.route, chat.user.resolve,
+ * chat.message.persist, chat.attachment.ingest, chat.storage.minio, chat.realtime.publish,
+ * chat.discord.event và mỗi call HTTP ra platform (http.client.requests của RestTemplate).
+ * Mặc định lấy mẫu 10% và không ghi span ra log; profile tracing-dev bật LoggingSpanExporter và lấy
+ * mọi trace để xem được trace khi chạy local không có collector. Production thêm exporter OTLP.
+ */
+@Configuration
+@PropertySource("classpath:config/tracing-defaults.properties")
+public class TracingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "tracing.exporter.logging.enabled", havingValue = "true")
+    public SpanExporter loggingSpanExporter() {
+        return LoggingSpanExporter.create();
+    }
+
+    /**
+     * URL gọi platform chứa bot token (Telegram) và access_token (Graph API) và ID người dùng:
+     * che token và gom ID để tag uri có cardinality thấp, http.url trong span không lộ secret
+     */
+    @Bean
+    public ClientRequestObservationConvention clientRequestObservationConvention() {
+        return new SanitizingClientRequestObservationConvention();
+    }
+
+    static class SanitizingClientRequestObservationConvention extends DefaultClientRequestObservationConvention {
+
+        private static final Pattern BOT_TOKEN = Pattern.compile("/bot[^/]+");
+        private static final Pattern FILE_PATH = Pattern.compile("(/file/bot\\{token})/.*");
+        private static final Pattern ID_SEGMENT = Pattern.compile("/[^/]*\\d{5,}[^/]*");
+        private static final Pattern SCHEME_HOST = Pattern.compile("^[a-z]+://[^/]+");
+
+        SanitizingClientRequestObservationConvention() {
+            super("http.client.requests");
+        }
+
+        @Override
+        protected KeyValue uri(ClientRequestObservationContext context) {
+            String template = context.getUriTemplate();
+            if (template == null) {
+                return super.uri(context);
+            }
+            return KeyValue.of(LowCardinalityKeyNames.URI, sanitizePath(SCHEME_HOST.matcher(stripQuery(template)).replaceFirst("")));
+        }
+
+        @Override
+        protected KeyValue requestUri(ClientRequestObservationContext context) {
+            if (context.getCarrier() == null) {
+                return super.requestUri(context);
+            }
+            String url = context.getCarrier().getURI().toString();
+            return KeyValue.of(HighCardinalityKeyNames.HTTP_URL, sanitizePath(stripQuery(url)));
+        }
+
+        static String sanitizePath(String path) {
+            String masked = BOT_TOKEN.matcher(path).replaceFirst("/bot{token}");
+            masked = FILE_PATH.matcher(masked).replaceFirst("$1/{file_path}");
+            return ID_SEGMENT.matcher(masked).replaceAll("/{id}");
+        }
+
+        private static String stripQuery(String url) {
+            int query = url.indexOf('?');
+            return query >= 0 ? url.substring(0, query) : url;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.chat_demo.config;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * VirtualThreadTaskExecutor - Mỗi task một virtual thread, giữ ngữ nghĩa max-pool-size/queue-capacity
+ * của ThreadPoolTaskExecutor mà nó thay thế khi spring.threads.virtual.enabled=true
+ *
+ * - concurrency: số task chạy đồng thời tối đa (giữ nguyên giới hạn tải lên platform API/DB)
+ * - queueCapacity: số task được chờ thêm; task chờ là virtual thread park, không chiếm platform thread
+ * - vượt concurrency + queueCapacity thì ném TaskRejectedException như pool cũ khi queue đầy
+ */
+public class VirtualThreadTaskExecutor implements TaskExecutor {
+
+    private final ThreadFactory threadFactory;
+    private final Semaphore admitted;
+    private final Semaphore running;
+    private final int concurrency;
+    private final int capacity;
+    private final TaskDecorator taskDecorator;
+
+    public VirtualThreadTaskExecutor(String threadNamePrefix, int concurrency, int queueCapacity,
+                                     TaskDecorator taskDecorator) {
+        if (concurrency <= 0 || queueCapacity < 0) {
+            throw new IllegalArgumentException("concurrency must be > 0 and queueCapacity >= 0");
+        }
+        this.threadFactory = Thread.ofVirtual().name(threadNamePrefix, 0).factory();
+        this.concurrency = concurrency;
+        this.capacity = concurrency + queueCapacity;
+        this.admitted = new Semaphore(capacity);
+        this.running = new Semaphore(concurrency);
+        this.taskDecorator = taskDecorator;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!admitted.tryAcquire()) {
+            throw new TaskRejectedException("Executor " + this + " did not accept task: limit "
+                + capacity + " reached");
+        }
+        Runnable decorated = taskDecorator != null ? taskDecorator.decorate(task) : task;
+        try {
+            threadFactory.newThread(() -> runAdmitted(decorated)).start();
+        } catch (RuntimeException | Error e) {
+            admitted.release();
+            throw e;
+        }
+    }
+
+    private void runAdmitted(Runnable task) {
+        try {
+            running.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted.release();
+            return;
+        }
+        try {
+            task.run();
+        } finally {
+            running.release();
+            admitted.release();
+        }
+    }
+
+    /**
+     * Số task đã nhận nhưng đang chờ tới lượt chạy (tương đương queue size của pool)
+     */
+    public int getQueueSize() {
+        int inFlight = capacity - admitted.availablePermits();
+        int active = concurrency - running.availablePermits();
+        return Math.max(0, inFlight - active);
+    }
+}
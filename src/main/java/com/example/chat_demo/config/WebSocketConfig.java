@@ -1,18 +1,103 @@
 package com.example.chat_demo.config;
 
+import com.example.chat_demo.core.realtime.PostgresBrokerFanout;
+import com.example.chat_demo.core.realtime.RealtimeSubscriptionInterceptor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 /**
- * WebSocketConfig - cấu hình STOMP endpoints và simple broker cho realtime chat
+ * WebSocketConfig - cấu hình STOMP endpoints và message broker cho realtime chat
+ *
+ * realtime.broker.mode:
+ * - simple (mặc định): simple broker in-memory, chỉ chạy được một node
+ * - relay: chuyển tiếp tới STOMP broker ngoài (RabbitMQ/ActiveMQ) cho nhiều node
+ * - postgres: simple broker + fan-out giữa các node qua Postgres LISTEN/NOTIFY
+ *
+ * Transport giới hạn send buffer/send time cho từng session: client chậm (dashboard treo)
+ * bị ngắt thay vì giữ thread của outbound executor và làm trễ các client khác.
+ *
+ * spring.threads.virtual.enabled=true: inbound/outbound channel chạy mỗi message một virtual thread,
+ * giới hạn bởi realtime.transport.*.virtual-concurrency thay cho core/max pool size.
  */
+@Slf4j
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final ObjectProvider<PostgresBrokerFanout> postgresBrokerFanout;
+    private final WebSocketTransportMetrics transportMetrics;
+    private final RealtimeSubscriptionInterceptor subscriptionInterceptor;
+
+    @Value("${realtime.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${realtime.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${realtime.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${realtime.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${realtime.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${realtime.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
+    @Value("${realtime.transport.send-buffer-size-kb:512}")
+    private int sendBufferSizeKb;
+
+    @Value("${realtime.transport.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${realtime.transport.message-size-limit-kb:64}")
+    private int messageSizeLimitKb;
+
+    @Value("${realtime.transport.inbound.core-pool-size:4}")
+    private int inboundCorePoolSize;
+
+    @Value("${realtime.transport.inbound.max-pool-size:8}")
+    private int inboundMaxPoolSize;
+
+    @Value("${realtime.transport.inbound.queue-capacity:1000}")
+    private int inboundQueueCapacity;
+
+    @Value("${realtime.transport.outbound.core-pool-size:8}")
+    private int outboundCorePoolSize;
+
+    @Value("${realtime.transport.outbound.max-pool-size:16}")
+    private int outboundMaxPoolSize;
+
+    @Value("${realtime.transport.outbound.queue-capacity:5000}")
+    private int outboundQueueCapacity;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${realtime.transport.inbound.virtual-concurrency:256}")
+    private int inboundVirtualConcurrency;
+
+    @Value("${realtime.transport.outbound.virtual-concurrency:1024}")
+    private int outboundVirtualConcurrency;
+
+    public WebSocketConfig(ObjectProvider<PostgresBrokerFanout> postgresBrokerFanout,
+                           WebSocketTransportMetrics transportMetrics,
+                           RealtimeSubscriptionInterceptor subscriptionInterceptor) {
+        this.postgresBrokerFanout = postgresBrokerFanout;
+        this.transportMetrics = transportMetrics;
+        this.subscriptionInterceptor = subscriptionInterceptor;
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // Endpoint WebSocket thuần (dùng cho Postman/clients hỗ trợ STOMP chuẩn)
@@ -27,8 +112,67 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/topic", "/queue");
+        switch (brokerMode.trim().toLowerCase()) {
+            case "relay" -> {
+                var relay = registry.enableStompBrokerRelay("/topic", "/queue")
+                        .setRelayHost(relayHost)
+                        .setRelayPort(relayPort)
+                        .setClientLogin(relayLogin)
+                        .setClientPasscode(relayPasscode)
+                        .setSystemLogin(relayLogin)
+                        .setSystemPasscode(relayPasscode);
+                if (!relayVirtualHost.isBlank()) {
+                    relay.setVirtualHost(relayVirtualHost);
+                }
+                log.info("STOMP broker relay enabled: {}:{}", relayHost, relayPort);
+            }
+            case "postgres" -> {
+                registry.enableSimpleBroker("/topic", "/queue");
+                PostgresBrokerFanout fanout = postgresBrokerFanout.getIfAvailable();
+                if (fanout != null) {
+                    registry.configureBrokerChannel().interceptors(fanout);
+                }
+                log.info("Simple broker with Postgres LISTEN/NOTIFY fan-out enabled");
+            }
+            default -> registry.enableSimpleBroker("/topic", "/queue");
+        }
         registry.setApplicationDestinationPrefixes("/app");
     }
-}
 
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendBufferSizeLimit(sendBufferSizeKb * 1024)
+                .setSendTimeLimit(sendTimeLimitMs)
+                .setMessageSizeLimit(messageSizeLimitKb * 1024)
+                .addDecoratorFactory(transportMetrics);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        if (virtualThreads) {
+            registration.executor(new VirtualThreadTaskExecutor("clientInboundChannel-",
+                    inboundVirtualConcurrency, inboundQueueCapacity, null));
+        } else {
+            registration.taskExecutor()
+                    .corePoolSize(inboundCorePoolSize)
+                    .maxPoolSize(inboundMaxPoolSize)
+                    .queueCapacity(inboundQueueCapacity);
+        }
+        registration.interceptors(subscriptionInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        if (virtualThreads) {
+            // Client chậm giữ một virtual thread tới send-time-limit, không chặn platform thread của client khác
+            registration.executor(new VirtualThreadTaskExecutor("clientOutboundChannel-",
+                    outboundVirtualConcurrency, outboundQueueCapacity, null));
+        } else {
+            registration.taskExecutor()
+                    .corePoolSize(outboundCorePoolSize)
+                    .maxPoolSize(outboundMaxPoolSize)
+                    .queueCapacity(outboundQueueCapacity);
+        }
+        registration.interceptors(transportMetrics);
+    }
+}
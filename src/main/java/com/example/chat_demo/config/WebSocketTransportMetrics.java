@@ -0,0 +1,105 @@
+package com.example.chat_demo.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WebSocketTransportMetrics - Metrics cho tầng WebSocket transport
+ *
+ * - chat.websocket.sessions: số session đang mở
+ * - chat.websocket.outbound.queue / inbound.queue: số frame đang chờ trong executor
+ * - chat.websocket.slow_consumer.disconnects: session bị đóng vì vượt send buffer/time limit
+ * - chat.websocket.frames.dropped: frame không đưa được vào client outbound channel
+ */
+@Slf4j
+@Component
+public class WebSocketTransportMetrics implements WebSocketHandlerDecoratorFactory, ChannelInterceptor {
+
+    private final AtomicInteger openSessions = new AtomicInteger();
+    // Micrometer chỉ giữ weak reference tới state của gauge: giữ provider ở field để gauge không thành NaN sau GC
+    private final ObjectProvider<Executor> inboundExecutor;
+    private final ObjectProvider<Executor> outboundExecutor;
+    private final Counter slowConsumerDisconnects;
+    private final Counter droppedFrames;
+
+    public WebSocketTransportMetrics(MeterRegistry meterRegistry,
+                                     @Qualifier("clientInboundChannelExecutor") ObjectProvider<Executor> inboundExecutor,
+                                     @Qualifier("clientOutboundChannelExecutor") ObjectProvider<Executor> outboundExecutor) {
+        this.inboundExecutor = inboundExecutor;
+        this.outboundExecutor = outboundExecutor;
+        Gauge.builder("chat.websocket.sessions", openSessions, AtomicInteger::get)
+                .description("Open WebSocket sessions")
+                .register(meterRegistry);
+        Gauge.builder("chat.websocket.inbound.queue", inboundExecutor, WebSocketTransportMetrics::queueSize)
+                .description("Frames waiting in the client inbound channel executor")
+                .register(meterRegistry);
+        Gauge.builder("chat.websocket.outbound.queue", outboundExecutor, WebSocketTransportMetrics::queueSize)
+                .description("Frames waiting in the client outbound channel executor")
+                .register(meterRegistry);
+        this.slowConsumerDisconnects = Counter.builder("chat.websocket.slow_consumer.disconnects")
+                .description("Sessions closed because send buffer or send time limit was exceeded")
+                .register(meterRegistry);
+        this.droppedFrames = Counter.builder("chat.websocket.frames.dropped")
+                .description("Frames rejected by the client outbound channel")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                openSessions.incrementAndGet();
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                openSessions.decrementAndGet();
+                if (CloseStatus.SESSION_NOT_RELIABLE.equalsCode(closeStatus)) {
+                    slowConsumerDisconnects.increment();
+                    log.warn("WebSocket session {} closed as slow consumer", session.getId());
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        if (!sent || ex != null) {
+            droppedFrames.increment();
+        }
+    }
+
+    /**
+     * Số task đang chờ trong executor của STOMP channel (pool hoặc virtual thread), 0 nếu chưa khởi tạo
+     */
+    public static int queueSize(ObjectProvider<Executor> executor) {
+        Executor taskExecutor = executor.getIfAvailable();
+        if (taskExecutor instanceof VirtualThreadTaskExecutor virtualExecutor) {
+            return virtualExecutor.getQueueSize();
+        }
+        if (!(taskExecutor instanceof ThreadPoolTaskExecutor poolExecutor) || poolExecutor.getThreadPoolExecutor() == null) {
+            return 0;
+        }
+        return poolExecutor.getThreadPoolExecutor().getQueue().size();
+    }
+}
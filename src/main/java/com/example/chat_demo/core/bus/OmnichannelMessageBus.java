@@ -1,20 +1,26 @@
 package com.example.chat_demo.core.bus;
 
-import com.example.chat_demo.common.ChannelType;
 import com.example.chat_demo.core.model.Conversation;
 import com.example.chat_demo.core.model.Message;
 import com.example.chat_demo.core.model.UnifiedMessage;
 import com.example.chat_demo.core.model.User;
+import com.example.chat_demo.core.repository.ConversationRepository;
 import com.example.chat_demo.core.repository.MessageRepository;
+import com.example.chat_demo.core.realtime.ConversationRecipientCache;
+import com.example.chat_demo.core.realtime.InboxEventPublisher;
 import com.example.chat_demo.core.realtime.RealtimeMessagePublisher;
+import com.example.chat_demo.core.service.AttachmentIngestService;
 import com.example.chat_demo.core.service.ConversationStateService;
-import com.example.chat_demo.core.service.TelegramFileService;
+import com.example.chat_demo.core.service.MessagePipelineMetrics;
+import com.example.chat_demo.core.service.MessagePipelineMetrics.Stage;
+import io.micrometer.observation.annotation.Observed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * OmnichannelMessageBus - Lưu messages vào DB
@@ -25,9 +31,13 @@ import java.time.LocalDateTime;
 public class OmnichannelMessageBus {
     
     private final MessageRepository messageRepository;
+    private final ConversationRepository conversationRepository;
     private final ConversationStateService conversationStateService;
     private final RealtimeMessagePublisher realtimeMessagePublisher;
-    private final TelegramFileService telegramFileService;
+    private final InboxEventPublisher inboxEventPublisher;
+    private final ConversationRecipientCache recipientCache;
+    private final AttachmentIngestService attachmentIngestService;
+    private final MessagePipelineMetrics pipelineMetrics;
     
     /**
      * Lưu inbound message vào DB
@@ -35,8 +45,12 @@ public class OmnichannelMessageBus {
      * @param user User entity
      * @return Message entity đã lưu
      */
+    @Observed(name = "chat.message.persist", contextualName = "persist inbound message")
     @Transactional
     public Message saveInboundMessage(UnifiedMessage unifiedMessage, User user) {
+        long dbStart = System.nanoTime();
+        long attachmentNanos = 0;
+        
         // Lấy hoặc tạo conversation
         Conversation conversation = conversationStateService.getOrCreateActiveConversation(user);
         log.debug("Inbound message will use conversation {}", conversation.getId());
@@ -66,17 +80,16 @@ public class OmnichannelMessageBus {
             // Lưu message tạm để có ID
             savedMessage = messageRepository.save(message);
             
-            // Download và upload file lên MinIO
-            String minioObjectKey = null;
-            if (unifiedMessage.getChannelType() == ChannelType.TELEGRAM) {
-                minioObjectKey = telegramFileService.downloadAndUpload(
-                    unifiedMessage.getAttachmentUrl(), // Telegram file_id
-                    conversation.getId(),
-                    savedMessage.getId(),
-                    unifiedMessage.getAttachmentFilename(),
-                    getContentTypeFromAttachmentType(unifiedMessage.getAttachmentType())
-                );
-            }
+            // Stream file từ platform lên MinIO (Telegram file_id, Discord CDN URL, ...)
+            long attachmentStart = System.nanoTime();
+            String minioObjectKey = attachmentIngestService.ingest(
+                unifiedMessage,
+                conversation.getId(),
+                savedMessage.getId(),
+                getContentTypeFromAttachmentType(unifiedMessage.getAttachmentType())
+            );
+            attachmentNanos = System.nanoTime() - attachmentStart;
+            pipelineMetrics.recordStageDuration(Stage.ATTACHMENT, user.getChannelType(), attachmentNanos);
             
             // Cập nhật message với MinIO object key
             if (minioObjectKey != null) {
@@ -84,7 +97,7 @@ public class OmnichannelMessageBus {
                 savedMessage.setAttachmentType(unifiedMessage.getAttachmentType());
                 savedMessage.setAttachmentFilename(unifiedMessage.getAttachmentFilename());
                 savedMessage.setAttachmentSize(unifiedMessage.getAttachmentSize());
-                log.info("Attachment uploaded to MinIO: {}", minioObjectKey);
+                log.debug("Attachment uploaded to MinIO: {}", minioObjectKey);
                 // Save lại để cập nhật attachment info
                 savedMessage = messageRepository.save(savedMessage);
             } else {
@@ -94,16 +107,19 @@ public class OmnichannelMessageBus {
             // Không có attachment, lưu message bình thường
             savedMessage = messageRepository.save(message);
         }
-        log.info("Inbound message saved with id {}", savedMessage.getId());
         
         // Cập nhật conversation
         conversation.setLastMessageAt(LocalDateTime.now());
         conversationStateService.updateConversation(conversation);
+        recipientCache.remember(conversation);
         
         log.debug("Saved inbound message: {} for user: {}", 
             savedMessage.getId(), user.getPlatformUserId());
+        // db_save tính tới lúc commit xong, publish đo trong callback after-commit của RealtimeMessagePublisher
+        pipelineMetrics.recordUntilCommit(user.getChannelType(), dbStart, attachmentNanos);
 
-        realtimeMessagePublisher.publish(savedMessage);
+        realtimeMessagePublisher.publish(savedMessage, user.getChannelType());
+        inboxEventPublisher.publishMessage(savedMessage);
         
         return savedMessage;
     }
@@ -111,6 +127,7 @@ public class OmnichannelMessageBus {
     /**
      * Lưu outbound message vào DB
      */
+    @Observed(name = "chat.message.persist", contextualName = "persist outbound message")
     @Transactional
     public Message saveOutboundMessage(String content, User user, Conversation conversation) {
         Message message = new Message();
@@ -123,16 +140,45 @@ public class OmnichannelMessageBus {
         message.setStatus(Message.MessageStatus.PENDING);
         
         Message savedMessage = messageRepository.save(message);
-        log.info("Outbound message saved with id {} for conversation {}", savedMessage.getId(), conversation.getId());
+        log.debug("Outbound message saved with id {} for conversation {}", savedMessage.getId(), conversation.getId());
         
         // Cập nhật conversation
         conversation.setLastMessageAt(LocalDateTime.now());
         conversationStateService.updateConversation(conversation);
+        recipientCache.remember(conversation);
         realtimeMessagePublisher.publish(savedMessage);
+        inboxEventPublisher.publishMessage(savedMessage);
         
         return savedMessage;
     }
     
+    /**
+     * Lưu cả batch outbound message của broadcast trong một transaction
+     * (saveAll + một câu UPDATE lastMessageAt cho các conversation liên quan)
+     */
+    @Transactional
+    public List<Message> saveBroadcastBatch(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return messages;
+        }
+        List<Message> savedMessages = messageRepository.saveAll(messages);
+        
+        List<Long> conversationIds = savedMessages.stream()
+            .map(message -> message.getConversation().getId())
+            .distinct()
+            .toList();
+        LocalDateTime now = LocalDateTime.now();
+        conversationRepository.touchLastMessageAt(conversationIds, now);
+        log.debug("Saved broadcast batch of {} messages", savedMessages.size());
+        
+        savedMessages.forEach(message -> {
+            message.getConversation().setLastMessageAt(now);
+            realtimeMessagePublisher.publish(message);
+            inboxEventPublisher.publishMessage(message);
+        });
+        return savedMessages;
+    }
+    
     /**
      * Map attachment type sang content type
      */
@@ -0,0 +1,80 @@
+package com.example.chat_demo.core.model;
+
+import com.example.chat_demo.common.ChannelType;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BroadcastJob - Trạng thái của một lần gửi hàng loạt (giữ trong memory)
+ */
+@Getter
+public class BroadcastJob {
+
+    public enum BroadcastStatus {
+        RUNNING,
+        COMPLETED,
+        CANCELLED,
+        FAILED
+    }
+
+    private final String id;
+    private final String content;
+    private final Set<ChannelType> channelTypes;
+    private final Set<String> conversationStatuses;
+    private final LocalDateTime activeSince;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final long startedNanos = System.nanoTime();
+
+    private final AtomicLong matched = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @Setter
+    private volatile BroadcastStatus status = BroadcastStatus.RUNNING;
+    @Setter
+    private volatile LocalDateTime finishedAt;
+    @Setter
+    private volatile String error;
+    private volatile boolean cancelRequested;
+    private volatile long finishedNanos;
+
+    public BroadcastJob(String id, String content, Set<ChannelType> channelTypes,
+                        Set<String> conversationStatuses, LocalDateTime activeSince) {
+        this.id = id;
+        this.content = content;
+        this.channelTypes = channelTypes;
+        this.conversationStatuses = conversationStatuses;
+        this.activeSince = activeSince;
+    }
+
+    public void requestCancel() {
+        this.cancelRequested = true;
+    }
+
+    public void finish(BroadcastStatus finalStatus) {
+        this.finishedNanos = System.nanoTime();
+        this.finishedAt = LocalDateTime.now();
+        this.status = finalStatus;
+    }
+
+    public boolean isRunning() {
+        return status == BroadcastStatus.RUNNING;
+    }
+
+    /**
+     * Throughput (message/giây) tính trên số message đã xử lý (sent + failed)
+     */
+    public double getThroughputPerSecond() {
+        long end = finishedNanos > 0 ? finishedNanos : System.nanoTime();
+        double seconds = Duration.ofNanos(end - startedNanos).toMillis() / 1000d;
+        if (seconds <= 0) {
+            return 0;
+        }
+        return (sent.get() + failed.get()) / seconds;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.chat_demo.core.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+
+/**
+ * CallDailyStats - Thống kê call theo ngày và channel, cộng dồn mỗi khi call đổi trạng thái
+ * (báo cáo đọc bảng này thay vì scan bảng calls). Sự kiện của một call luôn được ghi vào ngày initiatedAt của call.
+ */
+@Entity
+@Table(name = "call_daily_stats",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"stat_date", "channel_type"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CallDailyStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+    
+    @Column(name = "channel_type", nullable = false, length = 20)
+    private String channelType;
+    
+    @Column(name = "calls_initiated", nullable = false)
+    private long callsInitiated;
+    
+    @Column(name = "calls_answered", nullable = false)
+    private long callsAnswered;
+    
+    @Column(name = "calls_rejected", nullable = false)
+    private long callsRejected;
+    
+    @Column(name = "calls_missed", nullable = false)
+    private long callsMissed;
+    
+    @Column(name = "calls_completed", nullable = false)
+    private long callsCompleted;
+    
+    @Column(name = "total_ring_to_answer_ms", nullable = false)
+    private long totalRingToAnswerMs;
+    
+    @Column(name = "total_duration_ms", nullable = false)
+    private long totalDurationMs;
+}
@@ -36,6 +36,7 @@ public class UnifiedMessage {
     private String attachmentType;  // image, video, document, etc.
     private String attachmentFilename;
     private Long attachmentSize;
+    private String attachmentContentType;  // MIME type từ platform (nếu có)
     
     // Raw data từ platform (để debug)
     private Object rawData;
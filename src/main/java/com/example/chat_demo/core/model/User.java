@@ -34,6 +34,10 @@ public class User {
     @Column(name = "first_contact_at")
     private LocalDateTime firstContactAt;
     
+    // Lần cuối lấy profile từ platform (Messenger Graph API), dùng cho TTL của profile cache
+    @Column(name = "profile_fetched_at")
+    private LocalDateTime profileFetchedAt;
+    
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     
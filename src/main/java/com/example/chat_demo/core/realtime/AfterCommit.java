@@ -0,0 +1,46 @@
+package com.example.chat_demo.core.realtime;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * AfterCommit - Chạy action sau khi transaction hiện tại commit
+ *
+ * Nếu không có transaction đang hoạt động thì chạy ngay. Nếu transaction rollback,
+ * action bị bỏ qua (client không nhận frame của dữ liệu không tồn tại).
+ * Action chạy trong afterCommit không được gọi lại AfterCommit.run: synchronization đăng ký lúc đó
+ * không bao giờ được gọi.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    public static void run(Runnable action) {
+        run(action, null);
+    }
+
+    /**
+     * Như run(action), thêm onRollback chạy khi transaction rollback (ví dụ trả lại state trong memory
+     * đã sửa trước khi commit). Không có transaction thì chỉ chạy action.
+     */
+    public static void run(Runnable action, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK && onRollback != null) {
+                    onRollback.run();
+                }
+            }
+        });
+    }
+}
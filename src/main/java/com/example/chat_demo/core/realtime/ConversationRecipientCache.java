@@ -0,0 +1,72 @@
+package com.example.chat_demo.core.realtime;
+
+import com.example.chat_demo.common.ChannelType;
+import com.example.chat_demo.core.model.Conversation;
+import com.example.chat_demo.core.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * ConversationRecipientCache - Map conversation → recipient trên platform, giữ trong memory
+ *
+ * Được cập nhật mỗi khi bus lưu message, để các tính năng ephemeral (typing relay)
+ * tìm được recipient mà không cần đọc DB. LRU giới hạn theo realtime.recipient-cache.max-size.
+ */
+@Component
+public class ConversationRecipientCache {
+
+    public record Recipient(ChannelType channelType, String recipientId) {
+    }
+
+    private final Map<Long, Recipient> recipients;
+    private final Map<String, Long> discordChannels;
+
+    public ConversationRecipientCache(@Value("${realtime.recipient-cache.max-size:50000}") int maxSize) {
+        this.recipients = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Recipient> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.discordChannels = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public void remember(Conversation conversation) {
+        User user = conversation.getUser();
+        if (conversation.getId() == null || user == null || user.getChannelType() == null) {
+            return;
+        }
+
+        // Discord gửi theo channel ID, các platform khác theo platform user ID
+        String recipientId = user.getChannelType() == ChannelType.DISCORD
+                ? conversation.getChannelId()
+                : user.getPlatformUserId();
+        if (recipientId == null || recipientId.isBlank()) {
+            return;
+        }
+
+        synchronized (this) {
+            recipients.put(conversation.getId(), new Recipient(user.getChannelType(), recipientId));
+            if (user.getChannelType() == ChannelType.DISCORD) {
+                discordChannels.put(recipientId, conversation.getId());
+            }
+        }
+    }
+
+    public synchronized Optional<Recipient> getRecipient(Long conversationId) {
+        return Optional.ofNullable(recipients.get(conversationId));
+    }
+
+    public synchronized Optional<Long> findConversationByDiscordChannel(String channelId) {
+        return Optional.ofNullable(discordChannels.get(channelId));
+    }
+}
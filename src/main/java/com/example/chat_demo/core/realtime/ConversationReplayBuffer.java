@@ -0,0 +1,107 @@
+package com.example.chat_demo.core.realtime;
+
+import com.example.chat_demo.api.dto.MessageDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ConversationReplayBuffer - Ring buffer các frame realtime gần nhất của mỗi conversation
+ *
+ * Mỗi frame gửi tới /topic/conversations/{id} được gắn sequence tăng dần (native header "seq").
+ * Client reconnect gửi seq cuối cùng đã nhận để lấy lại các frame bị lỡ; nếu buffer đã bị
+ * ghi đè (hoặc server restart) thì ReplayService fallback về DB.
+ */
+@Component
+public class ConversationReplayBuffer {
+
+    public static final String SEQ_HEADER = "seq";
+
+    public record ReplayEntry(long seq, MessageDto message) {
+    }
+
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final Map<Long, Ring> rings;
+    private final int capacity;
+
+    public ConversationReplayBuffer(@Value("${realtime.replay.capacity-per-conversation:200}") int capacity,
+                                    @Value("${realtime.replay.max-conversations:5000}") int maxConversations) {
+        this.capacity = capacity;
+        this.rings = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Ring> eldest) {
+                return size() > maxConversations;
+            }
+        };
+    }
+
+    /**
+     * Ghi frame vào ring của conversation và trả về frame kèm header seq để gửi đi
+     */
+    public RealtimeFrameBuffer.OutboundFrame record(Long conversationId, MessageDto message) {
+        Ring ring;
+        synchronized (rings) {
+            ring = rings.computeIfAbsent(conversationId, id -> new Ring(sequence.get()));
+        }
+        long seq;
+        synchronized (ring) {
+            // Cấp seq trong lock của ring để thứ tự trong ring luôn tăng dần
+            seq = sequence.incrementAndGet();
+            if (ring.entries.size() >= capacity) {
+                ring.lastEvictedSeq = ring.entries.pollFirst().seq();
+            }
+            ring.entries.addLast(new ReplayEntry(seq, message));
+        }
+        return new RealtimeFrameBuffer.OutboundFrame(message, Map.of(SEQ_HEADER, seq));
+    }
+
+    /**
+     * Các frame có seq > lastSeq, hoặc empty nếu buffer không còn phủ được khoảng đó
+     */
+    public Optional<List<ReplayEntry>> since(Long conversationId, long lastSeq) {
+        Ring ring;
+        synchronized (rings) {
+            ring = rings.get(conversationId);
+        }
+        if (ring == null) {
+            return Optional.empty();
+        }
+
+        synchronized (ring) {
+            // Seq là global nên có khoảng trống giữa các frame của cùng conversation; ring chỉ phủ
+            // được lastSeq nếu không có frame nào sau lastSeq bị ghi đè hoặc có trước khi ring được tạo
+            long coveredFrom = Math.max(ring.createdAtSeq, ring.lastEvictedSeq);
+            if (lastSeq < coveredFrom || lastSeq > sequence.get()) {
+                return Optional.empty();
+            }
+            List<ReplayEntry> missed = new ArrayList<>();
+            for (ReplayEntry entry : ring.entries) {
+                if (entry.seq() > lastSeq) {
+                    missed.add(entry);
+                }
+            }
+            return Optional.of(missed);
+        }
+    }
+
+    public long currentSequence() {
+        return sequence.get();
+    }
+
+    private static final class Ring {
+        private final ArrayDeque<ReplayEntry> entries = new ArrayDeque<>();
+        private final long createdAtSeq;
+        private long lastEvictedSeq;
+
+        private Ring(long createdAtSeq) {
+            this.createdAtSeq = createdAtSeq;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.chat_demo.core.realtime;
+
+import com.example.chat_demo.api.dto.InboxEventDto;
+import com.example.chat_demo.core.model.Conversation;
+import com.example.chat_demo.core.model.Message;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * InboxEventPublisher - phát event tóm tắt conversation cho staff inbox
+ *
+ * Mỗi event gửi tới /topic/inbox (không lọc) và các biến thể đã lọc sẵn:
+ * /topic/inbox/{channelType}, /topic/inbox/status/{status}, /topic/inbox/{channelType}/{status}.
+ * Client chọn filter lúc SUBSCRIBE qua header (xem RealtimeSubscriptionInterceptor),
+ * simple broker chỉ việc match destination nên không phải lọc từng frame.
+ * Event STATUS còn được gửi tới destination của trạng thái cũ (previousStatus) để inbox đang lọc theo
+ * trạng thái đó biết mà bỏ conversation ra khỏi danh sách.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InboxEventPublisher {
+
+    public static final String INBOX_TOPIC = "/topic/inbox";
+    private static final int SNIPPET_LENGTH = 80;
+
+    private final RealtimeFrameBuffer frameBuffer;
+
+    /**
+     * Message mới (inbound tăng unread, outbound chỉ cập nhật lastMessageAt/snippet)
+     */
+    public void publishMessage(Message message) {
+        Conversation conversation = message.getConversation();
+        if (conversation == null) {
+            return;
+        }
+        InboxEventDto event = baseEvent("MESSAGE", conversation);
+        event.setUnreadDelta(message.getDirection() == Message.MessageDirection.INBOUND ? 1 : 0);
+        event.setSnippet(toSnippet(message.getContent()));
+        publish(event);
+    }
+
+    /**
+     * Staff đã đọc một số message inbound của conversation
+     */
+    public void publishRead(Conversation conversation, int readCount) {
+        if (readCount <= 0) {
+            return;
+        }
+        InboxEventDto event = baseEvent("READ", conversation);
+        event.setUnreadDelta(-readCount);
+        publish(event);
+    }
+
+    /**
+     * Conversation đổi trạng thái (OPEN, PENDING, CLOSED)
+     * @param previousStatus trạng thái trước khi đổi
+     */
+    public void publishStatusChange(Conversation conversation, String previousStatus) {
+        InboxEventDto event = baseEvent("STATUS", conversation);
+        event.setPreviousStatus(previousStatus);
+        publish(event);
+    }
+
+    private InboxEventDto baseEvent(String eventType, Conversation conversation) {
+        InboxEventDto event = new InboxEventDto();
+        event.setEventType(eventType);
+        event.setConversationId(conversation.getId());
+        if (conversation.getUser() != null && conversation.getUser().getChannelType() != null) {
+            event.setChannelType(conversation.getUser().getChannelType().name());
+        }
+        event.setStatus(conversation.getStatus());
+        event.setLastMessageAt(conversation.getLastMessageAt());
+        return event;
+    }
+
+    private void publish(InboxEventDto event) {
+        // Không coalesce: unreadDelta của các event phải được cộng dồn ở client
+        AfterCommit.run(() -> {
+            frameBuffer.enqueue(INBOX_TOPIC, null, event);
+            if (event.getChannelType() != null) {
+                frameBuffer.enqueue(INBOX_TOPIC + "/" + event.getChannelType(), null, event);
+            }
+            publishToStatus(event, event.getStatus());
+            if (event.getPreviousStatus() != null && !event.getPreviousStatus().equals(event.getStatus())) {
+                publishToStatus(event, event.getPreviousStatus());
+            }
+            log.debug("Published inbox {} event for conversation {}", event.getEventType(), event.getConversationId());
+        });
+    }
+
+    private void publishToStatus(InboxEventDto event, String status) {
+        if (status == null) {
+            return;
+        }
+        frameBuffer.enqueue(INBOX_TOPIC + "/status/" + status, null, event);
+        if (event.getChannelType() != null) {
+            frameBuffer.enqueue(INBOX_TOPIC + "/" + event.getChannelType() + "/" + status, null, event);
+        }
+    }
+
+    private String toSnippet(String content) {
+        if (content == null) {
+            return null;
+        }
+        String singleLine = content.replaceAll("\\s+", " ").trim();
+        return singleLine.length() > SNIPPET_LENGTH ? singleLine.substring(0, SNIPPET_LENGTH) + "…" : singleLine;
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.chat_demo.core.realtime;
+
+import com.example.chat_demo.api.dto.MessageDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MessageDeltaEncoder - Encode MessageDto thành delta frame gọn cho subscriber chọn format "delta"
+ *
+ * Key rút gọn, timestamp dạng epoch millis, bỏ field null. Lần đầu gặp một message gửi frame đầy đủ
+ * ("f": 1); các lần sau chỉ gửi "i" và field thay đổi so với frame trước của cùng message.
+ * Delta destination là topic dùng chung: mỗi lần có subscription mới (onSubscribe) frame kế tiếp của
+ * mọi message trên destination đó lại là frame đầy đủ, subscriber vào sau không phải dựng message từ delta.
+ * Presigned URL được so sánh theo object path (bỏ query string) vì chữ ký đổi mỗi lần map.
+ * Client nhận delta của message chưa biết thì tải lại qua REST.
+ */
+@Component
+public class MessageDeltaEncoder {
+
+    private final Map<Long, SentFrame> lastFrames;
+    private final Map<String, Long> subscribedAt;
+    // Thứ tự giữa encode và onSubscribe (nanoTime có thể trùng nhau trên clock thô)
+    private final AtomicLong ticks = new AtomicLong();
+
+    public MessageDeltaEncoder(@Value("${realtime.delta-frames.cache-size:10000}") int cacheSize) {
+        this.lastFrames = lruMap(cacheSize);
+        this.subscribedAt = lruMap(cacheSize);
+    }
+
+    /**
+     * Gọi sau khi broker đã đăng ký subscription mới vào delta destination
+     */
+    public void onSubscribe(String destination) {
+        synchronized (subscribedAt) {
+            subscribedAt.put(destination, ticks.incrementAndGet());
+        }
+    }
+
+    /**
+     * @return frame cần gửi, hoặc null nếu không có field nào thay đổi
+     */
+    public Map<String, Object> encode(String destination, MessageDto dto) {
+        Map<String, Object> current = toCompact(dto);
+        long now = ticks.incrementAndGet();
+        Long lastSubscribe;
+        synchronized (subscribedAt) {
+            lastSubscribe = subscribedAt.get(destination);
+        }
+        SentFrame previous;
+        synchronized (lastFrames) {
+            previous = lastFrames.put(dto.getId(), new SentFrame(current, now));
+        }
+
+        if (previous == null || (lastSubscribe != null && previous.sentAt() < lastSubscribe)) {
+            Map<String, Object> full = new LinkedHashMap<>(current);
+            full.put("f", 1);
+            return full;
+        }
+
+        Map<String, Object> delta = new LinkedHashMap<>();
+        delta.put("i", dto.getId());
+        for (Map.Entry<String, Object> entry : current.entrySet()) {
+            String key = entry.getKey();
+            Object before = previous.frame().get(key);
+            if (key.equals("a")) {
+                if (!Objects.equals(stripQuery(entry.getValue()), stripQuery(before))) {
+                    delta.put(key, entry.getValue());
+                }
+            } else if (!Objects.equals(entry.getValue(), before)) {
+                delta.put(key, entry.getValue());
+            }
+        }
+        return delta.size() > 1 ? delta : null;
+    }
+
+    private static <K, V> Map<K, V> lruMap(int maxSize) {
+        return new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    private Map<String, Object> toCompact(MessageDto dto) {
+        Map<String, Object> frame = new LinkedHashMap<>();
+        put(frame, "i", dto.getId());
+        put(frame, "c", dto.getContent());
+        put(frame, "t", dto.getMessageType());
+        put(frame, "d", dto.getDirection());
+        put(frame, "s", dto.getStatus());
+        put(frame, "r", toEpochMillis(dto.getReceivedAt()));
+        put(frame, "w", toEpochMillis(dto.getSentAt()));
+        put(frame, "u", dto.getUserId());
+        put(frame, "n", dto.getUserName());
+        put(frame, "a", dto.getAttachmentUrl());
+        put(frame, "at", dto.getAttachmentType());
+        put(frame, "af", dto.getAttachmentFilename());
+        put(frame, "as", dto.getAttachmentSize());
+        return frame;
+    }
+
+    private static void put(Map<String, Object> frame, String key, Object value) {
+        if (value != null) {
+            frame.put(key, value);
+        }
+    }
+
+    private static Long toEpochMillis(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : null;
+    }
+
+    private static Object stripQuery(Object url) {
+        if (url == null) {
+            return null;
+        }
+        String value = url.toString();
+        int query = value.indexOf('?');
+        return query >= 0 ? value.substring(0, query) : value;
+    }
+
+    private record SentFrame(Map<String, Object> frame, long sentAt) {
+    }
+}
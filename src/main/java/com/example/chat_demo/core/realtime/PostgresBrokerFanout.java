@@ -0,0 +1,384 @@
+package com.example.chat_demo.core.realtime;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * PostgresBrokerFanout - Fan-out frame STOMP giữa các node qua Postgres LISTEN/NOTIFY
+ *
+ * Mỗi node vẫn dùng simple broker cho subscription của chính nó. Frame do node này publish
+ * (qua brokerChannel) được NOTIFY lên channel chung; các node khác LISTEN và đẩy frame vào
+ * brokerChannel của mình, nên publish ở node nào thì subscriber ở mọi node đều nhận được.
+ * Giới hạn payload của NOTIFY là ~8000 bytes; frame lớn hơn (ví dụ message tiếng Việt 4096 ký tự ~12 KB)
+ * được cắt thành nhiều NOTIFY (chunk base64, tối đa MAX_CHUNKS) và node nhận ghép lại trước khi giao;
+ * chunk thiếu quá CHUNK_TIMEOUT thì bị bỏ. Chỉ frame vượt MAX_CHUNKS chunk mới chỉ gửi cho subscriber local.
+ * Payload là UTF-8 hợp lệ (JSON) thì gửi nguyên văn, ngược lại gửi base64 (payloadBase64).
+ * LISTEN dùng connection riêng mở bằng DriverManager, không giữ vĩnh viễn một connection của Hikari pool.
+ * Frame có header LOCAL_ONLY_HEADER (typing, presence của PresenceService) không được NOTIFY để
+ * các frame tạm thời tần suất cao không tạo round trip tới database.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "realtime.broker.mode", havingValue = "postgres")
+public class PostgresBrokerFanout implements ChannelInterceptor {
+
+    static final String RELAYED_HEADER = "chatRelayed";
+    // Frame tạm thời (typing, presence): chỉ giao cho subscriber local, không NOTIFY
+    static final String LOCAL_ONLY_HEADER = "chatLocalOnly";
+    private static final int MAX_NOTIFY_PAYLOAD = 7900;
+    // 5000 byte → 6668 ký tự base64, cộng phần envelope của chunk vẫn dưới MAX_NOTIFY_PAYLOAD
+    private static final int CHUNK_BYTES = 5000;
+    private static final int MAX_CHUNKS = 64;
+    private static final long CHUNK_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final Callable<Connection> listenConnectionFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Supplier<MessageChannel> brokerChannel;
+    private final String notifyChannel;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final BlockingQueue<PendingFrame> outbound;
+    private final AtomicLong frameIds = new AtomicLong();
+    // Chỉ thread LISTEN đọc/ghi
+    private final Map<String, PartialFrame> partialFrames = new HashMap<>();
+
+    private volatile boolean running;
+    private volatile boolean listening;
+    private Thread listenerThread;
+    private Thread notifierThread;
+
+    @Autowired
+    public PostgresBrokerFanout(DataSourceProperties dataSourceProperties,
+                                JdbcTemplate jdbcTemplate,
+                                ObjectMapper objectMapper,
+                                @Qualifier("brokerChannel") ObjectProvider<MessageChannel> brokerChannel,
+                                @Value("${realtime.broker.postgres.channel:chat_realtime}") String notifyChannel,
+                                @Value("${realtime.broker.postgres.queue-capacity:10000}") int queueCapacity) {
+        this(() -> DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                        dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword()),
+                jdbcTemplate, objectMapper, brokerChannel::getObject, notifyChannel, queueCapacity);
+    }
+
+    /**
+     * Dùng trực tiếp trong test (connection LISTEN và brokerChannel giả lập)
+     */
+    PostgresBrokerFanout(Callable<Connection> listenConnectionFactory,
+                         JdbcTemplate jdbcTemplate,
+                         ObjectMapper objectMapper,
+                         Supplier<MessageChannel> brokerChannel,
+                         String notifyChannel,
+                         int queueCapacity) {
+        this.listenConnectionFactory = listenConnectionFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.brokerChannel = brokerChannel;
+        this.notifyChannel = notifyChannel;
+        this.outbound = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listenerThread = new Thread(this::listenLoop, "pg-broker-listen");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+        notifierThread = new Thread(this::notifyLoop, "pg-broker-notify");
+        notifierThread.setDaemon(true);
+        notifierThread.start();
+        log.info("Postgres broker fan-out started on channel {} (node {})", notifyChannel, nodeId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+        if (notifierThread != null) {
+            notifierThread.interrupt();
+        }
+    }
+
+    /**
+     * Bắt frame do node này publish vào brokerChannel và xếp hàng NOTIFY (không block caller)
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE
+                || accessor.getHeader(RELAYED_HEADER) != null
+                || accessor.getHeader(LOCAL_ONLY_HEADER) != null
+                || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+
+        try {
+            Map<String, Object> envelope = new LinkedHashMap<>();
+            envelope.put("node", nodeId);
+            envelope.put("destination", accessor.getDestination());
+            envelope.put("contentType", accessor.getContentType() != null ? accessor.getContentType().toString() : null);
+            envelope.put("nativeHeaders", accessor.toNativeHeaderMap());
+            String text = decodeUtf8(payload);
+            if (text != null) {
+                envelope.put("payload", text);
+            } else {
+                envelope.put("payloadBase64", Base64.getEncoder().encodeToString(payload));
+            }
+            String json = objectMapper.writeValueAsString(envelope);
+            byte[] jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+
+            List<String> notifications = jsonBytes.length <= MAX_NOTIFY_PAYLOAD ? List.of(json) : toChunks(jsonBytes);
+            if (notifications.isEmpty()) {
+                log.warn("Frame for {} exceeds {} NOTIFY chunks, delivered to local subscribers only",
+                        accessor.getDestination(), MAX_CHUNKS);
+            } else if (!outbound.offer(new PendingFrame(notifications, System.nanoTime()))) {
+                log.warn("Postgres fan-out queue full, frame for {} delivered locally only", accessor.getDestination());
+            }
+        } catch (Exception e) {
+            log.error("Failed to enqueue frame for cross-node fan-out", e);
+        }
+        return message;
+    }
+
+    private void notifyLoop() {
+        while (running) {
+            try {
+                PendingFrame frame = outbound.take();
+                for (String notification : frame.notifications()) {
+                    jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, notifyChannel, notification);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Failed to NOTIFY realtime frame", e);
+            }
+        }
+    }
+
+    private void listenLoop() {
+        while (running) {
+            try (Connection connection = listenConnectionFactory.call()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + notifyChannel);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                listening = true;
+                log.info("Listening for realtime frames on Postgres channel {}", notifyChannel);
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(500);
+                    evictStaleChunks();
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        receive(notification.getParameter());
+                    }
+                }
+            } catch (Exception e) {
+                listening = false;
+                if (!running) {
+                    return;
+                }
+                log.error("Postgres LISTEN connection failed, retrying in 2s", e);
+                try {
+                    TimeUnit.SECONDS.sleep(2);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * LISTEN connection đang mở (false khi đang retry sau lỗi): node không nhận frame của node khác
+     */
+    public boolean isListening() {
+        return listening;
+    }
+
+    /**
+     * Số frame đang chờ NOTIFY
+     */
+    public int getQueuedFrames() {
+        return outbound.size();
+    }
+
+    /**
+     * Thời gian frame cũ nhất đã chờ NOTIFY (ms), 0 nếu queue rỗng
+     */
+    public long getOldestQueuedAgeMillis() {
+        PendingFrame oldest = outbound.peek();
+        return oldest != null ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldest.enqueuedAt()) : 0;
+    }
+
+    /**
+     * Cắt envelope thành các NOTIFY {node, chunk, index, count, data (base64)}; rỗng nếu vượt MAX_CHUNKS
+     */
+    private List<String> toChunks(byte[] jsonBytes) throws JsonProcessingException {
+        int count = (jsonBytes.length + CHUNK_BYTES - 1) / CHUNK_BYTES;
+        if (count > MAX_CHUNKS) {
+            return List.of();
+        }
+        String frameId = Long.toString(frameIds.incrementAndGet());
+        List<String> chunks = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            int from = index * CHUNK_BYTES;
+            int to = Math.min(jsonBytes.length, from + CHUNK_BYTES);
+            Map<String, Object> chunk = new LinkedHashMap<>();
+            chunk.put("node", nodeId);
+            chunk.put("chunk", frameId);
+            chunk.put("index", index);
+            chunk.put("count", count);
+            chunk.put("data", Base64.getEncoder().encodeToString(Arrays.copyOfRange(jsonBytes, from, to)));
+            chunks.add(objectMapper.writeValueAsString(chunk));
+        }
+        return chunks;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void receive(String json) {
+        try {
+            Map<String, Object> envelope = objectMapper.readValue(json, Map.class);
+            if (nodeId.equals(envelope.get("node"))) {
+                return;
+            }
+            if (envelope.containsKey("chunk")) {
+                receiveChunk(envelope);
+            } else {
+                deliver(envelope);
+            }
+        } catch (Exception e) {
+            log.error("Failed to deliver relayed realtime frame", e);
+        }
+    }
+
+    private void receiveChunk(Map<String, Object> chunk) throws IOException {
+        String key = chunk.get("node") + ":" + chunk.get("chunk");
+        int count = ((Number) chunk.get("count")).intValue();
+        int index = ((Number) chunk.get("index")).intValue();
+        if (count > MAX_CHUNKS || index < 0 || index >= count) {
+            log.warn("Ignored malformed relayed chunk {}/{}", index, count);
+            return;
+        }
+        PartialFrame frame = partialFrames.computeIfAbsent(key,
+                ignored -> new PartialFrame(new byte[count][], System.nanoTime()));
+        if (frame.parts()[index] == null) {
+            frame.parts()[index] = Base64.getDecoder().decode((String) chunk.get("data"));
+        }
+        for (byte[] part : frame.parts()) {
+            if (part == null) {
+                return;
+            }
+        }
+        partialFrames.remove(key);
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        for (byte[] part : frame.parts()) {
+            json.write(part);
+        }
+        deliver(objectMapper.readValue(json.toByteArray(), Map.class));
+    }
+
+    private void evictStaleChunks() {
+        if (partialFrames.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        partialFrames.values().removeIf(frame -> {
+            if (now - frame.startedAt() < CHUNK_TIMEOUT_NANOS) {
+                return false;
+            }
+            log.warn("Dropped incomplete relayed frame ({} chunks expected)", frame.parts().length);
+            return true;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void deliver(Map<String, Object> envelope) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination((String) envelope.get("destination"));
+        Object contentType = envelope.get("contentType");
+        if (contentType != null) {
+            accessor.setContentType(MimeType.valueOf(contentType.toString()));
+        }
+        Object nativeHeaders = envelope.get("nativeHeaders");
+        if (nativeHeaders instanceof Map<?, ?> headers) {
+            ((Map<String, List<String>>) headers).forEach((name, values) ->
+                    values.forEach(value -> accessor.addNativeHeader(name, value)));
+        }
+        accessor.setHeader(RELAYED_HEADER, Boolean.TRUE);
+
+        Object base64 = envelope.get("payloadBase64");
+        byte[] payload = base64 != null
+                ? Base64.getDecoder().decode((String) base64)
+                : ((String) envelope.get("payload")).getBytes(StandardCharsets.UTF_8);
+        brokerChannel.get().send(MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+    }
+
+    /**
+     * Chuỗi UTF-8 của payload, null nếu payload không phải UTF-8 hợp lệ (binary)
+     */
+    private static String decodeUtf8(byte[] payload) {
+        try {
+            return StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(payload))
+                    .toString();
+        } catch (CharacterCodingException e) {
+            return null;
+        }
+    }
+
+    private record PendingFrame(List<String> notifications, long enqueuedAt) {
+    }
+
+    private record PartialFrame(byte[][] parts, long startedAt) {
+    }
+}
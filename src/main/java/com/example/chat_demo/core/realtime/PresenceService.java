@@ -0,0 +1,220 @@
+package com.example.chat_demo.core.realtime;
+
+import com.example.chat_demo.omnichannel.connector.ConnectorFactory;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PresenceService - Typing indicator và presence, chỉ giữ trong memory (không ghi DB)
+ *
+ * - Typing: tối đa một frame mỗi user/conversation trong realtime.typing.throttle-ms, tự hết hạn
+ *   sau realtime.typing.ttl-ms (phát typing=false). Topic: /topic/conversations/{id}/typing
+ * - Presence: heartbeat ONLINE/AWAY, hết hạn sau realtime.presence.ttl-ms hoặc khi session
+ *   WebSocket đóng (phát OFFLINE). Topic: /topic/presence
+ * - Staff typing được relay sang platform (sendChatAction, Discord typing, sender_action)
+ *   tối đa một lần mỗi realtime.typing.relay-interval-ms cho mỗi conversation.
+ * - Frame đánh dấu local-only: realtime.broker.mode=postgres không NOTIFY chúng qua database,
+ *   nên chỉ staff kết nối cùng node mới thấy typing/presence phát ra trên node đó.
+ */
+@Slf4j
+@Service
+public class PresenceService {
+
+    private record TypingKey(Long conversationId, String userId) {
+    }
+
+    private record TypingState(String role, long lastEmitAt, long expiresAt) {
+    }
+
+    private record PresenceState(String status, String sessionId, long expiresAt) {
+    }
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ConversationRecipientCache recipientCache;
+    private final ConnectorFactory connectorFactory;
+    private final Executor typingRelayExecutor;
+    private final ScheduledExecutorService sweeper;
+
+    private final Map<TypingKey, TypingState> typing = new ConcurrentHashMap<>();
+    private final Map<String, PresenceState> presence = new ConcurrentHashMap<>();
+    private final Map<Long, Long> lastRelayAt = new ConcurrentHashMap<>();
+
+    @Value("${realtime.typing.throttle-ms:1000}")
+    private long typingThrottleMs;
+
+    @Value("${realtime.typing.ttl-ms:5000}")
+    private long typingTtlMs;
+
+    @Value("${realtime.typing.relay-interval-ms:4000}")
+    private long relayIntervalMs;
+
+    @Value("${realtime.presence.ttl-ms:60000}")
+    private long presenceTtlMs;
+
+    public PresenceService(SimpMessagingTemplate messagingTemplate,
+                           ConversationRecipientCache recipientCache,
+                           ConnectorFactory connectorFactory,
+                           @Qualifier("typingRelayExecutor") Executor typingRelayExecutor) {
+        this.messagingTemplate = messagingTemplate;
+        this.recipientCache = recipientCache;
+        this.connectorFactory = connectorFactory;
+        this.typingRelayExecutor = typingRelayExecutor;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "presence-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sweeper.scheduleWithFixedDelay(this::sweep, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Staff bắt đầu/dừng nhập trong conversation
+     */
+    public void staffTyping(Long conversationId, String userId, boolean isTyping) {
+        updateTyping(conversationId, userId, "STAFF", isTyping);
+        if (isTyping) {
+            relayToPlatform(conversationId);
+        }
+    }
+
+    /**
+     * Khách hàng đang nhập (ví dụ Discord typing event)
+     */
+    public void customerTyping(Long conversationId, String userId) {
+        updateTyping(conversationId, userId, "CUSTOMER", true);
+    }
+
+    /**
+     * Heartbeat presence của staff; chỉ phát frame khi status thay đổi
+     */
+    public void heartbeat(String userId, String status, String sessionId) {
+        long now = System.currentTimeMillis();
+        PresenceState previous = presence.put(userId, new PresenceState(status, sessionId, now + presenceTtlMs));
+        if (previous == null || !previous.status().equals(status)) {
+            sendPresence(userId, status);
+        }
+    }
+
+    @EventListener
+    public void onSessionDisconnect(SessionDisconnectEvent event) {
+        String sessionId = event.getSessionId();
+        presence.forEach((userId, state) -> {
+            if (sessionId.equals(state.sessionId()) && presence.remove(userId, state)) {
+                sendPresence(userId, "OFFLINE");
+            }
+        });
+    }
+
+    private void updateTyping(Long conversationId, String userId, String role, boolean isTyping) {
+        TypingKey key = new TypingKey(conversationId, userId);
+        long now = System.currentTimeMillis();
+
+        if (!isTyping) {
+            if (typing.remove(key) != null) {
+                sendTyping(key, role, false);
+            }
+            return;
+        }
+
+        boolean[] emit = new boolean[1];
+        typing.compute(key, (k, current) -> {
+            if (current != null && now - current.lastEmitAt() < typingThrottleMs) {
+                return new TypingState(role, current.lastEmitAt(), now + typingTtlMs);
+            }
+            emit[0] = true;
+            return new TypingState(role, now, now + typingTtlMs);
+        });
+        if (emit[0]) {
+            sendTyping(key, role, true);
+        }
+    }
+
+    private void relayToPlatform(Long conversationId) {
+        long now = System.currentTimeMillis();
+        Long previous = lastRelayAt.get(conversationId);
+        if (previous != null && now - previous < relayIntervalMs) {
+            return;
+        }
+        if (previous == null ? lastRelayAt.putIfAbsent(conversationId, now) != null
+                : !lastRelayAt.replace(conversationId, previous, now)) {
+            return;
+        }
+
+        recipientCache.getRecipient(conversationId).ifPresent(recipient -> {
+            try {
+                typingRelayExecutor.execute(() -> connectorFactory.getConnector(recipient.channelType())
+                        .sendTypingIndicator(recipient.recipientId()));
+            } catch (RejectedExecutionException e) {
+                log.debug("Typing relay queue full, dropped relay for conversation {}", conversationId);
+            } catch (Exception e) {
+                log.debug("No typing relay for conversation {}: {}", conversationId, e.getMessage());
+            }
+        });
+    }
+
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        typing.forEach((key, state) -> {
+            if (state.expiresAt() <= now && typing.remove(key, state)) {
+                sendTyping(key, state.role(), false);
+            }
+        });
+        presence.forEach((userId, state) -> {
+            if (state.expiresAt() <= now && presence.remove(userId, state)) {
+                sendPresence(userId, "OFFLINE");
+            }
+        });
+        lastRelayAt.entrySet().removeIf(entry -> now - entry.getValue() > relayIntervalMs);
+    }
+
+    private void sendTyping(TypingKey key, String role, boolean isTyping) {
+        Map<String, Object> frame = new HashMap<>();
+        frame.put("type", "typing");
+        frame.put("conversationId", key.conversationId());
+        frame.put("userId", key.userId());
+        frame.put("role", role);
+        frame.put("typing", isTyping);
+        send("/topic/conversations/" + key.conversationId() + "/typing", frame);
+    }
+
+    private void sendPresence(String userId, String status) {
+        Map<String, Object> frame = new HashMap<>();
+        frame.put("type", "presence");
+        frame.put("userId", userId);
+        frame.put("status", status);
+        send("/topic/presence", frame);
+    }
+
+    private void send(String destination, Map<String, Object> frame) {
+        try {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setHeader(PostgresBrokerFanout.LOCAL_ONLY_HEADER, Boolean.TRUE);
+            accessor.setLeaveMutable(true);
+            messagingTemplate.convertAndSend(destination, frame, accessor.getMessageHeaders());
+        } catch (Exception e) {
+            log.warn("Failed to send ephemeral frame to {}: {}", destination, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.chat_demo.core.realtime;
+
+import com.example.chat_demo.config.WebSocketTransportMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+
+/**
+ * RealtimeBrokerHealthIndicator - /actuator/health/realtimeBroker (nhóm readiness)
+ *
+ * Chỉ đọc trạng thái trong bộ nhớ (không I/O):
+ * - client outbound channel: quá omnichannel.health.realtime.max-outbound-queue frame đang chờ thì
+ *   OUT_OF_SERVICE, staff mới kết nối vào node này sẽ nhận frame trễ
+ * - realtime.broker.mode=postgres: LISTEN connection mất thì DOWN (không nhận frame của node khác),
+ *   frame cũ nhất chờ NOTIFY quá omnichannel.health.realtime.max-fanout-lag-ms thì OUT_OF_SERVICE
+ */
+@Component
+public class RealtimeBrokerHealthIndicator implements HealthIndicator {
+
+    private final ObjectProvider<Executor> outboundExecutor;
+    private final ObjectProvider<PostgresBrokerFanout> postgresFanout;
+    private final int maxOutboundQueue;
+    private final long maxFanoutLagMillis;
+
+    public RealtimeBrokerHealthIndicator(@Qualifier("clientOutboundChannelExecutor") ObjectProvider<Executor> outboundExecutor,
+                                         ObjectProvider<PostgresBrokerFanout> postgresFanout,
+                                         @Value("${omnichannel.health.realtime.max-outbound-queue:4000}") int maxOutboundQueue,
+                                         @Value("${omnichannel.health.realtime.max-fanout-lag-ms:5000}") long maxFanoutLagMillis) {
+        this.outboundExecutor = outboundExecutor;
+        this.postgresFanout = postgresFanout;
+        this.maxOutboundQueue = maxOutboundQueue;
+        this.maxFanoutLagMillis = maxFanoutLagMillis;
+    }
+
+    @Override
+    public Health health() {
+        int outboundQueue = WebSocketTransportMetrics.queueSize(outboundExecutor);
+        PostgresBrokerFanout fanout = postgresFanout.getIfAvailable();
+        if (fanout == null) {
+            return status(outboundQueue > maxOutboundQueue)
+                    .withDetail("mode", "simple")
+                    .withDetail("outboundQueue", outboundQueue)
+                    .build();
+        }
+
+        long fanoutLag = fanout.getOldestQueuedAgeMillis();
+        Health.Builder builder = !fanout.isListening()
+                ? Health.down()
+                : status(outboundQueue > maxOutboundQueue || fanoutLag > maxFanoutLagMillis);
+        return builder
+                .withDetail("mode", "postgres")
+                .withDetail("outboundQueue", outboundQueue)
+                .withDetail("listening", fanout.isListening())
+                .withDetail("fanoutQueue", fanout.getQueuedFrames())
+                .withDetail("fanoutLagMillis", fanoutLag)
+                .build();
+    }
+
+    private static Health.Builder status(boolean lagging) {
+        return lagging ? Health.outOfService() : Health.up();
+    }
+}
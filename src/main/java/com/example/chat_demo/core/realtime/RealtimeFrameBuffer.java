@@ -0,0 +1,160 @@
+package com.example.chat_demo.core.realtime;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * RealtimeFrameBuffer - Gom frame theo destination trước khi gửi qua STOMP
+ *
+ * Trong một cửa sổ ngắn (coalesce-window-ms), nhiều update của cùng một key (message ID)
+ * trên cùng destination chỉ gửi frame cuối cùng. Ví dụ PENDING → DELIVERED → READ liên tiếp
+ * chỉ tạo một frame. Thứ tự các key khác nhau được giữ nguyên theo lần xuất hiện đầu tiên.
+ * Encoder có thể trả về OutboundFrame để gửi kèm native header (ví dụ "seq").
+ * Timer chat.realtime.frame.send đo thời gian encode + gửi một frame vào broker (sau commit).
+ * Buffer của destination bị bỏ khỏi map khi flush xong mà không còn frame chờ, nên số buffer chỉ bằng
+ * số destination đang có update trong cửa sổ hiện tại (không tăng theo tổng số conversation/filter).
+ */
+@Slf4j
+@Component
+public class RealtimeFrameBuffer {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ScheduledExecutorService flushScheduler;
+    private final Map<String, DestinationBuffer> buffers = new ConcurrentHashMap<>();
+    private final Timer frameSendTimer;
+
+    @Value("${realtime.coalesce-window-ms:50}")
+    private long coalesceWindowMs;
+
+    public RealtimeFrameBuffer(SimpMessagingTemplate messagingTemplate, MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.frameSendTimer = Timer.builder("chat.realtime.frame.send")
+                .description("Encode and hand one realtime frame to the STOMP broker")
+                .register(meterRegistry);
+        this.flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "realtime-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Frame kèm native header, dùng làm kết quả của encoder
+     */
+    public record OutboundFrame(Object payload, Map<String, Object> headers) {
+    }
+
+    /**
+     * Đưa frame vào buffer; frame cùng key chưa gửi sẽ bị thay thế
+     * @param destination STOMP destination
+     * @param key Key để coalesce (message ID), null = không coalesce
+     * @param payload Payload đã map sang DTO
+     */
+    public void enqueue(String destination, Object key, Object payload) {
+        enqueue(destination, key, payload, UnaryOperator.identity());
+    }
+
+    /**
+     * Như enqueue nhưng encode payload lúc flush (sau khi đã coalesce), encoder trả null = bỏ frame
+     * @param encoder Chuyển payload sang frame thực sự gửi đi (ví dụ delta frame)
+     */
+    public void enqueue(String destination, Object key, Object payload, UnaryOperator<Object> encoder) {
+        if (coalesceWindowMs <= 0 || key == null) {
+            send(destination, new Frame(payload, encoder));
+            return;
+        }
+
+        DestinationBuffer buffer;
+        boolean scheduleFlush;
+        while (true) {
+            buffer = buffers.computeIfAbsent(destination, DestinationBuffer::new);
+            synchronized (buffer) {
+                // Buffer vừa bị flush bỏ khỏi map: lấy buffer mới để frame không nằm ở buffer mồ côi
+                if (buffer.retired) {
+                    continue;
+                }
+                buffer.pending.put(key, new Frame(payload, encoder));
+                scheduleFlush = !buffer.flushScheduled;
+                buffer.flushScheduled = true;
+                break;
+            }
+        }
+        if (scheduleFlush) {
+            DestinationBuffer scheduled = buffer;
+            flushScheduler.schedule(() -> flush(scheduled), coalesceWindowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush(DestinationBuffer buffer) {
+        List<Frame> frames;
+        synchronized (buffer) {
+            frames = new ArrayList<>(buffer.pending.values());
+            buffer.pending.clear();
+            buffer.flushScheduled = false;
+        }
+        for (Frame frame : frames) {
+            send(buffer.destination, frame);
+        }
+        synchronized (buffer) {
+            // Không có frame mới trong lúc gửi: bỏ buffer, lần enqueue sau tạo buffer mới
+            if (buffer.pending.isEmpty() && !buffer.flushScheduled) {
+                buffer.retired = true;
+                buffers.remove(buffer.destination, buffer);
+            }
+        }
+    }
+
+    private void send(String destination, Frame frame) {
+        long start = System.nanoTime();
+        try {
+            Object payload = frame.encoder().apply(frame.payload());
+            if (payload == null) {
+                return;
+            }
+            if (payload instanceof OutboundFrame outboundFrame) {
+                messagingTemplate.convertAndSend(destination, outboundFrame.payload(), outboundFrame.headers());
+            } else {
+                messagingTemplate.convertAndSend(destination, payload);
+            }
+        } catch (Exception ex) {
+            log.error("Failed to send realtime frame to {}", destination, ex);
+        } finally {
+            frameSendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushScheduler.shutdown();
+        buffers.values().forEach(this::flush);
+    }
+
+    private static final class DestinationBuffer {
+        private final String destination;
+        private final LinkedHashMap<Object, Frame> pending = new LinkedHashMap<>();
+        private boolean flushScheduled;
+        private boolean retired;
+
+        private DestinationBuffer(String destination) {
+            this.destination = destination;
+        }
+    }
+
+    private record Frame(Object payload, UnaryOperator<Object> encoder) {
+    }
+}
@@ -2,37 +2,77 @@ package com.example.chat_demo.core.realtime;
 
 import com.example.chat_demo.api.dto.MessageDto;
 import com.example.chat_demo.api.mapper.MessageMapper;
+import com.example.chat_demo.common.ChannelType;
 import com.example.chat_demo.core.model.Message;
+import com.example.chat_demo.core.service.MessagePipelineMetrics;
+import io.micrometer.observation.annotation.Observed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
  * RealtimeMessagePublisher - phát message qua WebSocket/STOMP đến frontend
+ *
+ * Frame chỉ được gửi sau khi transaction commit (rollback thì không gửi) và đi qua
+ * RealtimeFrameBuffer để gom nhiều update của cùng message thành một frame.
+ * Khi bật realtime.delta-frames.enabled, frame gọn (MessageDeltaEncoder) được gửi song song
+ * tới /topic/conversations/{id}/delta cho subscriber chọn format delta.
+ * Frame đầy đủ mang native header "seq" và được giữ trong ConversationReplayBuffer để resume.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class RealtimeMessagePublisher {
 
-    private final SimpMessagingTemplate messagingTemplate;
     private final MessageMapper messageMapper;
+    private final RealtimeFrameBuffer frameBuffer;
+    private final MessageDeltaEncoder deltaEncoder;
+    private final ConversationReplayBuffer replayBuffer;
+    private final MessagePipelineMetrics pipelineMetrics;
 
+    @Value("${realtime.delta-frames.enabled:false}")
+    private boolean deltaFramesEnabled;
+
+    @Observed(name = "chat.realtime.publish", contextualName = "publish realtime message")
     public void publish(Message message) {
+        publish(message, null);
+    }
+
+    /**
+     * Như publish(message); pipelineChannel khác null thì ghi chat.pipeline.stage{stage=publish}
+     * bằng thời gian chạy callback after-commit của chính message này (luồng inbound)
+     */
+    @Observed(name = "chat.realtime.publish", contextualName = "publish realtime message")
+    public void publish(Message message, ChannelType pipelineChannel) {
         if (message.getConversation() == null) {
             log.warn("Skip realtime publish because conversation is null for message {}", message.getId());
             return;
         }
 
-        MessageDto payload = messageMapper.toDto(message);
-        String destination = "/topic/conversations/" + message.getConversation().getId();
+        // Snapshot DTO tại thời điểm publish, entity có thể còn bị sửa tiếp trong transaction
+        MessageDto payload;
         try {
-            messagingTemplate.convertAndSend(destination, payload);
-            log.debug("Published message {} to destination {}", message.getId(), destination);
+            payload = messageMapper.toDto(message);
         } catch (Exception ex) {
-            log.error("Failed to publish realtime message {}", message.getId(), ex);
+            log.error("Failed to map realtime message {}", message.getId(), ex);
+            return;
         }
+        Long conversationId = message.getConversation().getId();
+        String destination = "/topic/conversations/" + conversationId;
+
+        AfterCommit.run(() -> {
+            long publishStart = System.nanoTime();
+            // Seq được cấp lúc flush (sau coalesce) để ring buffer chứa đúng frame đã gửi
+            frameBuffer.enqueue(destination, message.getId(), payload,
+                    dto -> replayBuffer.record(conversationId, (MessageDto) dto));
+            if (deltaFramesEnabled) {
+                String deltaDestination = destination + "/delta";
+                frameBuffer.enqueue(deltaDestination, message.getId(), payload,
+                        dto -> deltaEncoder.encode(deltaDestination, (MessageDto) dto));
+            }
+            pipelineMetrics.recordStage(MessagePipelineMetrics.Stage.PUBLISH, pipelineChannel, publishStart);
+            log.debug("Queued message {} for destination {}", message.getId(), destination);
+        });
     }
 }
-
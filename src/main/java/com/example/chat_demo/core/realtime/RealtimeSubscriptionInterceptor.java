@@ -0,0 +1,114 @@
+package com.example.chat_demo.core.realtime;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * RealtimeSubscriptionInterceptor - Chọn format frame theo header của STOMP SUBSCRIBE
+ *
+ * Client gửi header "x-frame-format: delta" khi subscribe /topic/conversations/{id}
+ * sẽ được chuyển sang /topic/conversations/{id}/delta (frame MessageDeltaEncoder). Khi broker đã đăng ký
+ * subscription đó, MessageDeltaEncoder được báo để frame kế tiếp của từng message là frame đầy đủ.
+ *
+ * Subscribe /topic/inbox kèm "x-channel-type" và/hoặc "x-status" được chuyển sang
+ * destination đã lọc sẵn do InboxEventPublisher phát.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RealtimeSubscriptionInterceptor implements ExecutorChannelInterceptor {
+
+    public static final String FRAME_FORMAT_HEADER = "x-frame-format";
+    public static final String CHANNEL_TYPE_HEADER = "x-channel-type";
+    public static final String STATUS_HEADER = "x-status";
+    private static final Pattern CONVERSATION_TOPIC = Pattern.compile("^/topic/conversations/\\d+$");
+    private static final Pattern DELTA_TOPIC = Pattern.compile("^/topic/conversations/\\d+/delta$");
+
+    private final MessageDeltaEncoder deltaEncoder;
+
+    @Value("${realtime.delta-frames.enabled:false}")
+    private boolean deltaFramesEnabled;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.SUBSCRIBE) {
+            return message;
+        }
+
+        String destination = accessor.getDestination();
+        if (destination == null) {
+            return message;
+        }
+
+        if (InboxEventPublisher.INBOX_TOPIC.equals(destination)) {
+            String filtered = inboxDestination(accessor);
+            if (!filtered.equals(destination)) {
+                accessor.setDestination(filtered);
+                log.debug("Session {} subscribed to filtered inbox {}", accessor.getSessionId(), filtered);
+            }
+            return message;
+        }
+
+        String frameFormat = accessor.getFirstNativeHeader(FRAME_FORMAT_HEADER);
+        if (deltaFramesEnabled && "delta".equalsIgnoreCase(frameFormat)
+                && CONVERSATION_TOPIC.matcher(destination).matches()) {
+            accessor.setDestination(destination + "/delta");
+            log.debug("Session {} subscribed to delta frames for {}", accessor.getSessionId(), destination);
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        // Chạy sau handler của broker (không phải sau preSend): frame đầy đủ không bị gửi trước khi
+        // subscription mới có trong registry
+        if (ex != null || !(handler instanceof AbstractBrokerMessageHandler)
+                || SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.SUBSCRIBE) {
+            return;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination != null && DELTA_TOPIC.matcher(destination).matches()) {
+            deltaEncoder.onSubscribe(destination);
+        }
+    }
+
+    private String inboxDestination(StompHeaderAccessor accessor) {
+        String channelType = normalize(accessor.getFirstNativeHeader(CHANNEL_TYPE_HEADER));
+        String status = normalize(accessor.getFirstNativeHeader(STATUS_HEADER));
+
+        StringBuilder destination = new StringBuilder(InboxEventPublisher.INBOX_TOPIC);
+        if (channelType != null) {
+            destination.append('/').append(channelType);
+        } else if (status != null) {
+            destination.append("/status");
+        }
+        if (status != null) {
+            destination.append('/').append(status);
+        }
+        return destination.toString();
+    }
+
+    private String normalize(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String normalized = value.trim().toUpperCase(Locale.ROOT).replaceAll("[^A-Z0-9_]", "");
+        return normalized.isEmpty() ? null : normalized;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.chat_demo.core.realtime;
+
+import com.example.chat_demo.api.dto.MessageDto;
+import com.example.chat_demo.api.dto.ReplayDto;
+import com.example.chat_demo.api.mapper.MessageMapper;
+import com.example.chat_demo.core.model.Message;
+import com.example.chat_demo.core.repository.MessageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ReplayService - Trả lại frame bị lỡ khi client reconnect
+ *
+ * Ưu tiên ring buffer trong memory (theo seq); nếu buffer không còn phủ được lastSeq
+ * thì keyset query các message có id > lastMessageId (không có lastMessageId: N message mới nhất).
+ * Fallback DB chỉ trả message mới, không gồm update status của message cũ.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReplayService {
+
+    private final ConversationReplayBuffer replayBuffer;
+    private final MessageRepository messageRepository;
+    private final MessageMapper messageMapper;
+
+    @Value("${realtime.replay.db-limit:200}")
+    private int dbLimit;
+
+    @Transactional(readOnly = true)
+    public ReplayDto resume(Long conversationId, Long lastSeq, Long lastMessageId) {
+        ReplayDto replay = new ReplayDto();
+        replay.setConversationId(conversationId);
+
+        if (lastSeq != null) {
+            var buffered = replayBuffer.since(conversationId, lastSeq);
+            if (buffered.isPresent()) {
+                replay.setSource("BUFFER");
+                replay.setLatestSeq(replayBuffer.currentSequence());
+                buffered.get().forEach(entry -> replay.getFrames().add(toFrame(entry.seq(), entry.message())));
+                log.debug("Replayed {} buffered frames for conversation {}", replay.getFrames().size(), conversationId);
+                return replay;
+            }
+        }
+
+        // Seq hiện tại lấy trước khi query để frame mới trong lúc query không bị bỏ sót
+        replay.setLatestSeq(replayBuffer.currentSequence());
+        replay.setSource("DATABASE");
+        List<Message> messages;
+        if (lastMessageId != null) {
+            messages = messageRepository.findNewerMessages(conversationId, lastMessageId, PageRequest.of(0, dbLimit));
+        } else {
+            // Query DESC để lấy đúng N message mới nhất, đảo lại cho client nhận theo thứ tự cũ -> mới
+            messages = new ArrayList<>(messageRepository.findLatestMessagesById(conversationId, PageRequest.of(0, dbLimit)));
+            Collections.reverse(messages);
+        }
+        messages.forEach(message -> replay.getFrames().add(toFrame(null, messageMapper.toDto(message))));
+        log.debug("Replayed {} messages from database for conversation {}", messages.size(), conversationId);
+        return replay;
+    }
+
+    private ReplayDto.Frame toFrame(Long seq, MessageDto message) {
+        ReplayDto.Frame frame = new ReplayDto.Frame();
+        frame.setSeq(seq);
+        frame.setMessage(message);
+        return frame;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.chat_demo.core.repository;
+
+import com.example.chat_demo.core.model.CallDailyStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface CallDailyStatsRepository extends JpaRepository<CallDailyStats, Long> {
+    
+    List<CallDailyStats> findByStatDateBetweenOrderByStatDateAscChannelTypeAsc(LocalDate from, LocalDate to);
+    
+    List<CallDailyStats> findByStatDateBetweenAndChannelTypeOrderByStatDateAsc(LocalDate from, LocalDate to, String channelType);
+    
+    // Cộng dồn vào row (ngày, channel) bằng một câu upsert (PostgreSQL ON CONFLICT),
+    // transaction riêng để lỗi thống kê không rollback thay đổi của call
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "INSERT INTO call_daily_stats (stat_date, channel_type, calls_initiated, calls_answered, " +
+                   "calls_rejected, calls_missed, calls_completed, total_ring_to_answer_ms, total_duration_ms) " +
+                   "VALUES (:statDate, :channelType, :initiated, :answered, :rejected, :missed, :completed, " +
+                   ":ringToAnswerMs, :durationMs) " +
+                   "ON CONFLICT (stat_date, channel_type) DO UPDATE SET " +
+                   "calls_initiated = call_daily_stats.calls_initiated + EXCLUDED.calls_initiated, " +
+                   "calls_answered = call_daily_stats.calls_answered + EXCLUDED.calls_answered, " +
+                   "calls_rejected = call_daily_stats.calls_rejected + EXCLUDED.calls_rejected, " +
+                   "calls_missed = call_daily_stats.calls_missed + EXCLUDED.calls_missed, " +
+                   "calls_completed = call_daily_stats.calls_completed + EXCLUDED.calls_completed, " +
+                   "total_ring_to_answer_ms = call_daily_stats.total_ring_to_answer_ms + EXCLUDED.total_ring_to_answer_ms, " +
+                   "total_duration_ms = call_daily_stats.total_duration_ms + EXCLUDED.total_duration_ms",
+           nativeQuery = true)
+    int increment(@Param("statDate") LocalDate statDate,
+                  @Param("channelType") String channelType,
+                  @Param("initiated") long initiated,
+                  @Param("answered") long answered,
+                  @Param("rejected") long rejected,
+                  @Param("missed") long missed,
+                  @Param("completed") long completed,
+                  @Param("ringToAnswerMs") long ringToAnswerMs,
+                  @Param("durationMs") long durationMs);
+}
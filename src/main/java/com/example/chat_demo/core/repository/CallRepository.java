@@ -3,9 +3,12 @@ package com.example.chat_demo.core.repository;
 import com.example.chat_demo.core.model.Call;
 import com.example.chat_demo.core.model.Conversation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,9 +24,20 @@ public interface CallRepository extends JpaRepository<Call, Long> {
     
     List<Call> findByStatus(Call.CallStatus status);
     
+    // Nạp lại CallRegistry khi khởi động
+    List<Call> findByStatusIn(List<Call.CallStatus> statuses);
+    
     Optional<Call> findFirstByConversationAndStatusInOrderByInitiatedAtDesc(
         Conversation conversation, 
         List<Call.CallStatus> statuses
     );
+    
+    // Kết thúc cả batch call bằng một câu UPDATE (chỉ các call chưa kết thúc)
+    @Modifying
+    @Query("UPDATE Call c SET c.status = :status, c.endedAt = :endedAt " +
+           "WHERE c.id IN :ids AND c.status IN :fromStatuses")
+    int updateStatusForIds(@Param("ids") Collection<Long> ids,
+                           @Param("status") Call.CallStatus status,
+                           @Param("endedAt") LocalDateTime endedAt,
+                           @Param("fromStatuses") Collection<Call.CallStatus> fromStatuses);
 }
-
@@ -1,9 +1,17 @@
 package com.example.chat_demo.core.repository;
 
+import com.example.chat_demo.common.ChannelType;
 import com.example.chat_demo.core.model.Conversation;
 import com.example.chat_demo.core.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,5 +19,22 @@ public interface ConversationRepository extends JpaRepository<Conversation, Long
     Optional<Conversation> findByUserAndStatus(User user, String status);
     List<Conversation> findByUser(User user, Sort sort);
     List<Conversation> findByStatus(String status, Sort sort);
+    
+    // Keyset cursor cho broadcast: duyệt theo id tăng dần, không dùng OFFSET
+    // includeNeverActive: không lọc theo hoạt động thì lấy cả conversation chưa có lastMessageAt
+    @Query("SELECT c FROM Conversation c JOIN FETCH c.user u " +
+           "WHERE c.id > :afterId AND u.channelType IN :channelTypes AND c.status IN :statuses " +
+           "AND (c.lastMessageAt >= :activeSince OR (:includeNeverActive = true AND c.lastMessageAt IS NULL)) " +
+           "ORDER BY c.id ASC")
+    List<Conversation> findBroadcastPage(@Param("channelTypes") Collection<ChannelType> channelTypes,
+                                         @Param("statuses") Collection<String> statuses,
+                                         @Param("activeSince") LocalDateTime activeSince,
+                                         @Param("includeNeverActive") boolean includeNeverActive,
+                                         @Param("afterId") Long afterId,
+                                         Pageable pageable);
+    
+    // Cập nhật lastMessageAt cho cả batch bằng một câu UPDATE
+    @Modifying
+    @Query("UPDATE Conversation c SET c.lastMessageAt = :lastMessageAt WHERE c.id IN :ids")
+    int touchLastMessageAt(@Param("ids") Collection<Long> ids, @Param("lastMessageAt") LocalDateTime lastMessageAt);
 }
-
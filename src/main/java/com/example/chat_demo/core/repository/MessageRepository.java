@@ -23,6 +23,18 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
                                     @Param("beforeMessageId") Long beforeMessageId, 
                                     Pageable pageable);
     
+    // Load tin nhắn mới hơn message_id (client reconnect, buffer replay đã bị ghi đè)
+    @Query("SELECT m FROM Message m LEFT JOIN FETCH m.user WHERE m.conversation.id = :conversationId " +
+           "AND m.id > :afterMessageId ORDER BY m.id ASC")
+    List<Message> findNewerMessages(@Param("conversationId") Long conversationId,
+                                    @Param("afterMessageId") Long afterMessageId,
+                                    Pageable pageable);
+    
+    // Load N tin nhắn mới nhất theo conversationId (client reconnect chưa có message nào)
+    @Query("SELECT m FROM Message m LEFT JOIN FETCH m.user WHERE m.conversation.id = :conversationId " +
+           "ORDER BY m.id DESC")
+    List<Message> findLatestMessagesById(@Param("conversationId") Long conversationId, Pageable pageable);
+    
     // Tìm messages chưa đọc trong conversation
     List<Message> findByConversationAndStatusNot(Conversation conversation, Message.MessageStatus status);
     
@@ -1,19 +1,28 @@
 package com.example.chat_demo.core.router;
 
+import com.example.chat_demo.common.ChannelType;
 import com.example.chat_demo.core.bus.OmnichannelMessageBus;
 import com.example.chat_demo.core.model.Conversation;
+import com.example.chat_demo.core.model.Message;
 import com.example.chat_demo.core.model.UnifiedMessage;
 import com.example.chat_demo.core.model.User;
+import com.example.chat_demo.core.realtime.AfterCommit;
 import com.example.chat_demo.core.service.ConversationStateService;
+import com.example.chat_demo.core.service.MessagePipelineMetrics;
+import com.example.chat_demo.core.service.MessengerProfileEnrichmentService;
+import com.example.chat_demo.core.service.MessengerUserProfileService;
 import com.example.chat_demo.core.service.UserRegistryService;
 import com.example.chat_demo.omnichannel.connector.ConnectorFactory;
 import com.example.chat_demo.omnichannel.connector.PlatformConnector;
+import io.micrometer.observation.annotation.Observed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 /**
  * OmnichannelRouter - Điều phối xử lý message và auto-reply
  */
@@ -26,6 +35,9 @@ public class OmnichannelRouter {
     private final OmnichannelMessageBus messageBus;
     private final ConversationStateService conversationStateService;
     private final ConnectorFactory connectorFactory;
+    private final MessengerUserProfileService messengerUserProfileService;
+    private final MessengerProfileEnrichmentService messengerProfileEnrichmentService;
+    private final MessagePipelineMetrics pipelineMetrics;
     
     @Value("${omnichannel.auto-reply.enabled:true}")
     private boolean autoReplyEnabled;
@@ -37,18 +49,43 @@ public class OmnichannelRouter {
      * Xử lý message từ user
      * @param unifiedMessage Message đã được chuẩn hóa
      */
+    @Observed(name = "chat.message.route", contextualName = "route message")
     @Transactional
     public void routeMessage(UnifiedMessage unifiedMessage) {
-        log.info("Routing message from platform {} user {}", unifiedMessage.getChannelType(), unifiedMessage.getPlatformUserId());
+        route(unifiedMessage);
+    }
+    
+    /**
+     * Xử lý cả batch message trong một transaction (một commit cho toàn bộ POST webhook)
+     * @param unifiedMessages Danh sách message đã được chuẩn hóa
+     */
+    @Observed(name = "chat.message.route", contextualName = "route batch")
+    @Transactional
+    public void routeBatch(List<UnifiedMessage> unifiedMessages) {
+        for (UnifiedMessage unifiedMessage : unifiedMessages) {
+            route(unifiedMessage);
+        }
+        log.debug("Routed batch of {} messages", unifiedMessages.size());
+    }
+    
+    private void route(UnifiedMessage unifiedMessage) {
+        log.debug("Routing message from platform {} user {}", unifiedMessage.getChannelType(), unifiedMessage.getPlatformUserId());
         // 1. Kiểm tra có phải user mới không (trước khi register)
+        long resolveStart = System.nanoTime();
         boolean isNewUser = userRegistryService.isNewUser(unifiedMessage);
         
         // 2. Đăng ký hoặc lấy user
         User user = userRegistryService.registerOrGetUser(unifiedMessage);
+        pipelineMetrics.recordStage(MessagePipelineMetrics.Stage.USER_RESOLUTION, unifiedMessage.getChannelType(), resolveStart);
         
         // 3. Lưu message vào DB
-        messageBus.saveInboundMessage(unifiedMessage, user);
-        log.info("Saved inbound message {} for user {}", unifiedMessage.getPlatformMessageId(), user.getId());
+        Message savedMessage = messageBus.saveInboundMessage(unifiedMessage, user);
+        log.debug("Saved inbound message {} for user {}", unifiedMessage.getPlatformMessageId(), user.getId());
+        
+        // 3b. Messenger: profile chưa có/hết hạn thì lấy async sau khi commit
+        if (user.getChannelType() == ChannelType.MESSENGER) {
+            resolveMessengerProfile(user, savedMessage);
+        }
         
         // 4. Nếu là user mới, gửi tin nhắn chào mừng
         if (isNewUser && autoReplyEnabled) {
@@ -57,26 +94,45 @@ public class OmnichannelRouter {
         }
     }
     
+    /**
+     * Dùng profile đã lưu trên User nếu còn TTL, ngược lại đăng ký lookup ở background
+     */
+    private void resolveMessengerProfile(User user, Message savedMessage) {
+        if (messengerUserProfileService.isProfileFresh(user)) {
+            messengerUserProfileService.cacheProfile(user.getPlatformUserId(),
+                new MessengerUserProfileService.UserProfile(user.getFirstName(), user.getLastName()),
+                user.getProfileFetchedAt());
+            return;
+        }
+        messengerProfileEnrichmentService.requestEnrichment(user, savedMessage);
+    }
+    
     /**
      * Gửi tin nhắn chào mừng cho user mới
+     *
+     * Message được lưu trong transaction của webhook, còn lời gọi platform API chỉ chạy sau khi commit:
+     * batch bị rollback (Messenger gửi lại cả batch) thì user chưa nhận welcome nào, không bị chào hai lần.
      */
     private void sendWelcomeMessage(User user) {
         try {
             Conversation conversation = conversationStateService.getOrCreateActiveConversation(user);
             log.debug("Using conversation {} for welcome message", conversation.getId());
             
-            // Lấy connector tương ứng
-            PlatformConnector connector = connectorFactory.getConnector(user.getChannelType());
-            
-            // Gửi message
-            connector.sendMessage(user.getPlatformUserId(), welcomeMessage);
-            log.info("Welcome message dispatched via {} connector", user.getChannelType());
-            
             // Lưu message vào DB
             messageBus.saveOutboundMessage(welcomeMessage, user, conversation);
             
-            log.info("Sent welcome message to new user: {} on platform {}", 
-                user.getPlatformUserId(), user.getChannelType());
+            // Lấy connector tương ứng, gửi sau khi commit
+            PlatformConnector connector = connectorFactory.getConnector(user.getChannelType());
+            AfterCommit.run(() -> {
+                try {
+                    connector.sendMessage(user.getPlatformUserId(), welcomeMessage);
+                    log.info("Sent welcome message to new user: {} on platform {}", 
+                        user.getPlatformUserId(), user.getChannelType());
+                } catch (Exception e) {
+                    log.error("Failed to send welcome message to {} on platform {}", 
+                        user.getPlatformUserId(), user.getChannelType(), e);
+                }
+            });
                 
         } catch (Exception e) {
             log.error("Failed to send welcome message", e);
@@ -0,0 +1,87 @@
+package com.example.chat_demo.core.service;
+
+import com.example.chat_demo.core.model.UnifiedMessage;
+import com.example.chat_demo.omnichannel.attachment.AttachmentFetcher;
+import com.example.chat_demo.omnichannel.attachment.AttachmentFetcherFactory;
+import com.example.chat_demo.storage.MediaStorageService;
+import io.micrometer.observation.annotation.Observed;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AttachmentIngestService - Stream file đính kèm từ platform thẳng lên MinIO
+ *
+ * Dùng chung cho mọi platform có AttachmentFetcher. Số lượt tải đồng thời bị giới hạn
+ * bằng semaphore để không làm cạn connection/băng thông khi nhiều file đến cùng lúc.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AttachmentIngestService {
+
+    private final AttachmentFetcherFactory fetcherFactory;
+    private final MediaStorageService mediaStorageService;
+
+    @Value("${omnichannel.attachment.max-concurrent-downloads:8}")
+    private int maxConcurrentDownloads;
+
+    @Value("${omnichannel.attachment.acquire-timeout-ms:30000}")
+    private long acquireTimeoutMs;
+
+    private Semaphore downloadPermits;
+
+    @PostConstruct
+    public void init() {
+        downloadPermits = new Semaphore(Math.max(1, maxConcurrentDownloads), true);
+    }
+
+    /**
+     * Tải attachment từ platform và upload lên MinIO
+     * @param unifiedMessage Message chứa thông tin attachment từ platform
+     * @param conversationId Conversation ID
+     * @param messageId Message ID đã lưu
+     * @param fallbackContentType Content type dùng khi platform không cung cấp
+     * @return Object key trong MinIO, null nếu platform chưa hỗ trợ hoặc lỗi
+     */
+    @Observed(name = "chat.attachment.ingest", contextualName = "ingest attachment")
+    public String ingest(UnifiedMessage unifiedMessage, Long conversationId, Long messageId,
+                         String fallbackContentType) {
+        Optional<AttachmentFetcher> fetcher = fetcherFactory.getFetcher(unifiedMessage.getChannelType());
+        if (fetcher.isEmpty()) {
+            log.debug("No attachment fetcher for {}", unifiedMessage.getChannelType());
+            return null;
+        }
+
+        boolean acquired = false;
+        try {
+            acquired = downloadPermits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+            if (!acquired) {
+                log.warn("Timed out waiting for attachment download slot for message {}", messageId);
+                return null;
+            }
+            return fetcher.get().fetch(unifiedMessage, (inputStream, contentLength, filename, contentType) ->
+                mediaStorageService.uploadFile(
+                    inputStream,
+                    filename != null ? filename : "file",
+                    contentType != null ? contentType : fallbackContentType,
+                    conversationId,
+                    messageId,
+                    contentLength
+                ));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            if (acquired) {
+                downloadPermits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.chat_demo.core.service;
+
+import com.example.chat_demo.api.dto.BroadcastProgressDto;
+import com.example.chat_demo.common.ChannelType;
+import com.example.chat_demo.core.bus.OmnichannelMessageBus;
+import com.example.chat_demo.core.model.BroadcastJob;
+import com.example.chat_demo.core.model.Conversation;
+import com.example.chat_demo.core.model.Message;
+import com.example.chat_demo.core.model.User;
+import com.example.chat_demo.core.repository.ConversationRepository;
+import com.example.chat_demo.omnichannel.connector.ConnectorFactory;
+import com.example.chat_demo.omnichannel.connector.PlatformRateLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * BroadcastService - Gửi thông báo hàng loạt tới một segment conversations
+ *
+ * Luồng: duyệt recipients bằng keyset cursor (id tăng dần) → fan-out gửi qua connector
+ * (có PlatformRateLimiter) → lưu outbound messages theo batch → publish tiến độ realtime
+ * lên /topic/broadcasts/{jobId}.
+ */
+@Slf4j
+@Service
+public class BroadcastService {
+
+    private static final Set<String> ALL_STATUSES = Set.of("OPEN", "PENDING", "CLOSED");
+    private static final LocalDateTime NO_ACTIVITY_FILTER = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final ConversationRepository conversationRepository;
+    private final OmnichannelMessageBus messageBus;
+    private final ConnectorFactory connectorFactory;
+    private final PlatformRateLimiter rateLimiter;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final Executor broadcastExecutor;
+    private final Executor broadcastSendExecutor;
+
+    private final Map<String, BroadcastJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${omnichannel.broadcast.page-size:500}")
+    private int pageSize;
+
+    @Value("${omnichannel.broadcast.retention-minutes:60}")
+    private long retentionMinutes;
+
+    @Value("${omnichannel.broadcast.max-retained-jobs:100}")
+    private int maxRetainedJobs;
+
+    public BroadcastService(ConversationRepository conversationRepository,
+                            OmnichannelMessageBus messageBus,
+                            ConnectorFactory connectorFactory,
+                            PlatformRateLimiter rateLimiter,
+                            SimpMessagingTemplate messagingTemplate,
+                            @Qualifier("broadcastExecutor") Executor broadcastExecutor,
+                            @Qualifier("broadcastSendExecutor") Executor broadcastSendExecutor) {
+        this.conversationRepository = conversationRepository;
+        this.messageBus = messageBus;
+        this.connectorFactory = connectorFactory;
+        this.rateLimiter = rateLimiter;
+        this.messagingTemplate = messagingTemplate;
+        this.broadcastExecutor = broadcastExecutor;
+        this.broadcastSendExecutor = broadcastSendExecutor;
+    }
+
+    /**
+     * Tạo và chạy broadcast job ở background
+     * @param content Nội dung gửi
+     * @param channelType Lọc theo platform (null = tất cả)
+     * @param status Lọc theo trạng thái conversation (null = tất cả)
+     * @param lastActiveWithinHours Chỉ gửi conversation có tin nhắn trong N giờ gần nhất (null = không lọc)
+     */
+    public BroadcastJob startBroadcast(String content, ChannelType channelType, String status,
+                                       Integer lastActiveWithinHours) {
+        Set<ChannelType> channelTypes = channelType != null
+            ? EnumSet.of(channelType)
+            : EnumSet.allOf(ChannelType.class);
+        Set<String> statuses = status != null ? Set.of(status.toUpperCase()) : ALL_STATUSES;
+        LocalDateTime activeSince = lastActiveWithinHours != null
+            ? LocalDateTime.now().minusHours(lastActiveWithinHours)
+            : NO_ACTIVITY_FILTER;
+
+        BroadcastJob job = new BroadcastJob(UUID.randomUUID().toString(), content,
+            channelTypes, statuses, activeSince);
+        jobs.put(job.getId(), job);
+        evictFinishedJobs();
+        log.info("Starting broadcast {} (channels={}, statuses={}, activeSince={})",
+            job.getId(), channelTypes, statuses, activeSince);
+
+        broadcastExecutor.execute(() -> runBroadcast(job));
+        return job;
+    }
+
+    public Optional<BroadcastJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    public Collection<BroadcastJob> getJobs() {
+        return jobs.values();
+    }
+
+    public Optional<BroadcastJob> cancel(String jobId) {
+        BroadcastJob job = jobs.get(jobId);
+        if (job != null && job.isRunning()) {
+            job.requestCancel();
+            log.info("Cancellation requested for broadcast {}", jobId);
+        }
+        return Optional.ofNullable(job);
+    }
+
+    /**
+     * Bỏ job đã kết thúc quá retention-minutes; vượt max-retained-jobs thì bỏ job kết thúc sớm nhất trước.
+     * Job đang chạy không bao giờ bị bỏ.
+     */
+    @Scheduled(fixedDelayString = "${omnichannel.broadcast.eviction-interval-ms:300000}")
+    public void evictFinishedJobs() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(expiredBefore));
+
+        int excess = jobs.size() - maxRetainedJobs;
+        if (excess > 0) {
+            jobs.values().stream()
+                .filter(job -> job.getFinishedAt() != null)
+                .sorted(Comparator.comparing(BroadcastJob::getFinishedAt))
+                .limit(excess)
+                .map(BroadcastJob::getId)
+                .toList()
+                .forEach(jobs::remove);
+        }
+    }
+
+    private void runBroadcast(BroadcastJob job) {
+        long afterId = 0L;
+        try {
+            while (!job.isCancelRequested()) {
+                List<Conversation> page = conversationRepository.findBroadcastPage(
+                    job.getChannelTypes(),
+                    job.getConversationStatuses(),
+                    job.getActiveSince(),
+                    NO_ACTIVITY_FILTER.equals(job.getActiveSince()),
+                    afterId,
+                    PageRequest.of(0, pageSize)
+                );
+                if (page.isEmpty()) {
+                    break;
+                }
+                job.getMatched().addAndGet(page.size());
+                afterId = page.get(page.size() - 1).getId();
+
+                List<CompletableFuture<Message>> futures = new ArrayList<>(page.size());
+                for (Conversation conversation : page) {
+                    futures.add(CompletableFuture.supplyAsync(
+                        () -> sendOne(job, conversation), broadcastSendExecutor));
+                }
+
+                List<Message> batch = new ArrayList<>(futures.size());
+                for (CompletableFuture<Message> future : futures) {
+                    Message message = future.join();
+                    if (message != null) {
+                        batch.add(message);
+                    }
+                }
+                messageBus.saveBroadcastBatch(batch);
+                publishProgress(job);
+            }
+            job.finish(job.isCancelRequested()
+                ? BroadcastJob.BroadcastStatus.CANCELLED
+                : BroadcastJob.BroadcastStatus.COMPLETED);
+        } catch (Exception e) {
+            log.error("Broadcast {} failed after conversation id {}", job.getId(), afterId, e);
+            job.setError(e.getMessage());
+            job.finish(BroadcastJob.BroadcastStatus.FAILED);
+        }
+
+        publishProgress(job);
+        log.info("Broadcast {} finished with status {} (matched={}, sent={}, failed={}, {} msg/s)",
+            job.getId(), job.getStatus(), job.getMatched().get(), job.getSent().get(),
+            job.getFailed().get(), String.format("%.1f", job.getThroughputPerSecond()));
+    }
+
+    /**
+     * Gửi tới một conversation, trả về outbound Message (chưa lưu) với status DELIVERED/FAILED
+     */
+    private Message sendOne(BroadcastJob job, Conversation conversation) {
+        if (job.isCancelRequested()) {
+            return null;
+        }
+        User user = conversation.getUser();
+        Message message = new Message();
+        message.setUser(user);
+        message.setConversation(conversation);
+        message.setContent(job.getContent());
+        message.setMessageType("text");
+        message.setDirection(Message.MessageDirection.OUTBOUND);
+
+        try {
+            String recipientId = resolveRecipientId(conversation);
+            rateLimiter.acquire(user.getChannelType());
+            connectorFactory.getConnector(user.getChannelType()).sendMessage(recipientId, job.getContent());
+            message.setStatus(Message.MessageStatus.DELIVERED);
+            message.setSentAt(LocalDateTime.now());
+            job.getSent().incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            message.setStatus(Message.MessageStatus.FAILED);
+            job.getFailed().incrementAndGet();
+        } catch (Exception e) {
+            log.warn("Broadcast {} failed for conversation {}: {}", job.getId(), conversation.getId(), e.getMessage());
+            message.setStatus(Message.MessageStatus.FAILED);
+            job.getFailed().incrementAndGet();
+        }
+        return message;
+    }
+
+    /**
+     * Discord dùng channel ID của conversation, các platform khác dùng user ID
+     */
+    private String resolveRecipientId(Conversation conversation) {
+        User user = conversation.getUser();
+        if (user.getChannelType() == ChannelType.DISCORD) {
+            String channelId = conversation.getChannelId();
+            if (channelId == null || channelId.isBlank()) {
+                throw new IllegalStateException("Discord conversation missing channel ID");
+            }
+            return channelId;
+        }
+        return user.getPlatformUserId();
+    }
+
+    private void publishProgress(BroadcastJob job) {
+        try {
+            messagingTemplate.convertAndSend("/topic/broadcasts/" + job.getId(), toProgress(job));
+        } catch (Exception e) {
+            log.warn("Failed to publish progress for broadcast {}", job.getId(), e);
+        }
+    }
+
+    public BroadcastProgressDto toProgress(BroadcastJob job) {
+        BroadcastProgressDto dto = new BroadcastProgressDto();
+        dto.setJobId(job.getId());
+        dto.setStatus(job.getStatus().name());
+        dto.setMatched(job.getMatched().get());
+        dto.setSent(job.getSent().get());
+        dto.setFailed(job.getFailed().get());
+        dto.setThroughputPerSecond(job.getThroughputPerSecond());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        dto.setError(job.getError());
+        return dto;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.chat_demo.core.service;
+
+import com.example.chat_demo.core.model.Call;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * CallLifecycleSweeper - Định kỳ kết thúc các call bị bỏ dở
+ *
+ * - INITIATED/RINGING quá call.sweeper.ring-timeout-seconds mà không ai join → ENDED (ring_timeout)
+ * - ACTIVE không có heartbeat (/app/call/heartbeat) quá call.sweeper.heartbeat-timeout-seconds → ENDED (heartbeat_timeout)
+ *
+ * Chỉ quét CallRegistry (không query DB), ghi DB bằng một câu UPDATE cho cả batch,
+ * phát call_ended tới /topic/conversations/{id}/call và đếm metric chat.calls.expired{reason}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CallLifecycleSweeper {
+
+    private static final String RING_TIMEOUT = "ring_timeout";
+    private static final String HEARTBEAT_TIMEOUT = "heartbeat_timeout";
+
+    private final CallRegistry callRegistry;
+    private final CallService callService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MeterRegistry meterRegistry;
+    private final CallMetricsService callMetricsService;
+
+    private final Map<String, Counter> expiredCounters = new HashMap<>();
+
+    @Value("${call.sweeper.ring-timeout-seconds:60}")
+    private long ringTimeoutSeconds;
+
+    @Value("${call.sweeper.heartbeat-timeout-seconds:90}")
+    private long heartbeatTimeoutSeconds;
+
+    @PostConstruct
+    void registerCounters() {
+        for (String reason : List.of(RING_TIMEOUT, HEARTBEAT_TIMEOUT)) {
+            expiredCounters.put(reason, meterRegistry.counter("chat.calls.expired", "reason", reason));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${call.sweeper.interval-ms:15000}",
+               initialDelayString = "${call.sweeper.interval-ms:15000}")
+    public void sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime ringDeadline = now.minusSeconds(ringTimeoutSeconds);
+        LocalDateTime heartbeatDeadline = now.minusSeconds(heartbeatTimeoutSeconds);
+
+        List<Call> expired = new ArrayList<>();
+        Map<Long, String> reasons = new HashMap<>();
+        Map<Long, Call.CallStatus> previousStatuses = new HashMap<>();
+
+        for (Call call : callRegistry.getActiveCalls()) {
+            // Cùng lock với CallService.updateCallStatus(Call, ...) nên không đè lên join/end đang xử lý
+            ReentrantLock lock = callRegistry.statusLock(call);
+            lock.lock();
+            try {
+                String reason = expiryReason(call, ringDeadline, heartbeatDeadline);
+                if (reason == null) {
+                    continue;
+                }
+                previousStatuses.put(call.getId(), call.getStatus());
+                call.setStatus(Call.CallStatus.ENDED);
+                call.setEndedAt(now);
+                expired.add(call);
+                reasons.put(call.getId(), reason);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        try {
+            callService.expireCalls(expired);
+        } catch (Exception e) {
+            log.error("[CALL SWEEPER] Failed to expire {} calls, will retry next sweep", expired.size(), e);
+            for (Call call : expired) {
+                ReentrantLock lock = callRegistry.statusLock(call);
+                lock.lock();
+                try {
+                    call.setStatus(previousStatuses.get(call.getId()));
+                    call.setEndedAt(null);
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return;
+        }
+
+        for (Call call : expired) {
+            String reason = reasons.get(call.getId());
+            expiredCounters.get(reason).increment();
+            callMetricsService.recordTransition(call, previousStatuses.get(call.getId()), Call.CallStatus.ENDED);
+            publishCallEnded(call, reason);
+        }
+        log.info("[CALL SWEEPER] Expired {} stale calls", expired.size());
+    }
+
+    private String expiryReason(Call call, LocalDateTime ringDeadline, LocalDateTime heartbeatDeadline) {
+        return switch (call.getStatus()) {
+            case INITIATED, RINGING -> call.getInitiatedAt() != null && call.getInitiatedAt().isBefore(ringDeadline)
+                    ? RING_TIMEOUT : null;
+            case ACTIVE -> {
+                LocalDateTime lastSeen = callRegistry.getLastHeartbeat(call.getId());
+                if (lastSeen == null) {
+                    lastSeen = call.getStartedAt() != null ? call.getStartedAt() : call.getInitiatedAt();
+                }
+                yield lastSeen != null && lastSeen.isBefore(heartbeatDeadline) ? HEARTBEAT_TIMEOUT : null;
+            }
+            default -> null;
+        };
+    }
+
+    private void publishCallEnded(Call call, String reason) {
+        try {
+            Map<String, Object> event = new HashMap<>();
+            event.put("type", "call_ended");
+            event.put("roomId", call.getJitsiRoomId());
+            event.put("callId", call.getId());
+            event.put("reason", reason);
+            messagingTemplate.convertAndSend("/topic/conversations/" + call.getConversation().getId() + "/call", event);
+        } catch (Exception e) {
+            log.warn("[CALL SWEEPER] Failed to publish call_ended for call {}", call.getId(), e);
+        }
+    }
+}
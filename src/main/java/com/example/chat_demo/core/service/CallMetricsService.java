@@ -0,0 +1,139 @@
+package com.example.chat_demo.core.service;
+
+import com.example.chat_demo.core.model.Call;
+import com.example.chat_demo.core.realtime.AfterCommit;
+import com.example.chat_demo.core.repository.CallDailyStatsRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * CallMetricsService - Metrics và thống kê ngày cho call
+ *
+ * Micrometer (qua Actuator):
+ * - chat.calls.notification.latency{channel,outcome}: thời gian gửi link call tới platform
+ * - chat.calls.ring_to_answer{channel}: từ lúc tạo call đến khi join
+ * - chat.calls.duration{channel}: thời lượng call đã được trả lời
+ * - chat.calls.outcome{channel,outcome}: answered/rejected/missed/completed
+ *   (tỷ lệ reject = rejected / (answered + rejected + missed), tức trên số call đã có kết quả đổ chuông)
+ *
+ * Đồng thời cộng dồn vào CallDailyStats (một câu upsert mỗi sự kiện) để báo cáo không scan bảng calls.
+ * Mọi sự kiện của một call được ghi vào ngày call được tạo (initiatedAt), kể cả khi kết thúc sau nửa đêm.
+ * Meter và upsert đều chạy sau khi transaction của call commit.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CallMetricsService {
+
+    private final MeterRegistry meterRegistry;
+    private final CallDailyStatsRepository callDailyStatsRepository;
+
+    public void recordNotification(Call call, long elapsedNanos, boolean success) {
+        Timer.builder("chat.calls.notification.latency")
+            .tag("channel", channelOf(call))
+            .tag("outcome", success ? "success" : "failure")
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(Duration.ofNanos(elapsedNanos));
+    }
+
+    public void recordInitiated(Call call) {
+        LocalDate statDate = statDate(call);
+        String channel = channelOf(call);
+        AfterCommit.run(() -> updateDailyStats(call, statDate, channel, 1, 0, 0, 0, 0, 0, 0));
+    }
+
+    /**
+     * Gọi khi call chuyển trạng thái (đã lưu), bỏ qua nếu trạng thái không đổi.
+     * Meter và thống kê ngày chỉ được ghi khi transaction commit: transition bị rollback không được đếm.
+     */
+    public void recordTransition(Call call, Call.CallStatus oldStatus, Call.CallStatus newStatus) {
+        if (oldStatus == newStatus) {
+            return;
+        }
+        boolean wasRinging = oldStatus == Call.CallStatus.INITIATED || oldStatus == Call.CallStatus.RINGING;
+
+        String outcome;
+        if (newStatus == Call.CallStatus.ACTIVE && wasRinging) {
+            outcome = "answered";
+        } else if (newStatus == Call.CallStatus.REJECTED) {
+            outcome = "rejected";
+        } else if (newStatus == Call.CallStatus.ENDED && wasRinging) {
+            outcome = "missed";
+        } else if (newStatus == Call.CallStatus.ENDED && oldStatus == Call.CallStatus.ACTIVE) {
+            outcome = "completed";
+        } else {
+            return;
+        }
+        // Chốt giá trị ngay: instance có thể bị sửa tiếp trước khi callback after-commit chạy
+        long ringToAnswerMs = outcome.equals("answered") ? millisBetween(call.getInitiatedAt(), call.getStartedAt()) : 0;
+        long durationMs = outcome.equals("completed") ? millisBetween(call.getStartedAt(), call.getEndedAt()) : 0;
+        LocalDate statDate = statDate(call);
+        String channel = channelOf(call);
+        AfterCommit.run(() -> recordOutcome(call, statDate, channel, outcome, ringToAnswerMs, durationMs));
+    }
+
+    private void recordOutcome(Call call, LocalDate statDate, String channel, String outcome,
+                               long ringToAnswerMs, long durationMs) {
+        switch (outcome) {
+            case "answered" -> timer("chat.calls.ring_to_answer", channel).record(Duration.ofMillis(ringToAnswerMs));
+            case "completed" -> timer("chat.calls.duration", channel).record(Duration.ofMillis(durationMs));
+            default -> {
+            }
+        }
+        meterRegistry.counter("chat.calls.outcome", "channel", channel, "outcome", outcome).increment();
+        updateDailyStats(call, statDate, channel, 0,
+            outcome.equals("answered") ? 1 : 0,
+            outcome.equals("rejected") ? 1 : 0,
+            outcome.equals("missed") ? 1 : 0,
+            outcome.equals("completed") ? 1 : 0,
+            ringToAnswerMs, durationMs);
+    }
+
+    private Timer timer(String name, String channel) {
+        return Timer.builder(name)
+            .tag("channel", channel)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    }
+
+    /**
+     * Upsert CallDailyStats; gọi từ callback after-commit (không đăng ký AfterCommit lồng nhau)
+     */
+    private void updateDailyStats(Call call, LocalDate statDate, String channel, long initiated, long answered,
+                                  long rejected, long missed, long completed, long ringToAnswerMs, long durationMs) {
+        try {
+            callDailyStatsRepository.increment(statDate, channel, initiated, answered, rejected,
+                missed, completed, ringToAnswerMs, durationMs);
+        } catch (Exception e) {
+            // Thống kê không được làm hỏng luồng call
+            log.warn("[CALL METRICS] Failed to update daily stats for call {}: {}", call.getId(), e.getMessage());
+        }
+    }
+
+    private LocalDate statDate(Call call) {
+        return call.getInitiatedAt() != null ? call.getInitiatedAt().toLocalDate() : LocalDate.now();
+    }
+
+    private String channelOf(Call call) {
+        if (call.getConversation() == null || call.getConversation().getUser() == null
+                || call.getConversation().getUser().getChannelType() == null) {
+            return "UNKNOWN";
+        }
+        return call.getConversation().getUser().getChannelType().name();
+    }
+
+    private long millisBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) {
+            return 0;
+        }
+        return Math.max(0, Duration.between(from, to).toMillis());
+    }
+}
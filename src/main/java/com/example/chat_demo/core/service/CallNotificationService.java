@@ -0,0 +1,61 @@
+package com.example.chat_demo.core.service;
+
+import com.example.chat_demo.core.model.Call;
+import com.example.chat_demo.core.model.User;
+import com.example.chat_demo.omnichannel.connector.ConnectorFactory;
+import com.example.chat_demo.omnichannel.connector.PlatformConnector;
+import com.example.chat_demo.omnichannel.connector.TelegramConnector;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * CallNotificationService - Gửi link call cho customer ở background và đo latency gửi
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CallNotificationService {
+
+    private final ConnectorFactory connectorFactory;
+    private final CallMetricsService callMetricsService;
+
+    /**
+     * Gửi notification async để không block response
+     * Tối ưu: Response trả về ngay, notification gửi ở background
+     */
+    @Async("callNotificationExecutor")
+    public CompletableFuture<Void> sendCallNotificationAsync(Call call, User user) {
+        long start = System.nanoTime();
+        try {
+            String recipientId = user.getPlatformUserId();
+            // Hiển thị link trong message (giống Google Meet) + button để mở tab mới
+            String messageText = "Bấm để tham gia cuộc gọi:\n" + call.getJitsiRoomUrl();
+            
+            PlatformConnector connector = connectorFactory.getConnector(user.getChannelType());
+            if (connector instanceof TelegramConnector telegramConnector) {
+                telegramConnector.sendMessageWithButton(
+                    recipientId,
+                    messageText,
+                    "Join Call",
+                    call.getJitsiRoomUrl()
+                );
+                log.info("Sent call notification to Telegram user {} with room URL {}", recipientId, call.getJitsiRoomUrl());
+            } else {
+                // Platform khác: gửi text message với link
+                connector.sendMessage(recipientId, messageText);
+                log.info("Sent call notification to {} user {} with room URL {}", 
+                    user.getChannelType(), recipientId, call.getJitsiRoomUrl());
+            }
+            callMetricsService.recordNotification(call, System.nanoTime() - start, true);
+            return CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            callMetricsService.recordNotification(call, System.nanoTime() - start, false);
+            log.error("Failed to send call notification for call {} to user {}", call.getId(), user.getId(), e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.chat_demo.core.service;
+
+import com.example.chat_demo.core.model.Call;
+import com.example.chat_demo.core.repository.CallRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * CallRegistry - Giữ các call đang diễn ra (INITIATED/RINGING/ACTIVE) trong memory
+ *
+ * Index theo room ID đã chuẩn hóa (lowercase) và theo call ID để signaling tra cứu O(1)
+ * không cần đọc DB. CallService ghi DB trước rồi mới cập nhật registry sau khi transaction commit
+ * (write-through); khi khởi động registry được nạp lại từ các call chưa kết thúc trong DB.
+ * Gỡ entry luôn theo call ID: Call là @Data nên equals() so cả conversation (lazy collection),
+ * instance load từ DB không bao giờ equals instance đang nằm trong registry.
+ *
+ * Đổi trạng thái call được khóa theo call ID bằng ReentrantLock (striped) thay vì synchronized trên entity:
+ * trong lock có ghi DB, synchronized sẽ ghim carrier thread khi chạy virtual thread.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CallRegistry {
+
+    public static final List<Call.CallStatus> ACTIVE_STATUSES = List.of(
+        Call.CallStatus.INITIATED,
+        Call.CallStatus.RINGING,
+        Call.CallStatus.ACTIVE
+    );
+
+    private final CallRepository callRepository;
+
+    private final Map<String, Call> callsByRoom = new ConcurrentHashMap<>();
+    private final Map<Long, Call> callsById = new ConcurrentHashMap<>();
+    private final Map<Long, LocalDateTime> lastHeartbeats = new ConcurrentHashMap<>();
+    private final ReentrantLock[] statusLocks = newStatusLocks(64);
+
+    @PostConstruct
+    public void rehydrate() {
+        List<Call> activeCalls = callRepository.findByStatusIn(ACTIVE_STATUSES);
+        activeCalls.forEach(this::put);
+        log.info("[CALL REGISTRY] Rehydrated {} active calls", activeCalls.size());
+    }
+
+    public Optional<Call> findByRoomId(String roomId) {
+        if (roomId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(callsByRoom.get(normalize(roomId)));
+    }
+
+    public Optional<Call> findById(Long callId) {
+        return Optional.ofNullable(callsById.get(callId));
+    }
+
+    public Collection<Call> getActiveCalls() {
+        return callsById.values();
+    }
+
+    /**
+     * Ghi nhận heartbeat của client đang trong call (chỉ trong memory)
+     * @return true nếu room thuộc một call đang diễn ra
+     */
+    public boolean heartbeat(String roomId) {
+        return findByRoomId(roomId)
+            .map(call -> {
+                lastHeartbeats.put(call.getId(), LocalDateTime.now());
+                return true;
+            })
+            .orElse(false);
+    }
+
+    /**
+     * Heartbeat cuối cùng của call, null nếu chưa có
+     */
+    public LocalDateTime getLastHeartbeat(Long callId) {
+        return lastHeartbeats.get(callId);
+    }
+
+    /**
+     * Cập nhật registry sau khi call đã được lưu: call kết thúc thì bị gỡ khỏi registry
+     */
+    public void update(Call call) {
+        if (ACTIVE_STATUSES.contains(call.getStatus())) {
+            put(call);
+        } else {
+            remove(call);
+        }
+    }
+
+    public void remove(Call call) {
+        Call registered = callsById.remove(call.getId());
+        lastHeartbeats.remove(call.getId());
+        removeRoom(call.getJitsiRoomId(), call.getId());
+        if (registered != null && registered != call) {
+            removeRoom(registered.getJitsiRoomId(), call.getId());
+        }
+    }
+
+    private void put(Call call) {
+        Call previous = callsById.put(call.getId(), call);
+        if (previous != null && previous != call) {
+            removeRoom(previous.getJitsiRoomId(), previous.getId());
+        }
+        callsByRoom.put(normalize(call.getJitsiRoomId()), call);
+    }
+
+    private void removeRoom(String roomId, Long callId) {
+        if (roomId == null) {
+            return;
+        }
+        callsByRoom.computeIfPresent(normalize(roomId),
+            (key, registered) -> callId.equals(registered.getId()) ? null : registered);
+    }
+
+    /**
+     * Lock dùng chung cho mọi thao tác đổi trạng thái của call (signaling, REST, sweeper)
+     */
+    public ReentrantLock statusLock(Call call) {
+        return statusLocks[Math.floorMod(Long.hashCode(call.getId()), statusLocks.length)];
+    }
+
+    private static ReentrantLock[] newStatusLocks(int stripes) {
+        ReentrantLock[] locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    static String normalize(String roomId) {
+        return roomId.trim().toLowerCase(Locale.ROOT);
+    }
+}
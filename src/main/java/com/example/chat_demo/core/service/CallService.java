@@ -2,6 +2,7 @@ package com.example.chat_demo.core.service;
 
 import com.example.chat_demo.core.model.Call;
 import com.example.chat_demo.core.model.Conversation;
+import com.example.chat_demo.core.realtime.AfterCommit;
 import com.example.chat_demo.core.repository.CallRepository;
 import com.example.chat_demo.core.repository.ConversationRepository;
 import lombok.RequiredArgsConstructor;
@@ -12,9 +13,13 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * CallService - Service quản lý cuộc gọi (call) với Jitsi
+ * Call đang diễn ra được tra cứu qua CallRegistry; mọi thay đổi ghi DB trước rồi cập nhật registry
+ * sau khi transaction commit (rollback thì registry giữ nguyên, instance dùng chung đã sửa được trả lại
+ * trạng thái cũ). Metrics của call cũng chỉ được ghi sau commit (CallMetricsService).
  */
 @Slf4j
 @Service
@@ -24,6 +29,8 @@ public class CallService {
     private final CallRepository callRepository;
     private final ConversationRepository conversationRepository;
     private final JitsiService jitsiService;
+    private final CallRegistry callRegistry;
+    private final CallMetricsService callMetricsService;
     
     /**
      * Tạo cuộc gọi mới từ Staff
@@ -34,32 +41,30 @@ public class CallService {
      */
     @Transactional
     public Call initiateCall(Long conversationId) {
-        log.info("[CALL SERVICE] Initiating call for conversation {}", conversationId);
+        log.debug("[CALL SERVICE] Initiating call for conversation {}", conversationId);
         
         Conversation conversation = conversationRepository.findById(conversationId)
             .orElseThrow(() -> new RuntimeException("Conversation not found: " + conversationId));
         
         // Kiểm tra xem có call đang active không
-        List<Call.CallStatus> activeStatuses = List.of(
-            Call.CallStatus.INITIATED, 
-            Call.CallStatus.RINGING, 
-            Call.CallStatus.ACTIVE
-        );
-        callRepository.findFirstByConversationAndStatusInOrderByInitiatedAtDesc(conversation, activeStatuses)
+        callRepository.findFirstByConversationAndStatusInOrderByInitiatedAtDesc(conversation, CallRegistry.ACTIVE_STATUSES)
             .ifPresent(existingCall -> {
                 log.warn("[CALL SERVICE] Conversation {} already has active call {} (status: {}). Ending previous call.",
                     conversationId, existingCall.getId(), existingCall.getStatus());
                 // End call cũ
+                Call.CallStatus previousStatus = existingCall.getStatus();
                 existingCall.setStatus(Call.CallStatus.ENDED);
                 existingCall.setEndedAt(LocalDateTime.now());
                 callRepository.save(existingCall);
+                AfterCommit.run(() -> callRegistry.remove(existingCall));
+                callMetricsService.recordTransition(existingCall, previousStatus, Call.CallStatus.ENDED);
                 log.info("[CALL SERVICE] Previous call {} ended (status changed to ENDED)", existingCall.getId());
             });
         
         // Tạo Jitsi room
         String roomId = jitsiService.generateRoomId(conversationId);
         String roomUrl = jitsiService.buildRoomUrl(roomId);
-        log.info("[CALL SERVICE] Generated Jitsi room - RoomId: {}, RoomUrl: {}", roomId, roomUrl);
+        log.debug("[CALL SERVICE] Generated Jitsi room - RoomId: {}, RoomUrl: {}", roomId, roomUrl);
         
         // Lưu call vào DB
         Call call = new Call();
@@ -69,11 +74,12 @@ public class CallService {
         call.setStatus(Call.CallStatus.INITIATED);
         call.setInitiatedBy("staff");
         
-        call = callRepository.save(call);
-        log.info("[CALL SERVICE] Call saved - ID: {}, Status: INITIATED, RoomId: {}, ConversationId: {}, InitiatedAt: {}", 
-            call.getId(), roomId, conversationId, call.getInitiatedAt());
+        Call saved = callRepository.save(call);
+        AfterCommit.run(() -> callRegistry.update(saved));
+        callMetricsService.recordInitiated(saved);
+        log.info("[CALL SERVICE] Call {} initiated for conversation {} (room {})", saved.getId(), conversationId, roomId);
         
-        return call;
+        return saved;
     }
     
     /**
@@ -86,40 +92,87 @@ public class CallService {
      */
     @Transactional
     public Call updateCallStatus(Long callId, Call.CallStatus newStatus) {
-        log.info("[CALL SERVICE] ===== UPDATE CALL STATUS =====");
-        log.info("[CALL SERVICE] Updating call {} status to {}", callId, newStatus);
-        
-        Call call = callRepository.findById(callId)
+        Call call = callRegistry.findById(callId)
+            .or(() -> callRepository.findById(callId))
             .orElseThrow(() -> {
                 log.error("[CALL SERVICE] Call not found: {}", callId);
                 return new RuntimeException("Call not found: " + callId);
             });
-        
-        Call.CallStatus oldStatus = call.getStatus();
-        log.info("[CALL SERVICE] Current call state - ID: {}, OldStatus: {}, RoomId: {}, ConversationId: {}, InitiatedAt: {}, StartedAt: {}, EndedAt: {}", 
-            call.getId(), oldStatus, call.getJitsiRoomId(), call.getConversation().getId(), 
-            call.getInitiatedAt(), call.getStartedAt(), call.getEndedAt());
-        
-        call.setStatus(newStatus);
-        
-        if (newStatus == Call.CallStatus.ACTIVE && call.getStartedAt() == null) {
-            call.setStartedAt(LocalDateTime.now());
-            log.info("[CALL SERVICE] Call {} started at {}", callId, call.getStartedAt());
-        } else if (newStatus == Call.CallStatus.ENDED || newStatus == Call.CallStatus.REJECTED) {
-            call.setEndedAt(LocalDateTime.now());
-            log.info("[CALL SERVICE] Call {} ended at {}", callId, call.getEndedAt());
+        return updateCallStatus(call, newStatus);
+    }
+    
+    /**
+     * Cập nhật trạng thái call đã có trong tay (từ CallRegistry), không đọc lại DB
+     * 
+     * @param call Call entity
+     * @param newStatus Status mới
+     * @return Call entity đã cập nhật
+     */
+    @Transactional
+    public Call updateCallStatus(Call call, Call.CallStatus newStatus) {
+        Call.CallStatus oldStatus;
+        // Instance trong registry được dùng chung giữa các frame signaling của cùng room
+        ReentrantLock lock = callRegistry.statusLock(call);
+        lock.lock();
+        try {
+            oldStatus = call.getStatus();
+            LocalDateTime oldStartedAt = call.getStartedAt();
+            LocalDateTime oldEndedAt = call.getEndedAt();
+            // Đăng ký trước khi sửa: save lỗi (rollback) cũng phải trả instance về trạng thái cũ
+            AfterCommit.run(() -> callRegistry.update(call),
+                () -> restore(call, oldStatus, oldStartedAt, oldEndedAt));
+            call.setStatus(newStatus);
+            
+            if (newStatus == Call.CallStatus.ACTIVE && call.getStartedAt() == null) {
+                call.setStartedAt(LocalDateTime.now());
+            } else if (newStatus == Call.CallStatus.ENDED || newStatus == Call.CallStatus.REJECTED) {
+                call.setEndedAt(LocalDateTime.now());
+            }
+            
+            callRepository.save(call);
+        } finally {
+            lock.unlock();
         }
+        callMetricsService.recordTransition(call, oldStatus, newStatus);
         
-        call = callRepository.save(call);
-        log.info("[CALL SERVICE] Status updated - ID: {}, OldStatus: {}, NewStatus: {}, RoomId: {}", 
-            call.getId(), oldStatus, newStatus, call.getJitsiRoomId());
-        log.info("[CALL SERVICE] Updated call state - ID: {}, Status: {}, StartedAt: {}, EndedAt: {}", 
-            call.getId(), call.getStatus(), call.getStartedAt(), call.getEndedAt());
-        log.info("[CALL SERVICE] ===== UPDATE CALL STATUS COMPLETE =====");
+        log.info("[CALL SERVICE] Call {} status {} -> {}", call.getId(), oldStatus, newStatus);
         
         return call;
     }
     
+    private void restore(Call call, Call.CallStatus status, LocalDateTime startedAt, LocalDateTime endedAt) {
+        ReentrantLock lock = callRegistry.statusLock(call);
+        lock.lock();
+        try {
+            call.setStatus(status);
+            call.setStartedAt(startedAt);
+            call.setEndedAt(endedAt);
+        } finally {
+            lock.unlock();
+        }
+        log.warn("[CALL SERVICE] Transaction rolled back, call {} restored to {}", call.getId(), status);
+    }
+    
+    /**
+     * Kết thúc các call đã được sweeper đánh dấu ENDED trong memory bằng một câu UPDATE
+     * 
+     * @param calls Các call (instance trong registry) đã chuyển sang ENDED
+     * @return Số row đã cập nhật
+     */
+    @Transactional
+    public int expireCalls(List<Call> calls) {
+        if (calls.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = calls.stream().map(Call::getId).toList();
+        int updated = callRepository.updateStatusForIds(
+            ids, Call.CallStatus.ENDED, LocalDateTime.now(), CallRegistry.ACTIVE_STATUSES);
+        // Commit lỗi thì call vẫn còn trong registry để sweeper thử lại lượt sau
+        AfterCommit.run(() -> calls.forEach(callRegistry::remove));
+        log.info("[CALL SERVICE] Expired {} calls ({} rows updated)", ids.size(), updated);
+        return updated;
+    }
+    
     /**
      * Lấy call theo room ID (case-insensitive)
      * 
@@ -128,9 +181,14 @@ public class CallService {
      * @throws RuntimeException nếu không tìm thấy
      */
     public Call findByRoomId(String roomId) {
-        log.info("[CALL SERVICE] Finding call by room ID: {}", roomId);
+        // Call đang diễn ra: tra cứu O(1) trong registry
+        Optional<Call> active = callRegistry.findByRoomId(roomId);
+        if (active.isPresent()) {
+            log.debug("[CALL SERVICE] Call {} found in registry for room {}", active.get().getId(), roomId);
+            return active.get();
+        }
         
-        // Thử tìm exact match trước
+        // Call đã kết thúc (lịch sử): thử exact match trước
         Optional<Call> call = callRepository.findByJitsiRoomId(roomId);
         
         // Nếu không tìm thấy, thử case-insensitive
@@ -140,7 +198,7 @@ public class CallService {
         }
         
         if (call.isPresent()) {
-            log.info("[CALL SERVICE] Call found - ID: {}, RoomId: {}, Status: {}", 
+            log.debug("[CALL SERVICE] Call found - ID: {}, RoomId: {}, Status: {}", 
                 call.get().getId(), call.get().getJitsiRoomId(), call.get().getStatus());
             return call.get();
         }
@@ -158,7 +216,8 @@ public class CallService {
      */
     public Call findById(Long callId) {
         log.debug("Finding call by ID: {}", callId);
-        return callRepository.findById(callId)
+        return callRegistry.findById(callId)
+            .or(() -> callRepository.findById(callId))
             .orElseThrow(() -> new RuntimeException("Call not found: " + callId));
     }
     
@@ -182,25 +241,21 @@ public class CallService {
      * @return Call entity nếu có active call, null nếu không
      */
     public Call getActiveCall(Long conversationId) {
-        log.info("[CALL SERVICE] Getting active call for conversation {}", conversationId);
+        log.debug("[CALL SERVICE] Getting active call for conversation {}", conversationId);
         Conversation conversation = conversationRepository.findById(conversationId)
             .orElseThrow(() -> new RuntimeException("Conversation not found: " + conversationId));
         
-        List<Call.CallStatus> activeStatuses = List.of(
-            Call.CallStatus.INITIATED, 
-            Call.CallStatus.RINGING, 
-            Call.CallStatus.ACTIVE
-        );
-        
-        Call activeCall = callRepository.findFirstByConversationAndStatusInOrderByInitiatedAtDesc(conversation, activeStatuses)
+        Call activeCall = callRepository.findFirstByConversationAndStatusInOrderByInitiatedAtDesc(conversation, CallRegistry.ACTIVE_STATUSES)
             .orElse(null);
         
-        if (activeCall != null) {
-            log.info("[CALL SERVICE] Active call found - ID: {}, Status: {}, RoomId: {}, ConversationId: {}, InitiatedAt: {}", 
-                activeCall.getId(), activeCall.getStatus(), activeCall.getJitsiRoomId(), 
-                conversationId, activeCall.getInitiatedAt());
-        } else {
-            log.info("[CALL SERVICE] No active call found for conversation {}", conversationId);
+        if (log.isDebugEnabled()) {
+            if (activeCall != null) {
+                log.debug("[CALL SERVICE] Active call found - ID: {}, Status: {}, RoomId: {}, ConversationId: {}, InitiatedAt: {}", 
+                    activeCall.getId(), activeCall.getStatus(), activeCall.getJitsiRoomId(), 
+                    conversationId, activeCall.getInitiatedAt());
+            } else {
+                log.debug("[CALL SERVICE] No active call found for conversation {}", conversationId);
+            }
         }
         
         return activeCall;
@@ -3,6 +3,7 @@ package com.example.chat_demo.core.service;
 import com.example.chat_demo.core.model.Conversation;
 import com.example.chat_demo.core.model.User;
 import com.example.chat_demo.core.repository.ConversationRepository;
+import com.example.chat_demo.core.realtime.InboxEventPublisher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -19,6 +20,7 @@ import java.time.LocalDateTime;
 public class ConversationStateService {
     
     private final ConversationRepository conversationRepository;
+    private final InboxEventPublisher inboxEventPublisher;
     
     /**
      * Lấy hoặc tạo conversation đang mở cho user
@@ -56,9 +58,13 @@ public class ConversationStateService {
     @Transactional
     public void closeConversation(Long conversationId) {
         conversationRepository.findById(conversationId).ifPresent(conversation -> {
+            String previousStatus = conversation.getStatus();
             conversation.setStatus("CLOSED");
             conversation.setClosedAt(LocalDateTime.now());
             conversationRepository.save(conversation);
+            if (!"CLOSED".equals(previousStatus)) {
+                inboxEventPublisher.publishStatusChange(conversation, previousStatus);
+            }
         });
     }
 }
@@ -0,0 +1,173 @@
+package com.example.chat_demo.core.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DiscordEventDispatcher - Chuyển event Discord khỏi thread của JDA sang worker pool
+ *
+ * Worker pool chia thành nhiều "lane", mỗi lane là một thread với queue có giới hạn.
+ * Event cùng channel luôn vào cùng lane nên giữ đúng thứ tự; các channel khác nhau
+ * xử lý song song. Thread JDA không bao giờ chờ (nếu không mọi channel khác và heartbeat của gateway
+ * cũng bị chặn theo), nhưng message của khách cũng không được mất vì gateway không gửi lại:
+ * - queue của lane đầy: event tràn sang overflow của lane (chat.discord.events.spilled), worker
+ *   chuyển dần về queue theo đúng thứ tự; đã có event trong overflow thì event mới cũng vào overflow
+ * - overflow cũng đầy (platform.discord.worker.overflow-capacity): mới bỏ event, log ERROR kèm
+ *   channel/message/author để tải lại từ lịch sử Discord (chat.discord.events.dropped)
+ * Typing không đi qua dispatcher (xử lý ngay trên thread JDA, chỉ đọc cache).
+ * Mỗi event chạy trong observation chat.discord.event (span gốc của trace, tương tự request webhook).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DiscordEventDispatcher {
+
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${platform.discord.worker.lanes:8}")
+    private int laneCount;
+
+    @Value("${platform.discord.worker.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${platform.discord.worker.overflow-capacity:50000}")
+    private int overflowCapacity;
+
+    private Lane[] lanes;
+    private Counter spilledEvents;
+    private Counter droppedEvents;
+
+    @PostConstruct
+    public void init() {
+        lanes = new Lane[Math.max(1, laneCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane("discord-event-" + i);
+        }
+        spilledEvents = Counter.builder("chat.discord.events.spilled")
+            .description("Discord events moved to the lane overflow because the lane queue was full")
+            .register(meterRegistry);
+        droppedEvents = Counter.builder("chat.discord.events.dropped")
+            .description("Discord events dropped because both the lane queue and its overflow were full")
+            .register(meterRegistry);
+        Gauge.builder("chat.discord.events.queued", this, DiscordEventDispatcher::getQueuedEvents)
+            .description("Discord events waiting in the worker lanes")
+            .register(meterRegistry);
+        log.info("Discord event dispatcher started with {} lanes (queue capacity {})", lanes.length, queueCapacity);
+    }
+
+    /**
+     * Đưa task vào lane theo key (channel ID) để giữ thứ tự trong cùng channel
+     * @param description mô tả event (channel, message, author) để log khi phải bỏ event
+     */
+    public void dispatch(String orderingKey, String description, Runnable task) {
+        int index = orderingKey == null ? 0 : Math.floorMod(orderingKey.hashCode(), lanes.length);
+        lanes[index].submit(description, () -> Observation.createNotStarted("chat.discord.event", observationRegistry)
+            .contextualName("discord event")
+            .observe(task));
+    }
+
+    public long getDroppedEvents() {
+        return (long) droppedEvents.count();
+    }
+
+    public int getQueuedEvents() {
+        int queued = 0;
+        for (Lane lane : lanes) {
+            queued += lane.queuedEvents();
+        }
+        return queued;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (lanes == null) {
+            return;
+        }
+        for (Lane lane : lanes) {
+            lane.executor.shutdown();
+        }
+        for (Lane lane : lanes) {
+            try {
+                if (!lane.executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    lane.executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                lane.executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Một thread + queue có giới hạn + overflow; thứ tự giữ được vì mọi thao tác thêm/chuyển đều trong lock
+     * của lane (chỉ thao tác queue trong memory, không I/O)
+     */
+    private final class Lane {
+
+        private final ThreadPoolExecutor executor;
+        private final Deque<Runnable> overflow = new ArrayDeque<>();
+
+        private Lane(String threadName) {
+            AtomicInteger created = new AtomicInteger();
+            executor = new ThreadPoolExecutor(
+                1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, threadName + "-" + created.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            ) {
+                @Override
+                protected void afterExecute(Runnable runnable, Throwable error) {
+                    drainOverflow();
+                }
+            };
+            // Task được đưa thẳng vào queue nên worker phải có sẵn
+            executor.prestartCoreThread();
+        }
+
+        void submit(String description, Runnable task) {
+            synchronized (this) {
+                if (overflow.isEmpty() && executor.getQueue().offer(task)) {
+                    return;
+                }
+                if (overflow.size() < overflowCapacity) {
+                    overflow.addLast(task);
+                    spilledEvents.increment();
+                    return;
+                }
+            }
+            droppedEvents.increment();
+            log.error("Discord event lane and overflow are full, dropped {} (total dropped: {})",
+                description, getDroppedEvents());
+        }
+
+        private synchronized void drainOverflow() {
+            while (!overflow.isEmpty() && executor.getQueue().offer(overflow.peekFirst())) {
+                overflow.pollFirst();
+            }
+        }
+
+        private synchronized int queuedEvents() {
+            return executor.getQueue().size() + overflow.size();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.chat_demo.core.service;
+
+import lombok.RequiredArgsConstructor;
+import net.dv8tion.jda.api.JDA;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * DiscordGatewayHealthIndicator - Trạng thái Discord gateway cho /actuator/health (nằm trong nhóm readiness)
+ *
+ * - Discord tắt (không có token): UP
+ * - Đang login/kết nối lần đầu: OUT_OF_SERVICE → readiness 503, chưa nhận traffic
+ * - Đã CONNECTED lần đầu: UP, kể cả khi JDA đang tự reconnect (chỉ báo trong detail, kèm status từng shard
+ *   và gateway ping lớn nhất giữa các shard)
+ * - Login lỗi lúc khởi động: UNKNOWN kèm lỗi, không chặn Telegram/Messenger
+ */
+@Component
+@RequiredArgsConstructor
+public class DiscordGatewayHealthIndicator implements HealthIndicator {
+
+    private final DiscordGatewayService discordGatewayService;
+
+    @Override
+    public Health health() {
+        if (!discordGatewayService.isEnabled()) {
+            return Health.up().withDetail("gateway", "disabled").build();
+        }
+        String failure = discordGatewayService.getStartupFailure();
+        if (failure != null) {
+            return Health.unknown().withDetail("error", failure).build();
+        }
+        if (!discordGatewayService.isInitialConnectCompleted()) {
+            return Health.outOfService().withDetail("gateway", "connecting").build();
+        }
+        Health.Builder builder = Health.up()
+                .withDetail("gateway", discordGatewayService.isReady() ? "connected" : "reconnecting");
+        List<JDA> shards = discordGatewayService.getShards();
+        Map<String, String> statuses = new TreeMap<>(Comparator.comparingInt(Integer::parseInt));
+        long maxPing = -1;
+        for (JDA shard : shards) {
+            statuses.put(String.valueOf(shard.getShardInfo().getShardId()), shard.getStatus().name());
+            maxPing = Math.max(maxPing, shard.getGatewayPing());
+        }
+        builder.withDetail("shardsStarted", shards.size())
+                .withDetail("shardsTotal", discordGatewayService.getShardsTotal())
+                .withDetail("shardStatus", statuses);
+        if (maxPing >= 0) {
+            builder.withDetail("maxGatewayPingMillis", maxPing);
+        }
+        return builder.build();
+    }
+}
@@ -2,15 +2,23 @@ package com.example.chat_demo.core.service;
 
 import com.example.chat_demo.common.ChannelType;
 import com.example.chat_demo.core.model.UnifiedMessage;
+import com.example.chat_demo.core.realtime.ConversationRecipientCache;
+import com.example.chat_demo.core.realtime.PresenceService;
 import com.example.chat_demo.core.router.OmnichannelRouter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import net.dv8tion.jda.api.events.StatusChangeEvent;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.events.user.UserTypingEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.sharding.DefaultShardManagerBuilder;
+import net.dv8tion.jda.api.sharding.ShardManager;
 import net.dv8tion.jda.api.utils.MemberCachePolicy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -19,21 +27,51 @@ import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.List;
 
 /**
  * DiscordGatewayService - Lắng nghe tin nhắn từ Discord thông qua JDA
+ *
+ * Event được chuyển sang DiscordEventDispatcher (worker pool theo channel) để thread
+ * của JDA không bị block bởi DB/MinIO. Với bot lớn, đặt platform.discord.shard-count > 0
+ * để dùng DefaultShardManager.
+ *
+ * platform.discord.background-connect=true: login JDA trên thread riêng, không chặn khởi động context;
+ * DiscordGatewayHealthIndicator giữ readiness ở OUT_OF_SERVICE tới khi mọi shard CONNECTED lần đầu.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class DiscordGatewayService extends ListenerAdapter {
 
+    private static final List<GatewayIntent> INTENTS = List.of(
+            GatewayIntent.GUILD_MESSAGES,
+            GatewayIntent.MESSAGE_CONTENT,
+            GatewayIntent.DIRECT_MESSAGES,
+            GatewayIntent.GUILD_MESSAGE_TYPING,
+            GatewayIntent.DIRECT_MESSAGE_TYPING
+    );
+
     private final OmnichannelRouter router;
+    private final DiscordEventDispatcher eventDispatcher;
+    private final PresenceService presenceService;
+    private final ConversationRecipientCache recipientCache;
 
     @Value("${platform.discord.bot-token:}")
     private String botToken;
 
-    private JDA jda;
+    // 0 = một JDA instance (không shard); > 0 = số shard của DefaultShardManager
+    @Value("${platform.discord.shard-count:0}")
+    private int shardCount;
+
+    @Value("${platform.discord.background-connect:false}")
+    private boolean backgroundConnect;
+
+    private volatile JDA jda;
+    private volatile ShardManager shardManager;
+    private volatile boolean enabled;
+    private volatile boolean initialConnectCompleted;
+    private volatile String startupFailure;
 
     @PostConstruct
     public void start() {
@@ -41,26 +79,51 @@ public class DiscordGatewayService extends ListenerAdapter {
             log.warn("Discord bot token is not configured. Discord gateway will not start.");
             return;
         }
+        enabled = true;
+
+        if (backgroundConnect) {
+            Thread.ofPlatform()
+                    .name("discord-gateway-connect")
+                    .daemon()
+                    .start(this::connect);
+            log.info("Discord gateway connecting in background");
+        } else {
+            connect();
+        }
+    }
 
+    private void connect() {
         try {
-            jda = JDABuilder.createDefault(botToken)
-                    .enableIntents(
-                            GatewayIntent.GUILD_MESSAGES,
-                            GatewayIntent.MESSAGE_CONTENT,
-                            GatewayIntent.DIRECT_MESSAGES
-                    )
-                    .setMemberCachePolicy(MemberCachePolicy.NONE)
-                    .addEventListeners(this)
-                    .build();
-
-            log.info("Discord gateway started successfully");
+            if (shardCount > 0) {
+                shardManager = DefaultShardManagerBuilder.createDefault(botToken)
+                        .enableIntents(INTENTS)
+                        .setMemberCachePolicy(MemberCachePolicy.NONE)
+                        .setShardsTotal(shardCount)
+                        .addEventListeners(this)
+                        .build();
+                log.info("Discord gateway started with {} shards", shardCount);
+            } else {
+                jda = JDABuilder.createDefault(botToken)
+                        .enableIntents(INTENTS)
+                        .setMemberCachePolicy(MemberCachePolicy.NONE)
+                        .addEventListeners(this)
+                        .build();
+                log.info("Discord gateway started successfully");
+            }
+            // Status CONNECTED có thể tới trước khi jda/shardManager được gán
+            markConnectedIfReady();
         } catch (Exception e) {
+            startupFailure = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
             log.error("Failed to start Discord gateway", e);
         }
     }
 
     @PreDestroy
     public void shutdown() {
+        if (shardManager != null) {
+            log.info("Shutting down Discord shard manager");
+            shardManager.shutdown();
+        }
         if (jda != null) {
             log.info("Shutting down Discord gateway");
             jda.shutdownNow();
@@ -68,19 +131,97 @@ public class DiscordGatewayService extends ListenerAdapter {
     }
 
     /**
-     * Trả về instance JDA hiện tại để các API khác sử dụng.
+     * Trả về instance JDA hiện tại để các API khác sử dụng (shard 0 khi chạy sharded).
+     * Trạng thái/guild của cả gateway thì dùng getShards(), getGuilds(), isReady().
      */
     public JDA getJda() {
-        return jda;
+        if (jda != null) {
+            return jda;
+        }
+        return shardManager != null ? shardManager.getShardById(0) : null;
+    }
+
+    /**
+     * Tất cả JDA instance đã khởi động (một phần tử khi không shard, rỗng khi Discord tắt)
+     */
+    public List<JDA> getShards() {
+        if (shardManager != null) {
+            return shardManager.getShards();
+        }
+        return jda != null ? List.of(jda) : List.of();
+    }
+
+    /**
+     * Danh sách guild trên tất cả shard.
+     */
+    public List<Guild> getGuilds() {
+        if (shardManager != null) {
+            return shardManager.getGuilds();
+        }
+        return jda != null ? jda.getGuilds() : List.of();
+    }
+
+    /**
+     * Tổng số shard của gateway (kể cả shard chưa khởi động), 0 khi Discord tắt
+     */
+    public int getShardsTotal() {
+        if (shardManager != null) {
+            return Math.max(shardManager.getShardsTotal(), 0);
+        }
+        return jda != null ? 1 : 0;
     }
 
     /**
-     * Kiểm tra trạng thái kết nối của gateway.
+     * Kiểm tra trạng thái kết nối của gateway (tất cả shard phải CONNECTED).
+     * getShards() chỉ gồm shard đã khởi động nên phải đủ getShardsTotal() shard.
      */
     public boolean isReady() {
+        if (shardManager != null) {
+            List<JDA> shards = shardManager.getShards();
+            int total = shardManager.getShardsTotal();
+            return total > 0 && shards.size() == total
+                && shards.stream().allMatch(shard -> shard.getStatus() == JDA.Status.CONNECTED);
+        }
         return jda != null && jda.getStatus() == JDA.Status.CONNECTED;
     }
 
+    /**
+     * Gateway đã được cấu hình token (false = Discord tắt)
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Tất cả shard đã CONNECTED ít nhất một lần kể từ khi khởi động (reconnect sau đó không tính)
+     */
+    public boolean isInitialConnectCompleted() {
+        return initialConnectCompleted;
+    }
+
+    /**
+     * Lỗi khi login lúc khởi động (token sai, không gọi được Discord), null nếu không có
+     */
+    public String getStartupFailure() {
+        return startupFailure;
+    }
+
+    @Override
+    public void onStatusChange(StatusChangeEvent event) {
+        // JDA chỉ chuyển sang CONNECTED sau khi đã bắn ReadyEvent, nên phải chờ status change thay vì onReady.
+        // Sharded: mỗi shard bắn một event, chỉ coi là xong khi shard cuối cùng CONNECTED
+        if (event.getNewStatus() == JDA.Status.CONNECTED) {
+            markConnectedIfReady();
+        }
+    }
+
+    private void markConnectedIfReady() {
+        if (!initialConnectCompleted && isReady()) {
+            initialConnectCompleted = true;
+            log.info("Discord gateway connected");
+        }
+    }
+
     @Override
     public void onMessageReceived(MessageReceivedEvent event) {
         if (event.getAuthor().isBot()) {
@@ -90,27 +231,86 @@ public class DiscordGatewayService extends ListenerAdapter {
         MessageChannel channel = event.getChannel();
         var message = event.getMessage();
 
-        try {
-            UnifiedMessage unifiedMessage = UnifiedMessage.builder()
-                    .channelType(ChannelType.DISCORD)
-                    .platformUserId(event.getAuthor().getId()) // User ID để lưu vào DB
-                    .platformMessageId(message.getId())
-                    .content(message.getContentDisplay())
-                    .messageType("text")
-                    .timestamp(LocalDateTime.ofInstant(
-                            message.getTimeCreated().toInstant(),
-                            ZoneId.systemDefault()))
-                    .username(event.getAuthor().getName())
-                    .firstName(event.getAuthor().getGlobalName())
-                    .channelId(channel.getId()) // Channel ID để reply
-                    .rawData(message)
-                    .build();
+        // Map sang UnifiedMessage trên thread JDA (chỉ đọc dữ liệu trong event), route ở worker lane
+        UnifiedMessage.UnifiedMessageBuilder builder = UnifiedMessage.builder()
+                .channelType(ChannelType.DISCORD)
+                .platformUserId(event.getAuthor().getId()) // User ID để lưu vào DB
+                .platformMessageId(message.getId())
+                .content(message.getContentDisplay())
+                .messageType("text")
+                .timestamp(LocalDateTime.ofInstant(
+                        message.getTimeCreated().toInstant(),
+                        ZoneId.systemDefault()))
+                .username(event.getAuthor().getName())
+                .firstName(event.getAuthor().getGlobalName())
+                .channelId(channel.getId()) // Channel ID để reply
+                .rawData(message);
+
+        // Attachment: lấy file đầu tiên, CDN URL sẽ được stream lên MinIO khi lưu message
+        List<Message.Attachment> attachments = message.getAttachments();
+        if (!attachments.isEmpty()) {
+            Message.Attachment attachment = attachments.get(0);
+            String attachmentType = resolveAttachmentType(attachment);
+            builder.messageType(attachmentType)
+                    .attachmentUrl(attachment.getUrl())
+                    .attachmentType(attachmentType)
+                    .attachmentFilename(attachment.getFileName())
+                    .attachmentSize((long) attachment.getSize())
+                    .attachmentContentType(attachment.getContentType());
+
+            if (message.getContentDisplay().isBlank()) {
+                builder.content(switch (attachmentType) {
+                    case "image" -> "[Photo]";
+                    case "video" -> "[Video]";
+                    case "audio" -> "[Audio]";
+                    default -> "[Document]";
+                });
+            }
+            if (attachments.size() > 1) {
+                log.debug("Discord message {} has {} attachments, only the first is stored",
+                        message.getId(), attachments.size());
+            }
+        }
+        UnifiedMessage unifiedMessage = builder.build();
 
+        eventDispatcher.dispatch(channel.getId(),
+                "message " + message.getId() + " from author " + event.getAuthor().getId() + " in channel " + channel.getId(),
+                () -> routeMessage(unifiedMessage));
+    }
+
+    /**
+     * Khách hàng đang nhập trong channel đã có conversation → typing indicator cho staff (không đọc DB)
+     */
+    @Override
+    public void onUserTyping(UserTypingEvent event) {
+        if (event.getUser().isBot()) {
+            return;
+        }
+        recipientCache.findConversationByDiscordChannel(event.getChannel().getId())
+                .ifPresent(conversationId -> presenceService.customerTyping(conversationId, event.getUser().getId()));
+    }
+
+    private String resolveAttachmentType(Message.Attachment attachment) {
+        if (attachment.isImage()) {
+            return "image";
+        }
+        if (attachment.isVideo()) {
+            return "video";
+        }
+        String contentType = attachment.getContentType();
+        if (contentType != null && contentType.startsWith("audio/")) {
+            return "audio";
+        }
+        return "document";
+    }
+
+    private void routeMessage(UnifiedMessage unifiedMessage) {
+        try {
             router.routeMessage(unifiedMessage);
-            log.info("Received Discord message {} from channel {}", message.getId(), channel.getId());
+            log.info("Received Discord message {} from channel {}",
+                    unifiedMessage.getPlatformMessageId(), unifiedMessage.getChannelId());
         } catch (Exception e) {
             log.error("Error routing Discord message", e);
         }
     }
 }
-
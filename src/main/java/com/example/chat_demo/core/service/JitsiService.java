@@ -66,7 +66,7 @@ public class JitsiService {
             "&config.enableNoisyMicDetection=false" +
             "&config.enableInsecureRoomNameWarning=false";
         
-        log.info("Built Jitsi room URL: {} (roomId: {})", url, roomId);
+        log.debug("Built Jitsi room URL: {} (roomId: {})", url, roomId);
         return url;
     }
     
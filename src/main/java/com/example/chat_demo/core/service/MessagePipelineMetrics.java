@@ -0,0 +1,174 @@
+package com.example.chat_demo.core.service;
+
+import com.example.chat_demo.common.ChannelType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MessagePipelineMetrics - Timer/counter cho từng chặng xử lý message inbound
+ * (WebhookController → OmnichannelParser → OmnichannelRouter → OmnichannelMessageBus → realtime publish)
+ *
+ * - chat.pipeline.stage{stage,channel}: thời gian mỗi chặng (parse, user_resolution, db_save, attachment, publish);
+ *   db_save gồm cả commit; publish chỉ đo callback after-commit của RealtimeMessagePublisher cho chính message đó
+ *   (đẩy frame vào RealtimeFrameBuffer, gửi vào broker đo riêng bằng chat.realtime.frame.send)
+ * - chat.pipeline.webhooks{channel,outcome}: webhook routed / ignored (không có message) / error
+ *
+ * Mọi meter được đăng ký sẵn theo (stage, channel) trong EnumMap; caller đo bằng System.nanoTime()
+ * nên đường nóng không tạo Timer.Sample hay tra registry.
+ */
+@Component
+public class MessagePipelineMetrics {
+
+    public enum Stage {
+        PARSE,
+        USER_RESOLUTION,
+        DB_SAVE,
+        ATTACHMENT,
+        PUBLISH
+    }
+
+    public enum WebhookOutcome {
+        ROUTED,
+        IGNORED,
+        ERROR
+    }
+
+    private final Map<Stage, Map<ChannelType, Timer>> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<WebhookOutcome, Map<ChannelType, Counter>> webhookCounters = new EnumMap<>(WebhookOutcome.class);
+
+    public MessagePipelineMetrics(MeterRegistry meterRegistry,
+                                  @Value("${omnichannel.metrics.percentile-histogram:true}") boolean percentileHistogram) {
+        for (Stage stage : Stage.values()) {
+            Map<ChannelType, Timer> timers = new EnumMap<>(ChannelType.class);
+            for (ChannelType channel : ChannelType.values()) {
+                timers.put(channel, Timer.builder("chat.pipeline.stage")
+                    .description("Time spent in one stage of inbound message processing")
+                    .tag("stage", tagValue(stage))
+                    .tag("channel", channel.name())
+                    .publishPercentileHistogram(percentileHistogram)
+                    .register(meterRegistry));
+            }
+            stageTimers.put(stage, timers);
+        }
+        for (WebhookOutcome outcome : WebhookOutcome.values()) {
+            Map<ChannelType, Counter> counters = new EnumMap<>(ChannelType.class);
+            for (ChannelType channel : ChannelType.values()) {
+                counters.put(channel, Counter.builder("chat.pipeline.webhooks")
+                    .description("Webhook requests by outcome")
+                    .tag("channel", channel.name())
+                    .tag("outcome", tagValue(outcome))
+                    .register(meterRegistry));
+            }
+            webhookCounters.put(outcome, counters);
+        }
+    }
+
+    /**
+     * Ghi thời gian một chặng; startNanos lấy từ System.nanoTime() trước khi vào chặng
+     */
+    public void recordStage(Stage stage, ChannelType channel, long startNanos) {
+        recordStageDuration(stage, channel, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Ghi thời gian một chặng đã tự cộng dồn (ví dụ db_save không tính thời gian tải attachment xen giữa)
+     */
+    public void recordStageDuration(Stage stage, ChannelType channel, long elapsedNanos) {
+        if (channel == null) {
+            return;
+        }
+        stageTimers.get(stage).get(channel).record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Ghi db_save khi transaction đang chạy commit xong (rollback thì không ghi):
+     * từ startNanos tới lúc commit, trừ excludedNanos (thời gian tải attachment).
+     * Mỗi transaction chỉ đăng ký một synchronization (bind làm resource của transaction),
+     * các message sau trong cùng transaction chỉ thêm một entry vào đó.
+     */
+    public void recordUntilCommit(ChannelType channel, long startNanos, long excludedNanos) {
+        if (channel == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recordStageDuration(Stage.DB_SAVE, channel, System.nanoTime() - startNanos - excludedNanos);
+            return;
+        }
+        PendingDbSaves pending = (PendingDbSaves) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingDbSaves();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.add(channel, startNanos + excludedNanos);
+    }
+
+    public void countWebhook(ChannelType channel, WebhookOutcome outcome) {
+        webhookCounters.get(outcome).get(channel).increment();
+    }
+
+    /**
+     * Các db_save chờ commit của một transaction (thường chỉ một message)
+     */
+    private final class PendingDbSaves implements TransactionSynchronization {
+
+        private ChannelType[] channels = new ChannelType[4];
+        private long[] starts = new long[4];
+        private int size;
+
+        void add(ChannelType channel, long startNanos) {
+            if (size == starts.length) {
+                channels = Arrays.copyOf(channels, size * 2);
+                starts = Arrays.copyOf(starts, size * 2);
+            }
+            channels[size] = channel;
+            starts[size] = startNanos;
+            size++;
+        }
+
+        @Override
+        public int getOrder() {
+            // db_save không tính thời gian các callback publish chạy sau commit
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(MessagePipelineMetrics.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(MessagePipelineMetrics.this, this);
+        }
+
+        @Override
+        public void afterCommit() {
+            long committedAt = System.nanoTime();
+            for (int i = 0; i < size; i++) {
+                recordStageDuration(Stage.DB_SAVE, channels[i], committedAt - starts[i]);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(MessagePipelineMetrics.this);
+        }
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.chat_demo.core.service;
+
+import com.example.chat_demo.core.model.Message;
+import com.example.chat_demo.core.model.User;
+import com.example.chat_demo.core.realtime.RealtimeMessagePublisher;
+import com.example.chat_demo.core.repository.MessageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MessengerProfileEnrichmentService - Lấy tên user Messenger ở background
+ *
+ * Router gọi {@link #requestEnrichment(User, Message)} khi profile chưa có/hết TTL.
+ * Lookup chạy sau khi transaction lưu message commit, trên executor riêng,
+ * rồi publish lại message để frontend cập nhật tên người gửi.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MessengerProfileEnrichmentService {
+
+    private final MessengerUserProfileService userProfileService;
+    private final UserRegistryService userRegistryService;
+    private final MessageRepository messageRepository;
+    private final RealtimeMessagePublisher realtimeMessagePublisher;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Tránh gọi Graph API trùng cho cùng PSID khi nhiều message đến liên tiếp
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Đăng ký lấy profile cho user; thực thi sau commit (hoặc ngay nếu không có transaction)
+     */
+    public void requestEnrichment(User user, Message message) {
+        String psid = user.getPlatformUserId();
+        if (userProfileService.getCachedProfile(psid) == null && !userProfileService.needsLookup(psid)) {
+            // Lần lookup trước bị lỗi, chờ hết failure TTL rồi mới thử lại
+            return;
+        }
+        eventPublisher.publishEvent(new ProfileLookupRequested(
+            user.getId(), psid, message != null ? message.getId() : null));
+    }
+
+    @Async("profileEnrichmentExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProfileLookupRequested(ProfileLookupRequested event) {
+        if (!inFlight.add(event.psid())) {
+            return;
+        }
+        try {
+            MessengerUserProfileService.UserProfile profile = userProfileService.getCachedProfile(event.psid());
+            if (profile == null) {
+                profile = userProfileService.getUserProfile(event.psid());
+            }
+            if (profile == null) {
+                return;
+            }
+
+            userRegistryService.updateProfile(event.userId(), profile.firstName(), profile.lastName());
+            log.debug("Enriched Messenger profile for user {}", event.userId());
+
+            if (event.messageId() != null) {
+                messageRepository.findById(event.messageId()).ifPresent(realtimeMessagePublisher::publish);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to enrich Messenger profile for user {}: {}", event.userId(), e.getMessage());
+        } finally {
+            inFlight.remove(event.psid());
+        }
+    }
+
+    public record ProfileLookupRequested(Long userId, String psid, Long messageId) {
+    }
+}
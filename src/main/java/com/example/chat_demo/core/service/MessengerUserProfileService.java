@@ -1,15 +1,24 @@
 package com.example.chat_demo.core.service;
 
+import com.example.chat_demo.core.model.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * MessengerUserProfileService - Lấy thông tin user profile từ Facebook Graph API
+ *
+ * Có cache in-memory theo PSID (TTL cấu hình được). Webhook chỉ đọc cache qua
+ * {@link #getCachedProfile(String)}; gọi Graph API ({@link #getUserProfile(String)})
+ * chỉ chạy ở background trong MessengerProfileEnrichmentService.
  */
 @Slf4j
 @Service
@@ -22,10 +31,21 @@ public class MessengerUserProfileService {
     @Value("${platform.messenger.page-access-token}")
     private String pageAccessToken;
     
+    @Value("${platform.messenger.profile-cache.ttl-minutes:1440}")
+    private long profileTtlMinutes;
+    
+    @Value("${platform.messenger.profile-cache.failure-ttl-minutes:5}")
+    private long failureTtlMinutes;
+    
+    @Value("${platform.messenger.profile-cache.max-size:50000}")
+    private int maxCacheSize;
+    
     private final RestTemplate restTemplate;
     
+    private final Map<String, CachedProfile> cache = new ConcurrentHashMap<>();
+    
     /**
-     * Lấy thông tin user profile từ PSID
+     * Lấy thông tin user profile từ PSID (gọi Graph API, blocking)
      * @param psid Page-Scoped ID của user
      * @return Map chứa firstName, lastName, hoặc null nếu lỗi
      */
@@ -39,6 +59,7 @@ public class MessengerUserProfileService {
             
             if (response == null) {
                 log.warn("No profile data returned for PSID: {}", psid);
+                cacheFailure(psid);
                 return null;
             }
             
@@ -48,13 +69,79 @@ public class MessengerUserProfileService {
             log.debug("Fetched profile for PSID {}: firstName={}, lastName={}", 
                     psid, firstName, lastName);
             
-            return new UserProfile(firstName, lastName);
+            UserProfile profile = new UserProfile(firstName, lastName);
+            cacheProfile(psid, profile, LocalDateTime.now());
+            return profile;
             
         } catch (Exception e) {
             log.warn("Failed to fetch user profile for PSID: {} - {}", psid, e.getMessage());
             // Không throw exception, chỉ log warning để không block message processing
+            cacheFailure(psid);
+            return null;
+        }
+    }
+    
+    /**
+     * Đọc profile từ cache (không gọi remote)
+     * @return profile nếu còn hạn, null nếu miss/hết hạn/lần lấy trước bị lỗi
+     */
+    public UserProfile getCachedProfile(String psid) {
+        if (psid == null) {
+            return null;
+        }
+        CachedProfile cached = cache.get(psid);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expiresAt() < System.currentTimeMillis()) {
+            cache.remove(psid, cached);
             return null;
         }
+        return cached.profile();
+    }
+    
+    /**
+     * Có cần gọi Graph API cho psid này không (miss và chưa có lần lỗi gần đây)
+     */
+    public boolean needsLookup(String psid) {
+        CachedProfile cached = cache.get(psid);
+        return cached == null || cached.expiresAt() < System.currentTimeMillis();
+    }
+    
+    /**
+     * Profile đã lưu trên User còn trong TTL không
+     */
+    public boolean isProfileFresh(User user) {
+        LocalDateTime fetchedAt = user.getProfileFetchedAt();
+        return fetchedAt != null && fetchedAt.isAfter(LocalDateTime.now().minusMinutes(profileTtlMinutes));
+    }
+    
+    /**
+     * Nạp profile vào cache (từ Graph API hoặc từ User đã lưu trong DB)
+     */
+    public void cacheProfile(String psid, UserProfile profile, LocalDateTime fetchedAt) {
+        if (psid == null || profile == null) {
+            return;
+        }
+        long expiresAt = fetchedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                + Duration.ofMinutes(profileTtlMinutes).toMillis();
+        put(psid, new CachedProfile(profile, expiresAt));
+    }
+    
+    private void cacheFailure(String psid) {
+        put(psid, new CachedProfile(null, System.currentTimeMillis() + Duration.ofMinutes(failureTtlMinutes).toMillis()));
+    }
+    
+    private void put(String psid, CachedProfile entry) {
+        if (cache.size() >= maxCacheSize && !cache.containsKey(psid)) {
+            // Dọn entry hết hạn; nếu vẫn đầy thì xoá toàn bộ (cache chỉ là tối ưu, DB vẫn là nguồn chính)
+            long now = System.currentTimeMillis();
+            cache.values().removeIf(cached -> cached.expiresAt() < now);
+            if (cache.size() >= maxCacheSize) {
+                cache.clear();
+            }
+        }
+        cache.put(psid, entry);
     }
     
     /**
@@ -62,5 +149,7 @@ public class MessengerUserProfileService {
      */
     public record UserProfile(String firstName, String lastName) {
     }
+    
+    private record CachedProfile(UserProfile profile, long expiresAt) {
+    }
 }
-
@@ -3,11 +3,15 @@ package com.example.chat_demo.core.service;
 import com.example.chat_demo.core.model.UnifiedMessage;
 import com.example.chat_demo.core.model.User;
 import com.example.chat_demo.core.repository.UserRepository;
+import io.micrometer.observation.annotation.Observed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Optional;
+
 /**
  * UserRegistryService - Lưu user mới vào DB khi nhận tin nhắn đầu tiên
  */
@@ -23,6 +27,7 @@ public class UserRegistryService {
      * @param unifiedMessage Message đã được chuẩn hóa
      * @return User entity và boolean isNewUser
      */
+    @Observed(name = "chat.user.resolve", contextualName = "resolve user")
     @Transactional
     public User registerOrGetUser(UnifiedMessage unifiedMessage) {
         // Kiểm tra user đã tồn tại chưa
@@ -63,5 +68,22 @@ public class UserRegistryService {
         log.debug("Checked user {} on {} isNew={}", unifiedMessage.getPlatformUserId(), unifiedMessage.getChannelType(), isNew);
         return isNew;
     }
+    
+    /**
+     * Cập nhật tên user từ profile platform (Messenger Graph API) và thời điểm lấy profile
+     */
+    @Transactional
+    public Optional<User> updateProfile(Long userId, String firstName, String lastName) {
+        return userRepository.findById(userId).map(user -> {
+            if (firstName != null) {
+                user.setFirstName(firstName);
+            }
+            if (lastName != null) {
+                user.setLastName(lastName);
+            }
+            user.setProfileFetchedAt(LocalDateTime.now());
+            log.debug("Updated profile for user {}", userId);
+            return userRepository.save(user);
+        });
+    }
 }
-
@@ -0,0 +1,26 @@
+package com.example.chat_demo.omnichannel.attachment;
+
+import com.example.chat_demo.common.ChannelType;
+import com.example.chat_demo.core.model.UnifiedMessage;
+
+/**
+ * AttachmentFetcher - Interface để tải file đính kèm từ platform dạng stream
+ *
+ * Fetcher mở kết nối tới platform và giao InputStream cho handler (ví dụ upload thẳng
+ * lên MinIO), không buffer toàn bộ file trong memory. Stream được đóng sau khi handler trả về.
+ */
+public interface AttachmentFetcher {
+    
+    /**
+     * Xác định fetcher này xử lý channel nào
+     */
+    ChannelType getChannelType();
+    
+    /**
+     * Tải attachment của message và xử lý stream
+     * @param message Message đã chuẩn hóa (attachmentUrl là file_id / URL tùy platform)
+     * @param handler Xử lý stream (chạy trong lúc kết nối tới platform còn mở)
+     * @return Kết quả của handler, null nếu không tải được
+     */
+    <T> T fetch(UnifiedMessage message, AttachmentStreamHandler<T> handler);
+}
@@ -0,0 +1,39 @@
+package com.example.chat_demo.omnichannel.attachment;
+
+import com.example.chat_demo.common.ChannelType;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * AttachmentFetcherFactory - Lấy AttachmentFetcher tương ứng với platform
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AttachmentFetcherFactory {
+    
+    private final List<AttachmentFetcher> fetchers;
+    private Map<ChannelType, AttachmentFetcher> fetcherMap;
+    
+    @PostConstruct
+    public void init() {
+        fetcherMap = fetchers.stream()
+            .collect(Collectors.toMap(
+                AttachmentFetcher::getChannelType,
+                Function.identity()
+            ));
+        log.info("Initialized attachment fetchers for platforms: {}", fetcherMap.keySet());
+    }
+    
+    public Optional<AttachmentFetcher> getFetcher(ChannelType channelType) {
+        return Optional.ofNullable(fetcherMap.get(channelType));
+    }
+}
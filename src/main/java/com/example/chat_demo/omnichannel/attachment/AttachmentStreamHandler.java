@@ -0,0 +1,19 @@
+package com.example.chat_demo.omnichannel.attachment;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * AttachmentStreamHandler - Callback nhận stream của file đính kèm
+ */
+@FunctionalInterface
+public interface AttachmentStreamHandler<T> {
+    
+    /**
+     * @param inputStream Stream nội dung file (không cần tự đóng)
+     * @param contentLength Kích thước file, -1 nếu platform không trả về
+     * @param filename Tên file
+     * @param contentType Content type từ platform, null nếu không có
+     */
+    T handle(InputStream inputStream, long contentLength, String filename, String contentType) throws IOException;
+}
@@ -0,0 +1,52 @@
+package com.example.chat_demo.omnichannel.attachment;
+
+import com.example.chat_demo.common.ChannelType;
+import com.example.chat_demo.core.model.UnifiedMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * DiscordAttachmentFetcher - Stream file đính kèm từ Discord CDN
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DiscordAttachmentFetcher implements AttachmentFetcher {
+    
+    private final RestTemplate restTemplate;
+    
+    @Override
+    public ChannelType getChannelType() {
+        return ChannelType.DISCORD;
+    }
+    
+    /**
+     * attachmentUrl của Discord là URL CDN (Message.Attachment#getUrl), tải trực tiếp không cần token
+     */
+    @Override
+    public <T> T fetch(UnifiedMessage message, AttachmentStreamHandler<T> handler) {
+        String url = message.getAttachmentUrl();
+        try {
+            log.debug("Streaming Discord attachment {} ({} bytes)", message.getAttachmentFilename(), message.getAttachmentSize());
+            return restTemplate.execute(url, HttpMethod.GET, null, download -> {
+                long contentLength = download.getHeaders().getContentLength();
+                if (contentLength < 0 && message.getAttachmentSize() != null) {
+                    contentLength = message.getAttachmentSize();
+                }
+                String contentType = message.getAttachmentContentType();
+                MediaType responseType = download.getHeaders().getContentType();
+                if (contentType == null && responseType != null) {
+                    contentType = responseType.toString();
+                }
+                return handler.handle(download.getBody(), contentLength, message.getAttachmentFilename(), contentType);
+            });
+        } catch (Exception e) {
+            log.error("Error streaming Discord attachment {}", message.getAttachmentFilename(), e);
+            return null;
+        }
+    }
+}
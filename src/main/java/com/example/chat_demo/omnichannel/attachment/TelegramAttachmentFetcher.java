@@ -0,0 +1,86 @@
+package com.example.chat_demo.omnichannel.attachment;
+
+import com.example.chat_demo.common.ChannelType;
+import com.example.chat_demo.core.model.UnifiedMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
+
+/**
+ * TelegramAttachmentFetcher - Tải file từ Telegram Bot API (getFile → download) dạng stream
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TelegramAttachmentFetcher implements AttachmentFetcher {
+    
+    private final RestTemplate restTemplate;
+    
+    @Value("${platform.telegram.bot-token}")
+    private String botToken;
+    
+    @Value("${platform.telegram.api-url}")
+    private String apiUrl;
+    
+    @Value("${platform.telegram.file-url:https://api.telegram.org/file/bot}")
+    private String fileUrl;
+    
+    @Override
+    public ChannelType getChannelType() {
+        return ChannelType.TELEGRAM;
+    }
+    
+    /**
+     * attachmentUrl của Telegram là file_id: gọi getFile để lấy file_path rồi stream file về
+     */
+    @Override
+    public <T> T fetch(UnifiedMessage message, AttachmentStreamHandler<T> handler) {
+        String fileId = message.getAttachmentUrl();
+        try {
+            // 1. Lấy file path từ Telegram API
+            String getFileUrl = String.format("%s%s/getFile?file_id=%s", apiUrl, botToken, fileId);
+            log.debug("Getting file info from Telegram for file_id: {}", fileId);
+            Map<String, Object> response = restTemplate.getForObject(getFileUrl, Map.class);
+            
+            if (response == null || !response.containsKey("result")) {
+                log.error("Failed to get file info from Telegram for file_id: {}", fileId);
+                return null;
+            }
+            
+            @SuppressWarnings("unchecked")
+            Map<String, Object> result = (Map<String, Object>) response.get("result");
+            String filePath = (String) result.get("file_path");
+            
+            if (filePath == null) {
+                log.error("File path is null for file_id: {}", fileId);
+                return null;
+            }
+            
+            // 2. Determine filename if not provided
+            String filename = message.getAttachmentFilename();
+            if (filename == null || filename.isEmpty()) {
+                filename = filePath.substring(filePath.lastIndexOf("/") + 1);
+            }
+            String resolvedFilename = filename;
+            
+            // 3. Stream file từ Telegram sang handler (không buffer toàn bộ file)
+            String downloadUrl = fileUrl + botToken + "/" + filePath;
+            log.debug("Streaming file from Telegram: {}", filePath);
+            return restTemplate.execute(downloadUrl, HttpMethod.GET, null, download -> handler.handle(
+                download.getBody(),
+                download.getHeaders().getContentLength(),
+                resolvedFilename,
+                message.getAttachmentContentType()
+            ));
+            
+        } catch (Exception e) {
+            log.error("Error streaming file from Telegram for file_id: {}", fileId, e);
+            return null;
+        }
+    }
+}
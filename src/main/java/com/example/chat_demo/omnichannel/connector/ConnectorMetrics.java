@@ -0,0 +1,47 @@
+package com.example.chat_demo.omnichannel.connector;
+
+import com.example.chat_demo.common.ChannelType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConnectorMetrics - Timer chat.connector.send{channel,outcome} cho mỗi lần gửi message ra platform
+ * Timer đăng ký sẵn theo (channel, success/failure) để connector chỉ cần ghi nanos.
+ */
+@Component
+public class ConnectorMetrics {
+
+    private final Map<ChannelType, Timer> successTimers = new EnumMap<>(ChannelType.class);
+    private final Map<ChannelType, Timer> failureTimers = new EnumMap<>(ChannelType.class);
+
+    public ConnectorMetrics(MeterRegistry meterRegistry,
+                            @Value("${omnichannel.metrics.percentile-histogram:true}") boolean percentileHistogram) {
+        for (ChannelType channel : ChannelType.values()) {
+            successTimers.put(channel, timer(meterRegistry, channel, "success", percentileHistogram));
+            failureTimers.put(channel, timer(meterRegistry, channel, "failure", percentileHistogram));
+        }
+    }
+
+    /**
+     * @param startNanos System.nanoTime() trước khi gọi platform API
+     */
+    public void recordSend(ChannelType channel, boolean success, long startNanos) {
+        Timer timer = success ? successTimers.get(channel) : failureTimers.get(channel);
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, ChannelType channel, String outcome, boolean percentileHistogram) {
+        return Timer.builder("chat.connector.send")
+            .description("Outbound platform API send latency")
+            .tag("channel", channel.name())
+            .tag("outcome", outcome)
+            .publishPercentileHistogram(percentileHistogram)
+            .register(meterRegistry);
+    }
+}
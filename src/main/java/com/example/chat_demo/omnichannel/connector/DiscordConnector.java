@@ -1,6 +1,7 @@
 package com.example.chat_demo.omnichannel.connector;
 
 import com.example.chat_demo.common.ChannelType;
+import com.example.chat_demo.common.logging.LogSampler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -24,7 +25,12 @@ public class DiscordConnector implements PlatformConnector {
     @Value("${platform.discord.bot-token}")
     private String botToken;
 
+    @Value("${platform.discord.api-url:https://discord.com/api/v10}")
+    private String apiUrl;
+
     private final RestTemplate restTemplate;
+    private final ConnectorMetrics connectorMetrics;
+    private final LogSampler logSampler;
 
     @Override
     public ChannelType getChannelType() {
@@ -36,9 +42,11 @@ public class DiscordConnector implements PlatformConnector {
      */
     @Override
     public void sendMessage(String recipientId, String message) {
+        long start = System.nanoTime();
+        boolean success = false;
         try {
-            String url = "https://discord.com/api/v10/channels/" + recipientId + "/messages";
-            log.info("Sending Discord message to channel {} via {}", recipientId, url);
+            String url = apiUrl + "/channels/" + recipientId + "/messages";
+            log.debug("Sending Discord message to channel {}", recipientId);
 
             Map<String, Object> requestBody = new HashMap<>();
             requestBody.put("content", message);
@@ -50,13 +58,33 @@ public class DiscordConnector implements PlatformConnector {
             HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
             restTemplate.postForObject(url, request, Map.class);
 
-            log.info("Sent message to Discord channel: {}", recipientId);
+            success = true;
+            if (logSampler.sample(LogSampler.Category.CONNECTOR)) {
+                log.info("Sent message to Discord channel: {} (sampled)", recipientId);
+            }
         } catch (Exception e) {
             log.error("Error sending message to Discord channel: {}", recipientId, e);
             throw new RuntimeException("Failed to send Discord message", e);
+        } finally {
+            connectorMetrics.recordSend(ChannelType.DISCORD, success, start);
         }
     }
-}
 
+    /**
+     * Trigger typing indicator trong channel (Discord tự ẩn sau ~10 giây)
+     */
+    @Override
+    public void sendTypingIndicator(String recipientId) {
+        try {
+            String url = apiUrl + "/channels/" + recipientId + "/typing";
 
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("Authorization", "Bot " + botToken);
 
+            restTemplate.postForObject(url, new HttpEntity<>(headers), Void.class);
+            log.debug("Sent typing indicator to Discord channel {}", recipientId);
+        } catch (Exception e) {
+            log.warn("Failed to send typing indicator to Discord channel {}: {}", recipientId, e.getMessage());
+        }
+    }
+}
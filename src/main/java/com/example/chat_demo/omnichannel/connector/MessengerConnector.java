@@ -1,6 +1,7 @@
 package com.example.chat_demo.omnichannel.connector;
 
 import com.example.chat_demo.common.ChannelType;
+import com.example.chat_demo.common.logging.LogSampler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -28,6 +29,8 @@ public class MessengerConnector implements PlatformConnector {
     private String pageAccessToken;
 
     private final RestTemplate restTemplate;
+    private final ConnectorMetrics connectorMetrics;
+    private final LogSampler logSampler;
 
     @Override
     public ChannelType getChannelType() {
@@ -36,9 +39,11 @@ public class MessengerConnector implements PlatformConnector {
 
     @Override
     public void sendMessage(String recipientId, String message) {
+        long start = System.nanoTime();
+        boolean success = false;
         try {
             String url = messengerApiUrl + "/me/messages";
-            log.info("Sending Messenger message to {} via {}", recipientId, url);
+            log.debug("Sending Messenger message to {}", recipientId);
 
             Map<String, Object> requestBody = new HashMap<>();
             requestBody.put("recipient", Map.of("id", recipientId));
@@ -51,12 +56,39 @@ public class MessengerConnector implements PlatformConnector {
             HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
 
             restTemplate.postForObject(url, request, Map.class);
-            log.info("Sent message to Messenger user: {}", recipientId);
+            success = true;
+            if (logSampler.sample(LogSampler.Category.CONNECTOR)) {
+                log.info("Sent message to Messenger user: {} (sampled)", recipientId);
+            }
 
         } catch (Exception e) {
             log.error("Error sending message to Messenger user: {}", recipientId, e);
             throw new RuntimeException("Failed to send Messenger message", e);
+        } finally {
+            connectorMetrics.recordSend(ChannelType.MESSENGER, success, start);
         }
     }
-}
 
+    /**
+     * Gửi sender_action typing_on (Messenger tự tắt sau ~20 giây hoặc khi có message)
+     */
+    @Override
+    public void sendTypingIndicator(String recipientId) {
+        try {
+            String url = messengerApiUrl + "/me/messages";
+
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("recipient", Map.of("id", recipientId));
+            requestBody.put("sender_action", "typing_on");
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.setBearerAuth(pageAccessToken);
+
+            restTemplate.postForObject(url, new HttpEntity<>(requestBody, headers), Map.class);
+            log.debug("Sent typing_on to Messenger user {}", recipientId);
+        } catch (Exception e) {
+            log.warn("Failed to send typing_on to Messenger user {}: {}", recipientId, e.getMessage());
+        }
+    }
+}
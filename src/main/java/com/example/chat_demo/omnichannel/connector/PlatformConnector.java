@@ -18,5 +18,12 @@ public interface PlatformConnector {
      * @param message Nội dung message
      */
     void sendMessage(String recipientId, String message);
+    
+    /**
+     * Hiển thị trạng thái "đang nhập" cho user trên platform (mặc định: không hỗ trợ)
+     * @param recipientId ID của user/channel trên platform
+     */
+    default void sendTypingIndicator(String recipientId) {
+    }
 }
 
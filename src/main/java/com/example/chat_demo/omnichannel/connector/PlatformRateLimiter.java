@@ -0,0 +1,89 @@
+package com.example.chat_demo.omnichannel.connector;
+
+import com.example.chat_demo.common.ChannelType;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PlatformRateLimiter - Giới hạn tốc độ gửi message ra từng platform (token bucket)
+ *
+ * Mỗi platform có giới hạn riêng (Telegram ~30 msg/s, Discord ~50 req/s cho bot,
+ * Messenger tuỳ page), vượt quá sẽ bị 429. Các luồng gửi hàng loạt phải gọi
+ * {@link #acquire(ChannelType)} trước mỗi lần gọi connector.
+ */
+@Slf4j
+@Component
+public class PlatformRateLimiter {
+
+    @Value("${omnichannel.rate-limit.telegram-per-second:30}")
+    private int telegramPerSecond;
+
+    @Value("${omnichannel.rate-limit.discord-per-second:40}")
+    private int discordPerSecond;
+
+    @Value("${omnichannel.rate-limit.messenger-per-second:200}")
+    private int messengerPerSecond;
+
+    private final Map<ChannelType, TokenBucket> buckets = new EnumMap<>(ChannelType.class);
+
+    @PostConstruct
+    public void init() {
+        buckets.put(ChannelType.TELEGRAM, new TokenBucket(telegramPerSecond));
+        buckets.put(ChannelType.DISCORD, new TokenBucket(discordPerSecond));
+        buckets.put(ChannelType.MESSENGER, new TokenBucket(messengerPerSecond));
+        log.info("Platform rate limits (msg/s): TELEGRAM={}, DISCORD={}, MESSENGER={}",
+            telegramPerSecond, discordPerSecond, messengerPerSecond);
+    }
+
+    /**
+     * Chờ đến khi có token để gửi 1 message tới platform
+     */
+    public void acquire(ChannelType channelType) throws InterruptedException {
+        TokenBucket bucket = buckets.get(channelType);
+        if (bucket == null) {
+            return;
+        }
+        long waitNanos;
+        while ((waitNanos = bucket.tryConsume()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Token bucket đơn giản: dung lượng = số permit mỗi giây, nạp lại liên tục
+     */
+    private static final class TokenBucket {
+        private final double capacity;
+        private final double refillPerNano;
+        private double tokens;
+        private long lastRefill;
+
+        private TokenBucket(int permitsPerSecond) {
+            int permits = Math.max(1, permitsPerSecond);
+            this.capacity = permits;
+            this.refillPerNano = permits / 1_000_000_000d;
+            this.tokens = permits;
+            this.lastRefill = System.nanoTime();
+        }
+
+        /**
+         * @return 0 nếu lấy được token, ngược lại số nano giây cần chờ (không sleep trong lock)
+         */
+        private synchronized long tryConsume() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+            lastRefill = now;
+            if (tokens >= 1d) {
+                tokens -= 1d;
+                return 0;
+            }
+            return (long) Math.ceil((1d - tokens) / refillPerNano);
+        }
+    }
+}
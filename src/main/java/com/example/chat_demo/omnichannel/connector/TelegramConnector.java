@@ -1,6 +1,7 @@
 package com.example.chat_demo.omnichannel.connector;
 
 import com.example.chat_demo.common.ChannelType;
+import com.example.chat_demo.common.logging.LogSampler;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -33,6 +34,8 @@ public class TelegramConnector implements PlatformConnector {
     private String botToken;
     
     private final RestTemplate restTemplate;
+    private final ConnectorMetrics connectorMetrics;
+    private final LogSampler logSampler;
     
     @Override
     public ChannelType getChannelType() {
@@ -41,9 +44,11 @@ public class TelegramConnector implements PlatformConnector {
     
     @Override
     public void sendMessage(String recipientId, String message) {
+        long start = System.nanoTime();
+        boolean success = false;
         try {
             String url = telegramApiUrl + botToken + "/sendMessage";
-            log.info("Sending Telegram message to {} via {}", recipientId, url);
+            log.debug("Sending Telegram message to {}", recipientId);
             
             Map<String, Object> requestBody = new HashMap<>();
             requestBody.put("chat_id", recipientId);
@@ -56,11 +61,38 @@ public class TelegramConnector implements PlatformConnector {
             
             restTemplate.postForObject(url, request, Map.class);
             
-            log.info("Sent message to Telegram user: {}", recipientId);
+            success = true;
+            if (logSampler.sample(LogSampler.Category.CONNECTOR)) {
+                log.info("Sent message to Telegram user: {} (sampled)", recipientId);
+            }
             
         } catch (Exception e) {
             log.error("Error sending message to Telegram user: {}", recipientId, e);
             throw new RuntimeException("Failed to send Telegram message", e);
+        } finally {
+            connectorMetrics.recordSend(ChannelType.TELEGRAM, success, start);
+        }
+    }
+
+    /**
+     * Gửi chat action "typing" (Telegram tự ẩn sau ~5 giây)
+     */
+    @Override
+    public void sendTypingIndicator(String recipientId) {
+        try {
+            String url = telegramApiUrl + botToken + "/sendChatAction";
+            
+            Map<String, Object> requestBody = new HashMap<>();
+            requestBody.put("chat_id", recipientId);
+            requestBody.put("action", "typing");
+            
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            
+            restTemplate.postForObject(url, new HttpEntity<>(requestBody, headers), Map.class);
+            log.debug("Sent typing action to Telegram chat {}", recipientId);
+        } catch (Exception e) {
+            log.warn("Failed to send typing action to Telegram chat {}: {}", recipientId, e.getMessage());
         }
     }
 
@@ -93,9 +125,13 @@ public class TelegramConnector implements PlatformConnector {
     }
 
     private void sendMediaByUrl(String method, String fieldName, String chatId, String fileUrl, String caption) {
+        long start = System.nanoTime();
+        boolean success = false;
         try {
             String url = telegramApiUrl + botToken + "/" + method;
-            log.info("Sending Telegram {} to {} via {} with url={}", method, chatId, url, fileUrl);
+            if (log.isDebugEnabled()) {
+                log.debug("Sending Telegram {} to {} with url={}", method, chatId, fileUrl);
+            }
 
             Map<String, Object> requestBody = new HashMap<>();
             requestBody.put("chat_id", chatId);
@@ -110,10 +146,13 @@ public class TelegramConnector implements PlatformConnector {
             HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
             restTemplate.postForObject(url, request, Map.class);
 
-            log.info("Sent {} to Telegram user: {}", method, chatId);
+            success = true;
+            log.debug("Sent {} to Telegram user: {}", method, chatId);
         } catch (Exception e) {
             log.error("Error sending {} to Telegram user {} with url {}", method, chatId, fileUrl, e);
             throw new RuntimeException("Failed to send Telegram media: " + method, e);
+        } finally {
+            connectorMetrics.recordSend(ChannelType.TELEGRAM, success, start);
         }
     }
 
@@ -139,9 +178,11 @@ public class TelegramConnector implements PlatformConnector {
 
     private void sendMediaBytes(String method, String fieldName, String chatId,
                                 byte[] bytes, String filename, String mimeType, String caption) {
+        long start = System.nanoTime();
+        boolean success = false;
         try {
             String url = telegramApiUrl + botToken + "/" + method;
-            log.info("Sending Telegram {} (multipart) to {} via {}", method, chatId, url);
+            log.debug("Sending Telegram {} (multipart) to {}", method, chatId);
 
             MediaType mediaType = mimeType != null
                     ? MediaType.parseMediaType(mimeType)
@@ -168,10 +209,13 @@ public class TelegramConnector implements PlatformConnector {
             HttpEntity<MultiValueMap<String, Object>> request = new HttpEntity<>(body, headers);
             restTemplate.postForObject(url, request, Map.class);
 
-            log.info("Sent {} (multipart) to Telegram user: {}", method, chatId);
+            success = true;
+            log.debug("Sent {} (multipart) to Telegram user: {}", method, chatId);
         } catch (Exception e) {
             log.error("Error sending {} (multipart) to Telegram user {}", method, chatId, e);
             throw new RuntimeException("Failed to send Telegram media bytes: " + method, e);
+        } finally {
+            connectorMetrics.recordSend(ChannelType.TELEGRAM, success, start);
         }
     }
 
@@ -190,9 +234,11 @@ public class TelegramConnector implements PlatformConnector {
      * @param buttonUrl URL khi bấm button
      */
     public void sendMessageWithButton(String chatId, String messageText, String buttonText, String buttonUrl) {
+        long start = System.nanoTime();
+        boolean success = false;
         try {
             String url = telegramApiUrl + botToken + "/sendMessage";
-            log.info("Sending Telegram message with button to {} via {}", chatId, url);
+            log.debug("Sending Telegram message with button to {}", chatId);
             
             // Tạo inline keyboard
             Map<String, Object> inlineKeyboard = new HashMap<>();
@@ -219,11 +265,14 @@ public class TelegramConnector implements PlatformConnector {
             HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
             restTemplate.postForObject(url, request, Map.class);
             
+            success = true;
             log.info("Sent message with button to Telegram user: {}", chatId);
             
         } catch (Exception e) {
             log.error("Error sending message with button to Telegram user: {}", chatId, e);
             throw new RuntimeException("Failed to send Telegram message with button", e);
+        } finally {
+            connectorMetrics.recordSend(ChannelType.TELEGRAM, success, start);
         }
     }
 }
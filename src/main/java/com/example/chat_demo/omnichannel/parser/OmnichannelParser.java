@@ -8,6 +8,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * OmnichannelParser - Chuẩn hóa message từ các platform về UnifiedMessage
  */
@@ -35,5 +37,20 @@ public class OmnichannelParser {
             default -> throw new IllegalArgumentException("Unsupported channel type: " + channelType);
         };
     }
+    
+    /**
+     * Parse raw webhook data thành danh sách UnifiedMessage (platform gom nhiều event trong một POST)
+     * @param channelType Loại platform
+     * @param rawData Dữ liệu thô từ webhook
+     * @return Danh sách message đã chuẩn hóa (rỗng nếu không có message hợp lệ)
+     */
+    public List<UnifiedMessage> parseBatch(ChannelType channelType, Object rawData) {
+        log.debug("Parsing message batch from {} platform", channelType);
+        
+        if (channelType == ChannelType.MESSENGER) {
+            return messengerParser.parseAll(rawData);
+        }
+        UnifiedMessage unifiedMessage = parse(channelType, rawData);
+        return unifiedMessage != null ? List.of(unifiedMessage) : List.of();
+    }
 }
-
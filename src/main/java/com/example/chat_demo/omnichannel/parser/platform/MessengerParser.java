@@ -11,11 +11,15 @@ import org.springframework.stereotype.Component;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 /**
  * MessengerParser - Parse webhook data từ Facebook Messenger
+ *
+ * Facebook gom nhiều event vào một POST (nhiều entry, mỗi entry nhiều messaging),
+ * vì vậy {@link #parseAll(Object)} trả về toàn bộ message trong payload.
  */
 @Slf4j
 @Component
@@ -25,30 +29,59 @@ public class MessengerParser {
     private final ObjectMapper objectMapper;
     private final MessengerUserProfileService userProfileService;
 
+    /**
+     * Parse message đầu tiên trong payload (giữ tương thích với OmnichannelParser.parse)
+     */
     public UnifiedMessage parse(Object rawData) {
+        List<UnifiedMessage> messages = parseAll(rawData);
+        return messages.isEmpty() ? null : messages.get(0);
+    }
+
+    /**
+     * Parse toàn bộ entry/messaging trong payload, bỏ qua các event không phải message
+     * (delivery, read, echo của page)
+     */
+    public List<UnifiedMessage> parseAll(Object rawData) {
+        List<UnifiedMessage> result = new ArrayList<>();
         try {
             Map<String, Object> data = objectMapper.convertValue(rawData, Map.class);
             List<Map<String, Object>> entries = (List<Map<String, Object>>) data.get("entry");
 
             if (entries == null || entries.isEmpty()) {
                 log.warn("Messenger webhook without entry");
-                return null;
+                return result;
             }
 
-            Map<String, Object> entry = entries.get(0);
-            List<Map<String, Object>> messaging = (List<Map<String, Object>>) entry.get("messaging");
-
-            if (messaging == null || messaging.isEmpty()) {
-                log.warn("Messenger webhook without messaging");
-                return null;
+            for (Map<String, Object> entry : entries) {
+                List<Map<String, Object>> messaging = (List<Map<String, Object>>) entry.get("messaging");
+                if (messaging == null || messaging.isEmpty()) {
+                    log.debug("Messenger entry {} without messaging", entry.get("id"));
+                    continue;
+                }
+                for (Map<String, Object> messageEvent : messaging) {
+                    UnifiedMessage unifiedMessage = parseEvent(messageEvent);
+                    if (unifiedMessage != null) {
+                        result.add(unifiedMessage);
+                    }
+                }
             }
+        } catch (Exception e) {
+            log.error("Error parsing Messenger webhook", e);
+        }
+        return result;
+    }
 
-            Map<String, Object> messageEvent = messaging.get(0);
+    private UnifiedMessage parseEvent(Map<String, Object> messageEvent) {
+        try {
             Map<String, Object> sender = (Map<String, Object>) messageEvent.get("sender");
             Map<String, Object> message = (Map<String, Object>) messageEvent.get("message");
 
             if (sender == null || message == null) {
-                log.warn("Messenger message missing sender or message");
+                log.debug("Skip Messenger event without sender or message");
+                return null;
+            }
+            if (Boolean.TRUE.equals(message.get("is_echo"))) {
+                // Echo của chính page (tin outbound) - không lưu như inbound
                 return null;
             }
 
@@ -61,8 +94,8 @@ public class MessengerParser {
                     ? LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault())
                     : LocalDateTime.now();
 
-            // Lấy user profile từ Graph API (firstName, lastName)
-            MessengerUserProfileService.UserProfile profile = userProfileService.getUserProfile(psid);
+            // Chỉ đọc profile từ cache; cache miss sẽ được lấy async sau khi message đã lưu
+            MessengerUserProfileService.UserProfile profile = userProfileService.getCachedProfile(psid);
             String firstName = profile != null ? profile.firstName() : null;
             String lastName = profile != null ? profile.lastName() : null;
 
@@ -70,18 +103,15 @@ public class MessengerParser {
             String messageType = "text";
             String content = text;
             
-            // Kiểm tra nếu có attachments (images, files, etc.)
-            Map<String, Object> attachments = (Map<String, Object>) message.get("attachments");
-            if (attachments != null && !attachments.isEmpty()) {
-                List<Map<String, Object>> attachmentList = (List<Map<String, Object>>) attachments.get("data");
-                if (attachmentList != null && !attachmentList.isEmpty()) {
-                    Map<String, Object> firstAttachment = attachmentList.get(0);
-                    String attachmentType = getStringValue(firstAttachment, "type");
-                    messageType = attachmentType != null ? attachmentType : "attachment";
-                    
-                    if (content == null || content.isEmpty()) {
-                        content = "[Message with " + messageType + "]";
-                    }
+            // Kiểm tra nếu có attachments (images, files, etc.): [{ "type": "image", "payload": { "url": ... } }]
+            List<Map<String, Object>> attachmentList = (List<Map<String, Object>>) message.get("attachments");
+            if (attachmentList != null && !attachmentList.isEmpty()) {
+                Map<String, Object> firstAttachment = attachmentList.get(0);
+                String attachmentType = getStringValue(firstAttachment, "type");
+                messageType = attachmentType != null ? attachmentType : "attachment";
+                
+                if (content == null || content.isEmpty()) {
+                    content = "[Message with " + messageType + "]";
                 }
             }
             
@@ -98,11 +128,11 @@ public class MessengerParser {
                     .timestamp(receivedAt)
                     .firstName(firstName)
                     .lastName(lastName)
-                    .rawData(rawData)
+                    .rawData(messageEvent)
                     .build();
 
         } catch (Exception e) {
-            log.error("Error parsing Messenger webhook", e);
+            log.error("Error parsing Messenger messaging event", e);
             return null;
         }
     }
@@ -121,4 +151,3 @@ public class MessengerParser {
         return Long.parseLong(value.toString());
     }
 }
-
@@ -3,6 +3,7 @@ package com.example.chat_demo.storage;
 import io.minio.*;
 import io.minio.errors.*;
 import io.minio.http.Method;
+import io.micrometer.observation.annotation.Observed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -30,8 +31,19 @@ public class MediaStorageService {
      * @param messageId Message ID
      * @return Object key trong MinIO (để lưu vào database)
      */
+    @Observed(name = "chat.storage.minio", contextualName = "minio upload", lowCardinalityKeyValues = {"operation", "upload"})
     public String uploadFile(InputStream inputStream, String originalFilename, 
                              String contentType, Long conversationId, Long messageId) {
+        return uploadFile(inputStream, originalFilename, contentType, conversationId, messageId, -1);
+    }
+    
+    /**
+     * Upload file lên MinIO khi biết trước kích thước (MinIO stream theo part, không buffer 10MB)
+     * @param objectSize Kích thước file, -1 nếu không biết
+     */
+    @Observed(name = "chat.storage.minio", contextualName = "minio upload", lowCardinalityKeyValues = {"operation", "upload"})
+    public String uploadFile(InputStream inputStream, String originalFilename, 
+                             String contentType, Long conversationId, Long messageId, long objectSize) {
         try {
             // Đảm bảo bucket tồn tại
             ensureBucketExists();
@@ -47,12 +59,12 @@ public class MediaStorageService {
                 PutObjectArgs.builder()
                     .bucket(minioConfig.getBucketName())
                     .object(objectKey)
-                    .stream(inputStream, -1, 10485760) // 10MB part size
+                    .stream(inputStream, objectSize, objectSize >= 0 ? -1 : 10485760) // size chưa biết: 10MB part size
                     .contentType(contentType)
                     .build()
             );
             
-            log.info("Uploaded file to MinIO: {}", objectKey);
+            log.debug("Uploaded file to MinIO: {}", objectKey);
             return objectKey;
             
         } catch (Exception e) {
@@ -88,6 +100,7 @@ public class MediaStorageService {
      * @param objectKey Object key trong MinIO
      * @return InputStream của file
      */
+    @Observed(name = "chat.storage.minio", contextualName = "minio download", lowCardinalityKeyValues = {"operation", "download"})
     public InputStream downloadFile(String objectKey) {
         try {
             return minioClient.getObject(
@@ -106,6 +119,7 @@ public class MediaStorageService {
      * Xóa file từ MinIO
      * @param objectKey Object key trong MinIO
      */
+    @Observed(name = "chat.storage.minio", contextualName = "minio delete", lowCardinalityKeyValues = {"operation", "delete"})
     public void deleteFile(String objectKey) {
         try {
             minioClient.removeObject(
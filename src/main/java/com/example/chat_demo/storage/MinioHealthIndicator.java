@@ -0,0 +1,43 @@
+package com.example.chat_demo.storage;
+
+import com.example.chat_demo.common.health.CachedHealthIndicator;
+import io.minio.BucketExistsArgs;
+import io.minio.MinioClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * MinioHealthIndicator - /actuator/health/minio (không nằm trong nhóm readiness)
+ *
+ * Probe nền bucketExists trên bucket media: MinIO không trả lời thì DOWN để alert/dashboard thấy được.
+ * Không rút node khỏi readiness: MinIO dùng chung cho mọi node nên sẽ rút cả cluster, trong khi message
+ * text vẫn xử lý được (chỉ attachment lỗi). Bucket chưa có vẫn UP (tạo ở lần upload đầu).
+ */
+@Component
+public class MinioHealthIndicator extends CachedHealthIndicator {
+
+    private final MinioClient minioClient;
+    private final MinioConfig minioConfig;
+
+    public MinioHealthIndicator(MinioClient minioClient,
+                                MinioConfig minioConfig,
+                                @Value("${omnichannel.health.probe-timeout-ms:3000}") long timeoutMs) {
+        super("minio", Duration.ofMillis(timeoutMs));
+        this.minioClient = minioClient;
+        this.minioConfig = minioConfig;
+    }
+
+    @Override
+    protected Health probe() throws Exception {
+        boolean exists = minioClient.bucketExists(BucketExistsArgs.builder()
+                .bucket(minioConfig.getBucketName())
+                .build());
+        return Health.up()
+                .withDetail("bucket", minioConfig.getBucketName())
+                .withDetail("bucketExists", exists)
+                .build();
+    }
+}
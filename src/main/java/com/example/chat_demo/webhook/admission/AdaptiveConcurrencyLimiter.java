@@ -0,0 +1,125 @@
+package com.example.chat_demo.webhook.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * AdaptiveConcurrencyLimiter - Giới hạn số request xử lý đồng thời, tự điều chỉnh theo latency (AIMD)
+ *
+ * - baseline: latency "lúc không tải" = min latency trong cửa sổ BASELINE_WINDOW gần nhất; giảm ngay khi
+ *   thấy mẫu nhanh hơn, chỉ tăng khi cả cửa sổ đều chậm (Postgres/platform chậm hẳn đi chứ không chỉ
+ *   chậm do xếp hàng)
+ * - ngưỡng chậm = max(tolerance × baseline, minThreshold): minThreshold tránh để các webhook bị bỏ qua
+ *   (vài trăm µs) kéo baseline xuống tới mức mọi request thật đều bị coi là chậm
+ * - mẫu tốt khi đang dùng quá nửa limit: limit += 1/limit (tăng tuyến tính)
+ * - mẫu chậm hoặc lỗi quá tải (timeout, hết connection): limit *= backoffRatio, tối đa một lần mỗi khoảng ngưỡng chậm để một đợt
+ *   chậm không kéo limit về min ngay lập tức
+ * - tryAcquire không chờ: vượt limit là từ chối ngay
+ *
+ * State điều chỉnh limit được cập nhật trong synchronized (chỉ tính toán, không I/O).
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final long BASELINE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double backoffRatio;
+    private final long minThresholdNanos;
+    private final long baselineWindowNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private long baselineNanos;
+    private long windowMinNanos = Long.MAX_VALUE;
+    private long windowStartNanos;
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                                      double tolerance, double backoffRatio, long minThresholdNanos) {
+        this(initialLimit, minLimit, maxLimit, tolerance, backoffRatio, minThresholdNanos,
+                BASELINE_WINDOW_NANOS, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, double backoffRatio,
+                               long minThresholdNanos, long baselineWindowNanos, LongSupplier nanoClock) {
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Require 0 < minLimit <= maxLimit");
+        }
+        if (tolerance < 1.0 || backoffRatio <= 0 || backoffRatio >= 1.0) {
+            throw new IllegalArgumentException("Require tolerance >= 1 and 0 < backoffRatio < 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.backoffRatio = backoffRatio;
+        this.minThresholdNanos = minThresholdNanos;
+        this.baselineWindowNanos = baselineWindowNanos;
+        this.nanoClock = nanoClock;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+        this.lastDecreaseNanos = nanoClock.getAsLong();
+        this.windowStartNanos = lastDecreaseNanos;
+    }
+
+    /**
+     * @return số request đang xử lý lúc được nhận (truyền lại cho onComplete), -1 nếu vượt limit
+     */
+    public int tryAcquire() {
+        int current = inFlight.incrementAndGet();
+        if (current > limit) {
+            inFlight.decrementAndGet();
+            return -1;
+        }
+        return current;
+    }
+
+    /**
+     * Gọi đúng một lần cho mỗi tryAcquire thành công
+     * @param inFlightAtStart giá trị tryAcquire trả về
+     * @param latencyNanos thời gian xử lý request
+     * @param overloaded request lỗi theo kiểu quá tải (timeout, hết connection pool)
+     */
+    public void onComplete(int inFlightAtStart, long latencyNanos, boolean overloaded) {
+        inFlight.decrementAndGet();
+        long now = nanoClock.getAsLong();
+        synchronized (this) {
+            windowMinNanos = Math.min(windowMinNanos, latencyNanos);
+            if (baselineNanos == 0 || latencyNanos < baselineNanos) {
+                baselineNanos = latencyNanos;
+            }
+            if (now - windowStartNanos >= baselineWindowNanos) {
+                baselineNanos = windowMinNanos;
+                windowMinNanos = Long.MAX_VALUE;
+                windowStartNanos = now;
+            }
+
+            long thresholdNanos = Math.max((long) (tolerance * baselineNanos), minThresholdNanos);
+            if (overloaded || latencyNanos > thresholdNanos) {
+                if (now - lastDecreaseNanos >= thresholdNanos) {
+                    estimatedLimit = Math.max(minLimit, estimatedLimit * backoffRatio);
+                    lastDecreaseNanos = now;
+                }
+            } else if (inFlightAtStart * 2 >= limit) {
+                estimatedLimit = Math.min(maxLimit, estimatedLimit + 1.0 / estimatedLimit);
+            }
+            limit = (int) estimatedLimit;
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public synchronized double getBaselineMillis() {
+        return baselineNanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.chat_demo.webhook.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * WebhookAdmissionFilter - Admission control cho POST /webhook/** (load shedding khi quá tải)
+ *
+ * Khi Postgres chậm, webhook giữ Tomcat thread trong routeMessage tới khi hết thread và cả API của staff
+ * cũng không được phục vụ. Filter giới hạn số webhook xử lý đồng thời bằng AdaptiveConcurrencyLimiter:
+ * - vượt limit: trả ngay omnichannel.admission.webhook.reject-status (503) kèm Retry-After,
+ *   Telegram/Messenger sẽ gửi lại webhook sau
+ * - limit tối đa = server.tomcat.threads.max - omnichannel.admission.api-reserved-threads:
+ *   số thread đó luôn còn cho /api/** và actuator kể cả khi webhook dùng hết phần của mình
+ * - chỉ lỗi kiểu quá tải (timeout, chờ connection pool quá hạn) mới làm giảm limit; 500 do payload lỗi
+ *   hay bug không liên quan tới tải. Controller tự bắt exception thì báo qua recordFailure
+ *
+ * Metrics: chat.admission.limit, chat.admission.inflight, chat.admission.baseline (ms),
+ * chat.admission.rejected (tag route=webhook).
+ */
+@Slf4j
+@Component
+@Order(0) // Trước MultipartContentTypeFilter: request bị từ chối không cần xử lý gì thêm
+public class WebhookAdmissionFilter extends OncePerRequestFilter {
+
+    private static final String WEBHOOK_PREFIX = "/webhook/";
+    private static final String OVERLOADED_ATTRIBUTE = WebhookAdmissionFilter.class.getName() + ".overloaded";
+    // Postgres query_canceled (statement_timeout)
+    private static final String QUERY_CANCELED_SQL_STATE = "57014";
+
+    private final boolean enabled;
+    private final int rejectStatus;
+    private final String retryAfterSeconds;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final Counter rejected;
+
+    public WebhookAdmissionFilter(MeterRegistry meterRegistry,
+                                  @Value("${omnichannel.admission.webhook.enabled:true}") boolean enabled,
+                                  @Value("${omnichannel.admission.webhook.initial-limit:20}") int initialLimit,
+                                  @Value("${omnichannel.admission.webhook.min-limit:4}") int minLimit,
+                                  @Value("${omnichannel.admission.webhook.max-limit:1000}") int maxLimit,
+                                  @Value("${server.tomcat.threads.max:200}") int tomcatMaxThreads,
+                                  @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                  @Value("${omnichannel.admission.api-reserved-threads:40}") int apiReservedThreads,
+                                  @Value("${omnichannel.admission.webhook.tolerance:2.0}") double tolerance,
+                                  @Value("${omnichannel.admission.webhook.backoff-ratio:0.9}") double backoffRatio,
+                                  @Value("${omnichannel.admission.webhook.min-latency-threshold-ms:50}") long minThresholdMillis,
+                                  @Value("${omnichannel.admission.webhook.reject-status:503}") int rejectStatus,
+                                  @Value("${omnichannel.admission.retry-after-seconds:5}") int retryAfterSeconds) {
+        // Virtual thread: Tomcat không giới hạn thread, giới hạn thật là Hikari pool và limiter tự tìm ra
+        int effectiveMaxLimit = virtualThreads
+                ? maxLimit
+                : Math.min(maxLimit, Math.max(minLimit, tomcatMaxThreads - apiReservedThreads));
+        if (rejectStatus != 429 && rejectStatus != 503) {
+            throw new IllegalArgumentException("omnichannel.admission.webhook.reject-status must be 429 or 503: " + rejectStatus);
+        }
+        this.enabled = enabled;
+        this.rejectStatus = rejectStatus;
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, effectiveMaxLimit,
+                tolerance, backoffRatio, TimeUnit.MILLISECONDS.toNanos(minThresholdMillis));
+
+        Gauge.builder("chat.admission.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit")
+                .tag("route", "webhook")
+                .register(meterRegistry);
+        Gauge.builder("chat.admission.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Requests currently admitted")
+                .tag("route", "webhook")
+                .register(meterRegistry);
+        Gauge.builder("chat.admission.baseline", limiter, AdaptiveConcurrencyLimiter::getBaselineMillis)
+                .description("No-load latency estimate used by the limiter")
+                .baseUnit("milliseconds")
+                .tag("route", "webhook")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("chat.admission.rejected")
+                .description("Requests shed because the concurrency limit was reached")
+                .tag("route", "webhook")
+                .register(meterRegistry);
+
+        if (enabled) {
+            log.info("Webhook admission control: initial limit {}, range [{}, {}]", initialLimit, minLimit, effectiveMaxLimit);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled
+                || !"POST".equals(request.getMethod())
+                || !request.getRequestURI().startsWith(request.getContextPath() + WEBHOOK_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        int inFlightAtStart = limiter.tryAcquire();
+        if (inFlightAtStart < 0) {
+            rejected.increment();
+            log.debug("Shed {} (limit {})", request.getRequestURI(), limiter.getLimit());
+            response.setStatus(rejectStatus);
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        boolean overloaded = false;
+        try {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            overloaded = isOverload(e);
+            throw e;
+        } finally {
+            // Exception đã được @ExceptionHandler xử lý vẫn được DispatcherServlet để lại trong request
+            overloaded = overloaded
+                    || Boolean.TRUE.equals(request.getAttribute(OVERLOADED_ATTRIBUTE))
+                    || (request.getAttribute(DispatcherServlet.EXCEPTION_ATTRIBUTE) instanceof Throwable handled
+                        && isOverload(handled));
+            limiter.onComplete(inFlightAtStart, System.nanoTime() - startedAt, overloaded);
+        }
+    }
+
+    /**
+     * Báo lỗi mà controller đã tự bắt (trả 500 thay vì ném ra): lỗi quá tải thì được tính cho limiter
+     */
+    public static void recordFailure(Throwable error) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null && isOverload(error)) {
+            attributes.setAttribute(OVERLOADED_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    /**
+     * Timeout hoặc hết connection ở bất kỳ tầng nào trong chuỗi cause
+     */
+    static boolean isOverload(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof SQLTransientConnectionException // Hikari connection-timeout
+                    || cause instanceof SQLTimeoutException
+                    || cause instanceof QueryTimeoutException
+                    || cause instanceof TransactionTimedOutException
+                    || cause instanceof SocketTimeoutException
+                    || cause instanceof TimeoutException
+                    || (cause instanceof SQLException sql && QUERY_CANCELED_SQL_STATE.equals(sql.getSQLState()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -5,7 +5,6 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import net.dv8tion.jda.api.JDA;
 import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
 import net.dv8tion.jda.api.entities.channel.concrete.VoiceChannel;
 import net.dv8tion.jda.api.entities.channel.middleman.GuildChannel;
@@ -171,8 +170,7 @@ public class DiscordTestController {
             @RequestParam(defaultValue = "ALL") String type
     ) {
         try {
-            JDA jda = discordGatewayService.getJda();
-            if (jda == null || !discordGatewayService.isReady()) {
+            if (!discordGatewayService.isReady()) {
                 Map<String, Object> error = new HashMap<>();
                 error.put("error", "Discord gateway is not ready");
                 return ResponseEntity.status(503).body(error);
@@ -183,7 +181,7 @@ public class DiscordTestController {
             boolean includeVoice = filter.equals("ALL") || filter.equals("VOICE");
 
             List<Map<String, Object>> channels = new ArrayList<>();
-            jda.getGuilds().forEach(guild -> {
+            discordGatewayService.getGuilds().forEach(guild -> {
                 if (includeText) {
                     for (TextChannel textChannel : guild.getTextChannels()) {
                         channels.add(buildChannelInfo(textChannel));
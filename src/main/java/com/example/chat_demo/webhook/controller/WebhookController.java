@@ -1,15 +1,24 @@
 package com.example.chat_demo.webhook.controller;
 
 import com.example.chat_demo.common.ChannelType;
+import com.example.chat_demo.common.logging.LogSampler;
+import com.example.chat_demo.core.model.UnifiedMessage;
 import com.example.chat_demo.core.router.OmnichannelRouter;
+import com.example.chat_demo.core.service.MessagePipelineMetrics;
+import com.example.chat_demo.core.service.MessagePipelineMetrics.Stage;
+import com.example.chat_demo.core.service.MessagePipelineMetrics.WebhookOutcome;
 import com.example.chat_demo.omnichannel.parser.OmnichannelParser;
+import com.example.chat_demo.webhook.admission.WebhookAdmissionFilter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -17,13 +26,24 @@ import java.util.Map;
  */
 @Slf4j
 @RestController
-@Tag(name = "Webhook API", description = "Endpoint để Telegram gửi webhook vào.")
+@Tag(name = "Webhook API", description = "Endpoint để Telegram/Messenger gửi webhook vào.")
 @RequestMapping("/webhook")
 @RequiredArgsConstructor
 public class WebhookController {
     
     private final OmnichannelParser parser;
     private final OmnichannelRouter router;
+    private final MessagePipelineMetrics pipelineMetrics;
+    private final LogSampler logSampler;
+    
+    @Value("${platform.messenger.verify-token:}")
+    private String messengerVerifyToken;
+    
+    /**
+     * Log toàn bộ payload webhook (ở DEBUG) - chỉ bật khi điều tra, payload chứa dữ liệu khách hàng
+     */
+    @Value("${omnichannel.logging.payloads:false}")
+    private boolean logPayloads;
     
     /**
      * Webhook endpoint cho Telegram
@@ -32,27 +52,94 @@ public class WebhookController {
     @PostMapping("/telegram")
     public ResponseEntity<String> receiveTelegramWebhook(@RequestBody Map<String, Object> payload) {
         try {
-            log.info("[API] POST /webhook/telegram received payload: {}", payload);
+            if (logPayloads) {
+                log.debug("[API] POST /webhook/telegram received payload: {}", payload);
+            }
             
             // Parse message
+            long parseStart = System.nanoTime();
             var unifiedMessage = parser.parse(ChannelType.TELEGRAM, payload);
+            pipelineMetrics.recordStage(Stage.PARSE, ChannelType.TELEGRAM, parseStart);
             
             if (unifiedMessage == null) {
                 log.warn("Failed to parse Telegram webhook");
+                pipelineMetrics.countWebhook(ChannelType.TELEGRAM, WebhookOutcome.IGNORED);
                 return ResponseEntity.ok("OK");
             }
             
             // Route message
             router.routeMessage(unifiedMessage);
-            log.info("[API] POST /webhook/telegram processed message {}", unifiedMessage.getPlatformMessageId());
+            pipelineMetrics.countWebhook(ChannelType.TELEGRAM, WebhookOutcome.ROUTED);
+            if (logSampler.sample(LogSampler.Category.WEBHOOK)) {
+                log.info("[API] POST /webhook/telegram processed message {} (sampled)", unifiedMessage.getPlatformMessageId());
+            }
             
             return ResponseEntity.ok("OK");
             
         } catch (Exception e) {
             log.error("Error processing Telegram webhook", e);
+            pipelineMetrics.countWebhook(ChannelType.TELEGRAM, WebhookOutcome.ERROR);
+            WebhookAdmissionFilter.recordFailure(e);
+            return ResponseEntity.status(500).body("Error");
+        }
+    }
+    
+    /**
+     * Xác minh webhook Messenger (Facebook gọi GET khi đăng ký callback URL)
+     */
+    @Operation(summary = "Messenger Webhook Verify", description = "Facebook gọi để xác minh verify token khi đăng ký webhook.")
+    @GetMapping("/messenger")
+    public ResponseEntity<String> verifyMessengerWebhook(
+            @RequestParam(name = "hub.mode", required = false) String mode,
+            @RequestParam(name = "hub.verify_token", required = false) String verifyToken,
+            @RequestParam(name = "hub.challenge", required = false) String challenge) {
+        log.info("[API] GET /webhook/messenger verify mode={}", mode);
+        
+        if ("subscribe".equals(mode)
+                && messengerVerifyToken != null && !messengerVerifyToken.isBlank()
+                && messengerVerifyToken.equals(verifyToken)) {
+            return ResponseEntity.ok(challenge);
+        }
+        
+        log.warn("Messenger webhook verification failed");
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Verification failed");
+    }
+    
+    /**
+     * Webhook endpoint cho Messenger - xử lý toàn bộ entry/messaging trong một transaction
+     */
+    @Operation(summary = "Messenger Webhook", description = "Endpoint để Facebook Messenger gửi sự kiện (có thể gom nhiều event).")
+    @PostMapping("/messenger")
+    public ResponseEntity<String> receiveMessengerWebhook(@RequestBody Map<String, Object> payload) {
+        try {
+            if (logPayloads) {
+                log.debug("[API] POST /webhook/messenger received payload: {}", payload);
+            }
+            
+            long parseStart = System.nanoTime();
+            List<UnifiedMessage> unifiedMessages = parser.parseBatch(ChannelType.MESSENGER, payload);
+            pipelineMetrics.recordStage(Stage.PARSE, ChannelType.MESSENGER, parseStart);
+            if (unifiedMessages.isEmpty()) {
+                log.debug("Messenger webhook without routable messages");
+                pipelineMetrics.countWebhook(ChannelType.MESSENGER, WebhookOutcome.IGNORED);
+                return ResponseEntity.ok("EVENT_RECEIVED");
+            }
+            
+            router.routeBatch(unifiedMessages);
+            pipelineMetrics.countWebhook(ChannelType.MESSENGER, WebhookOutcome.ROUTED);
+            if (logSampler.sample(LogSampler.Category.WEBHOOK)) {
+                log.info("[API] POST /webhook/messenger processed {} messages (sampled)", unifiedMessages.size());
+            }
+            
+            return ResponseEntity.ok("EVENT_RECEIVED");
+            
+        } catch (Exception e) {
+            // Trả 500 để Facebook gửi lại cả batch (transaction đã rollback)
+            log.error("Error processing Messenger webhook", e);
+            pipelineMetrics.countWebhook(ChannelType.MESSENGER, WebhookOutcome.ERROR);
+            WebhookAdmissionFilter.recordFailure(e);
             return ResponseEntity.status(500).body("Error");
         }
     }
     
 }
-
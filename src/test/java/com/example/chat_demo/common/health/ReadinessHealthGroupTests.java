@@ -0,0 +1,55 @@
+package com.example.chat_demo.common.health;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Nhóm readiness tham chiếu contributor theo tên: tên sai làm context không khởi động được,
+ * tên thiếu làm check đó không được tính vào readiness.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = {
+				"management.endpoint.health.show-components=always",
+				"management.endpoint.health.group.readiness.show-components=always"
+		})
+class ReadinessHealthGroupTests {
+
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Test
+	void readinessGroupIncludesEveryDependencyCheck() {
+		// 503 khi một dependency chưa sẵn sàng, body vẫn liệt kê đủ các check
+		assertThat(components("/actuator/health/readiness")).containsOnlyKeys(
+				"readinessState", "postgres", "dbPool", "discordGateway", "realtimeBroker");
+	}
+
+	@Test
+	void minioIsReportedOutsideReadiness() {
+		// MinIO lỗi chỉ làm hỏng attachment, không rút node khỏi load balancer
+		assertThat(components("/actuator/health")).containsKey("minio");
+	}
+
+	private Map<String, Object> components(String path) {
+		ResponseEntity<Map<String, Object>> response = restTemplate.exchange(path,
+				HttpMethod.GET, null, new ParameterizedTypeReference<>() {
+				});
+
+		assertThat(response.getStatusCode()).isIn(HttpStatus.OK, HttpStatus.SERVICE_UNAVAILABLE);
+		assertThat(response.getBody()).containsKey("components");
+		@SuppressWarnings("unchecked")
+		Map<String, Object> components = (Map<String, Object>) response.getBody().get("components");
+		return components;
+	}
+
+}
@@ -0,0 +1,47 @@
+package com.example.chat_demo.core.realtime;
+
+import com.example.chat_demo.api.dto.MessageDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageDeltaEncoderTests {
+
+	private static final String DESTINATION = "/topic/conversations/42/delta";
+
+	private final MessageDeltaEncoder encoder = new MessageDeltaEncoder(100);
+
+	@Test
+	void laterFramesOfSameMessageAreDeltas() {
+		assertThat(encoder.encode(DESTINATION, message("SENT"))).containsEntry("f", 1).containsEntry("c", "xin chào");
+
+		Map<String, Object> delta = encoder.encode(DESTINATION, message("DELIVERED"));
+
+		assertThat(delta).containsOnlyKeys("i", "s").containsEntry("s", "DELIVERED");
+		assertThat(encoder.encode(DESTINATION, message("DELIVERED"))).isNull();
+	}
+
+	@Test
+	void newSubscriptionGetsFullFrameBeforeDeltas() {
+		encoder.encode(DESTINATION, message("SENT"));
+
+		encoder.onSubscribe(DESTINATION);
+
+		assertThat(encoder.encode(DESTINATION, message("DELIVERED")))
+				.containsEntry("f", 1)
+				.containsEntry("c", "xin chào")
+				.containsEntry("s", "DELIVERED");
+		assertThat(encoder.encode(DESTINATION, message("READ"))).containsOnlyKeys("i", "s");
+	}
+
+	private static MessageDto message(String status) {
+		MessageDto dto = new MessageDto();
+		dto.setId(7L);
+		dto.setContent("xin chào");
+		dto.setDirection("OUTBOUND");
+		dto.setStatus(status);
+		return dto;
+	}
+}
@@ -0,0 +1,272 @@
+package com.example.chat_demo.core.realtime;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Hai node, mỗi node một simple broker trong JVM, nối với nhau qua PostgresBrokerFanout
+ * và một stand-in cho LISTEN/NOTIFY của Postgres (không cần database thật).
+ */
+class PostgresBrokerFanoutTests {
+
+	private static final String CHANNEL = "chat_realtime";
+	private static final String DESTINATION = "/topic/conversations/42";
+
+	private final LocalPostgresStandIn postgres = new LocalPostgresStandIn();
+	private final List<Node> nodes = new ArrayList<>();
+
+	@AfterEach
+	void stopNodes() {
+		nodes.forEach(Node::stop);
+	}
+
+	@Test
+	void frameFromOneNodeReachesSubscribersOnEveryNode() throws Exception {
+		Node nodeA = startNode();
+		Node nodeB = startNode();
+		nodeA.subscribe("session-a", DESTINATION);
+		nodeB.subscribe("session-b", DESTINATION);
+
+		nodeA.publish(DESTINATION, "{\"id\":1,\"content\":\"xin chào\"}".getBytes(StandardCharsets.UTF_8));
+
+		Message<?> remote = nodeB.received.poll(5, TimeUnit.SECONDS);
+		assertThat(remote).isNotNull();
+		assertThat(new String((byte[]) remote.getPayload(), StandardCharsets.UTF_8))
+				.isEqualTo("{\"id\":1,\"content\":\"xin chào\"}");
+		assertThat(SimpMessageHeaderAccessor.getDestination(remote.getHeaders())).isEqualTo(DESTINATION);
+
+		assertThat(nodeA.received.poll(5, TimeUnit.SECONDS)).isNotNull();
+		// Node gửi bỏ qua NOTIFY của chính nó: subscriber local chỉ nhận một lần
+		assertThat(nodeA.received.poll(300, TimeUnit.MILLISECONDS)).isNull();
+	}
+
+	@Test
+	void binaryPayloadSurvivesFanout() throws Exception {
+		Node nodeA = startNode();
+		Node nodeB = startNode();
+		nodeB.subscribe("session-b", DESTINATION);
+		byte[] binary = {(byte) 0xC3, (byte) 0x28, 0x00, (byte) 0xFF, (byte) 0x80, 0x41};
+
+		nodeA.publish(DESTINATION, binary);
+
+		Message<?> remote = nodeB.received.poll(5, TimeUnit.SECONDS);
+		assertThat(remote).isNotNull();
+		assertThat((byte[]) remote.getPayload()).containsExactly(binary);
+	}
+
+	@Test
+	void framesOverNotifyLimitAreChunkedAcrossNodes() throws Exception {
+		Node nodeA = startNode();
+		Node nodeB = startNode();
+		nodeA.subscribe("session-a", DESTINATION);
+		nodeB.subscribe("session-b", DESTINATION);
+		// Message Telegram tối đa 4096 ký tự, tiếng Việt có dấu ~3 byte/ký tự → ~12 KB
+		byte[] frame = ("{\"id\":2,\"content\":\"" + "ệ".repeat(4096) + "\"}").getBytes(StandardCharsets.UTF_8);
+
+		nodeA.publish(DESTINATION, frame);
+
+		Message<?> remote = nodeB.received.poll(5, TimeUnit.SECONDS);
+		assertThat(remote).isNotNull();
+		assertThat((byte[]) remote.getPayload()).containsExactly(frame);
+		assertThat(postgres.notifyCount()).isGreaterThan(1);
+		assertThat(postgres.maxNotifyBytes()).isLessThan(8000);
+
+		assertThat(nodeA.received.poll(5, TimeUnit.SECONDS)).isNotNull();
+		assertThat(nodeA.received.poll(300, TimeUnit.MILLISECONDS)).isNull();
+	}
+
+	@Test
+	void framesOverChunkLimitStayLocal() throws Exception {
+		Node nodeA = startNode();
+		Node nodeB = startNode();
+		nodeA.subscribe("session-a", DESTINATION);
+		nodeB.subscribe("session-b", DESTINATION);
+
+		nodeA.publish(DESTINATION, "x".repeat(400_000).getBytes(StandardCharsets.UTF_8));
+
+		assertThat(nodeA.received.poll(5, TimeUnit.SECONDS)).isNotNull();
+		assertThat(nodeB.received.poll(500, TimeUnit.MILLISECONDS)).isNull();
+		assertThat(postgres.notifyCount()).isZero();
+	}
+
+	@Test
+	void localOnlyFramesAreNotNotified() throws Exception {
+		Node nodeA = startNode();
+		Node nodeB = startNode();
+		nodeA.subscribe("session-a", "/topic/presence");
+		nodeB.subscribe("session-b", "/topic/presence");
+
+		nodeA.publish("/topic/presence", "{\"status\":\"ONLINE\"}".getBytes(StandardCharsets.UTF_8), true);
+
+		assertThat(nodeA.received.poll(5, TimeUnit.SECONDS)).isNotNull();
+		assertThat(nodeB.received.poll(500, TimeUnit.MILLISECONDS)).isNull();
+		assertThat(postgres.notifyCount()).isZero();
+	}
+
+	private Node startNode() {
+		Node node = new Node(postgres);
+		nodes.add(node);
+		return node;
+	}
+
+	/**
+	 * Một app node: simple broker + brokerChannel có interceptor fan-out
+	 */
+	private static final class Node {
+
+		private final ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+		private final ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+		private final ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+		private final SimpleBrokerMessageHandler broker;
+		private final PostgresBrokerFanout fanout;
+		private final BlockingQueue<Message<?>> received = new LinkedBlockingQueue<>();
+
+		private Node(LocalPostgresStandIn postgres) {
+			clientOutbound.subscribe(message -> received.add(message));
+			broker = new SimpleBrokerMessageHandler(clientInbound, clientOutbound, brokerChannel, List.of("/topic"));
+			fanout = new PostgresBrokerFanout(postgres::connect, postgres.jdbcTemplate(), new ObjectMapper(),
+					() -> brokerChannel, CHANNEL, 100);
+			brokerChannel.addInterceptor(fanout);
+			broker.start();
+			fanout.start();
+		}
+
+		void subscribe(String sessionId, String destination) throws InterruptedException {
+			SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+			accessor.setSessionId(sessionId);
+			accessor.setSubscriptionId("sub-" + sessionId);
+			accessor.setDestination(destination);
+			clientInbound.send(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+			// LISTEN chạy trên thread riêng của fan-out
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (!fanout.isListening()) {
+				assertThat(System.nanoTime()).as("LISTEN not started").isLessThan(deadline);
+				Thread.sleep(10);
+			}
+		}
+
+		void publish(String destination, byte[] payload) {
+			publish(destination, payload, false);
+		}
+
+		void publish(String destination, byte[] payload, boolean localOnly) {
+			SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+			accessor.setDestination(destination);
+			if (localOnly) {
+				accessor.setHeader(PostgresBrokerFanout.LOCAL_ONLY_HEADER, Boolean.TRUE);
+			}
+			accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+			brokerChannel.send(MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+		}
+
+		void stop() {
+			fanout.stop();
+			broker.stop();
+		}
+	}
+
+	/**
+	 * Stand-in cho Postgres: NOTIFY qua JdbcTemplate được giao cho mọi connection đang LISTEN cùng channel
+	 */
+	private static final class LocalPostgresStandIn {
+
+		private final Map<String, List<BlockingQueue<String>>> listeners = new ConcurrentHashMap<>();
+		private final AtomicInteger notifyCount = new AtomicInteger();
+		private final AtomicInteger maxNotifyBytes = new AtomicInteger();
+
+		int notifyCount() {
+			return notifyCount.get();
+		}
+
+		int maxNotifyBytes() {
+			return maxNotifyBytes.get();
+		}
+
+		Connection connect() throws SQLException {
+			BlockingQueue<String> inbox = new LinkedBlockingQueue<>();
+			Connection connection = mock(Connection.class);
+			Statement statement = mock(Statement.class);
+			PGConnection pgConnection = mock(PGConnection.class);
+			when(connection.createStatement()).thenReturn(statement);
+			when(statement.execute(anyString())).thenAnswer(invocation -> {
+				String sql = invocation.getArgument(0);
+				if (sql.startsWith("LISTEN ")) {
+					listeners.computeIfAbsent(sql.substring("LISTEN ".length()), key -> new CopyOnWriteArrayList<>())
+							.add(inbox);
+				}
+				return false;
+			});
+			when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+			when(pgConnection.getNotifications(anyInt())).thenAnswer(invocation -> {
+				String payload = inbox.poll(invocation.<Integer>getArgument(0), TimeUnit.MILLISECONDS);
+				return payload == null ? null : new PGNotification[] {notification(payload)};
+			});
+			return connection;
+		}
+
+		JdbcTemplate jdbcTemplate() {
+			JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+			when(jdbcTemplate.queryForObject(eq("SELECT pg_notify(?, ?)"), eq(Object.class), any(), any()))
+					.thenAnswer(invocation -> {
+						Object[] arguments = invocation.getArguments();
+						String channel = (String) arguments[arguments.length - 2];
+						String payload = (String) arguments[arguments.length - 1];
+						listeners.getOrDefault(channel, List.of()).forEach(inbox -> inbox.add(payload));
+						return null;
+					});
+			return jdbcTemplate;
+		}
+
+		private static PGNotification notification(String payload) {
+			return new PGNotification() {
+				@Override
+				public String getName() {
+					return CHANNEL;
+				}
+
+				@Override
+				public int getPID() {
+					return 0;
+				}
+
+				@Override
+				public String getParameter() {
+					return payload;
+				}
+			};
+		}
+	}
+}
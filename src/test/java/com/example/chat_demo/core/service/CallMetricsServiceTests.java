@@ -0,0 +1,36 @@
+package com.example.chat_demo.core.service;
+
+import com.example.chat_demo.core.model.Call;
+import com.example.chat_demo.core.repository.CallDailyStatsRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class CallMetricsServiceTests {
+
+	private final CallDailyStatsRepository callDailyStatsRepository = mock(CallDailyStatsRepository.class);
+	private final CallMetricsService metrics = new CallMetricsService(new SimpleMeterRegistry(), callDailyStatsRepository);
+
+	@Test
+	void callCrossingMidnightIsCountedOnItsInitiatedDate() {
+		LocalDate yesterday = LocalDate.now().minusDays(1);
+		Call call = CallRegistryTests.call(1L, "room-abc", Call.CallStatus.INITIATED);
+		call.setInitiatedAt(yesterday.atTime(23, 59));
+
+		metrics.recordInitiated(call);
+		call.setStartedAt(LocalDateTime.now());
+		metrics.recordTransition(call, Call.CallStatus.RINGING, Call.CallStatus.ACTIVE);
+
+		verify(callDailyStatsRepository).increment(eq(yesterday), eq("UNKNOWN"), eq(1L), eq(0L), eq(0L),
+				eq(0L), eq(0L), eq(0L), eq(0L));
+		verify(callDailyStatsRepository).increment(eq(yesterday), eq("UNKNOWN"), eq(0L), eq(1L), eq(0L),
+				eq(0L), eq(0L), anyLong(), eq(0L));
+	}
+}
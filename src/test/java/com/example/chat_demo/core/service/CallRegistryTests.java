@@ -0,0 +1,64 @@
+package com.example.chat_demo.core.service;
+
+import com.example.chat_demo.core.model.Call;
+import com.example.chat_demo.core.repository.CallRepository;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class CallRegistryTests {
+
+	private final CallRegistry registry = new CallRegistry(mock(CallRepository.class));
+
+	@Test
+	void updateIndexesActiveCallByRoomAndId() {
+		Call call = call(1L, "Room-ABC", Call.CallStatus.RINGING);
+
+		registry.update(call);
+
+		assertThat(registry.findByRoomId("room-abc")).containsSame(call);
+		assertThat(registry.findById(1L)).containsSame(call);
+	}
+
+	@Test
+	void removeMatchesByIdNotByInstance() {
+		registry.update(call(1L, "room-abc", Call.CallStatus.ACTIVE));
+
+		// Instance load lại từ DB: cùng ID nhưng không equals instance trong registry
+		registry.update(call(1L, "room-abc", Call.CallStatus.ENDED));
+
+		assertThat(registry.findByRoomId("room-abc")).isEmpty();
+		assertThat(registry.findById(1L)).isEmpty();
+		assertThat(registry.getActiveCalls()).isEmpty();
+	}
+
+	@Test
+	void replacingCallWithNewRoomDropsOldRoom() {
+		registry.update(call(1L, "room-old", Call.CallStatus.INITIATED));
+		Call moved = call(1L, "room-new", Call.CallStatus.RINGING);
+
+		registry.update(moved);
+
+		assertThat(registry.findByRoomId("room-old")).isEmpty();
+		assertThat(registry.findByRoomId("room-new")).containsSame(moved);
+	}
+
+	@Test
+	void removeDoesNotTouchOtherCallInSameRoom() {
+		Call current = call(2L, "room-abc", Call.CallStatus.INITIATED);
+		registry.update(current);
+
+		registry.remove(call(1L, "room-abc", Call.CallStatus.ENDED));
+
+		assertThat(registry.findByRoomId("room-abc")).containsSame(current);
+	}
+
+	static Call call(Long id, String roomId, Call.CallStatus status) {
+		Call call = new Call();
+		call.setId(id);
+		call.setJitsiRoomId(roomId);
+		call.setStatus(status);
+		return call;
+	}
+}
@@ -0,0 +1,86 @@
+package com.example.chat_demo.core.service;
+
+import com.example.chat_demo.core.model.Call;
+import com.example.chat_demo.core.repository.CallDailyStatsRepository;
+import com.example.chat_demo.core.repository.CallRepository;
+import com.example.chat_demo.core.repository.ConversationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class CallServiceTests {
+
+	private final CallRepository callRepository = mock(CallRepository.class);
+	private final CallDailyStatsRepository callDailyStatsRepository = mock(CallDailyStatsRepository.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final CallRegistry callRegistry = new CallRegistry(callRepository);
+	private final CallService callService = new CallService(callRepository, mock(ConversationRepository.class),
+			mock(JitsiService.class), callRegistry, new CallMetricsService(meterRegistry, callDailyStatsRepository));
+
+	private Call call;
+
+	@BeforeEach
+	void setUp() {
+		call = CallRegistryTests.call(1L, "room-abc", Call.CallStatus.ACTIVE);
+		call.setInitiatedAt(LocalDateTime.now().minusMinutes(5));
+		call.setStartedAt(LocalDateTime.now().minusMinutes(4));
+		callRegistry.update(call);
+		TransactionSynchronizationManager.initSynchronization();
+	}
+
+	@AfterEach
+	void tearDown() {
+		TransactionSynchronizationManager.clearSynchronization();
+	}
+
+	@Test
+	void rollbackRestoresSharedCallAndSkipsMetrics() {
+		callService.updateCallStatus(call, Call.CallStatus.ENDED);
+
+		complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		assertThat(call.getStatus()).isEqualTo(Call.CallStatus.ACTIVE);
+		assertThat(call.getEndedAt()).isNull();
+		assertThat(callRegistry.findByRoomId("room-abc")).containsSame(call);
+		assertThat(meterRegistry.find("chat.calls.outcome").counter()).isNull();
+		verifyNoInteractions(callDailyStatsRepository);
+	}
+
+	@Test
+	void commitUpdatesRegistryAndRecordsMetrics() {
+		callService.updateCallStatus(call, Call.CallStatus.ENDED);
+
+		assertThat(callRegistry.findByRoomId("room-abc")).isPresent();
+		assertThat(meterRegistry.find("chat.calls.outcome").counter()).isNull();
+
+		complete(TransactionSynchronization.STATUS_COMMITTED);
+
+		assertThat(callRegistry.findByRoomId("room-abc")).isEmpty();
+		assertThat(meterRegistry.get("chat.calls.outcome").tag("outcome", "completed").counter().count())
+				.isEqualTo(1.0);
+		verify(callDailyStatsRepository).increment(any(), anyString(), anyLong(), anyLong(), anyLong(),
+				anyLong(), anyLong(), anyLong(), anyLong());
+	}
+
+	private static void complete(int status) {
+		List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		if (status == TransactionSynchronization.STATUS_COMMITTED) {
+			synchronizations.forEach(TransactionSynchronization::afterCommit);
+		}
+		synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+	}
+}
@@ -0,0 +1,60 @@
+package com.example.chat_demo.core.service;
+
+import com.example.chat_demo.core.realtime.ConversationRecipientCache;
+import com.example.chat_demo.core.realtime.PresenceService;
+import com.example.chat_demo.core.router.OmnichannelRouter;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.events.StatusChangeEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DiscordGatewayHealthIndicatorTests {
+
+	private final DiscordGatewayService gateway = new DiscordGatewayService(mock(OmnichannelRouter.class),
+			mock(DiscordEventDispatcher.class), mock(PresenceService.class), mock(ConversationRecipientCache.class));
+	private final DiscordGatewayHealthIndicator indicator = new DiscordGatewayHealthIndicator(gateway);
+	private final JDA jda = mock(JDA.class);
+
+	@BeforeEach
+	void setUp() {
+		when(jda.getShardInfo()).thenReturn(new JDA.ShardInfo(0, 1));
+		// Như connect() chạy nền: JDA đã build nhưng chưa login xong
+		when(jda.getStatus()).thenReturn(JDA.Status.LOGGING_IN);
+		ReflectionTestUtils.setField(gateway, "enabled", true);
+		ReflectionTestUtils.setField(gateway, "jda", jda);
+	}
+
+	@Test
+	void readinessWaitsUntilGatewayIsConnected() {
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+
+		// ReadyEvent được bắn khi status còn LOADING_SUBSYSTEMS
+		changeStatus(JDA.Status.LOGGING_IN, JDA.Status.LOADING_SUBSYSTEMS);
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+
+		changeStatus(JDA.Status.LOADING_SUBSYSTEMS, JDA.Status.CONNECTED);
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+		assertThat(indicator.health().getDetails()).containsEntry("gateway", "connected");
+	}
+
+	@Test
+	void reconnectAfterFirstConnectStaysUp() {
+		changeStatus(JDA.Status.LOADING_SUBSYSTEMS, JDA.Status.CONNECTED);
+
+		changeStatus(JDA.Status.CONNECTED, JDA.Status.WAITING_TO_RECONNECT);
+
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+		assertThat(indicator.health().getDetails()).containsEntry("gateway", "reconnecting");
+	}
+
+	private void changeStatus(JDA.Status oldStatus, JDA.Status newStatus) {
+		when(jda.getStatus()).thenReturn(newStatus);
+		gateway.onStatusChange(new StatusChangeEvent(jda, newStatus, oldStatus));
+	}
+}
@@ -0,0 +1,61 @@
+package com.example.chat_demo.core.service;
+
+import com.example.chat_demo.common.ChannelType;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessagePipelineMetricsTests {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final MessagePipelineMetrics metrics = new MessagePipelineMetrics(meterRegistry, false);
+
+	@BeforeEach
+	void setUp() {
+		TransactionSynchronizationManager.initSynchronization();
+	}
+
+	@AfterEach
+	void tearDown() {
+		TransactionSynchronizationManager.clearSynchronization();
+		TransactionSynchronizationManager.unbindResourceIfPossible(metrics);
+	}
+
+	@Test
+	void dbSavesOfOneTransactionShareOneSynchronization() {
+		metrics.recordUntilCommit(ChannelType.TELEGRAM, System.nanoTime(), 0);
+		metrics.recordUntilCommit(ChannelType.DISCORD, System.nanoTime(), 0);
+
+		assertThat(TransactionSynchronizationManager.getSynchronizations()).hasSize(1);
+		assertThat(dbSave(ChannelType.TELEGRAM).count()).isZero();
+
+		TransactionSynchronization synchronization = TransactionSynchronizationManager.getSynchronizations().get(0);
+		synchronization.afterCommit();
+		synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+
+		assertThat(dbSave(ChannelType.TELEGRAM).count()).isEqualTo(1);
+		assertThat(dbSave(ChannelType.DISCORD).count()).isEqualTo(1);
+		assertThat(TransactionSynchronizationManager.hasResource(metrics)).isFalse();
+	}
+
+	@Test
+	void rolledBackDbSaveIsNotRecorded() {
+		metrics.recordUntilCommit(ChannelType.TELEGRAM, System.nanoTime(), 0);
+
+		TransactionSynchronizationManager.getSynchronizations().get(0)
+				.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		assertThat(dbSave(ChannelType.TELEGRAM).count()).isZero();
+		assertThat(TransactionSynchronizationManager.hasResource(metrics)).isFalse();
+	}
+
+	private Timer dbSave(ChannelType channel) {
+		return meterRegistry.get("chat.pipeline.stage").tag("stage", "db_save").tag("channel", channel.name()).timer();
+	}
+}
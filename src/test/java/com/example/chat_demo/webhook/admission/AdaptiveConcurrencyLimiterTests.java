@@ -0,0 +1,100 @@
+package com.example.chat_demo.webhook.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTests {
+
+	private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+	private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+	private final AtomicLong clock = new AtomicLong();
+	// initial 10, range [2, 100], tolerance 2, backoff 0.9, ngưỡng chậm tối thiểu 10ms, cửa sổ baseline 30s
+	private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100, 2.0, 0.9,
+			TimeUnit.MILLISECONDS.toNanos(10), TimeUnit.SECONDS.toNanos(30), clock::get);
+
+	@Test
+	void rejectsRequestsOverTheLimit() {
+		for (int i = 1; i <= 10; i++) {
+			assertThat(limiter.tryAcquire()).isEqualTo(i);
+		}
+
+		assertThat(limiter.tryAcquire()).isEqualTo(-1);
+		assertThat(limiter.getInFlight()).isEqualTo(10);
+	}
+
+	@Test
+	void fastRequestsRaiseLimitOnlyWhenItIsUsed() {
+		for (int round = 0; round < 20; round++) {
+			runRound(2, FAST, false);
+		}
+		assertThat(limiter.getLimit()).isEqualTo(10);
+
+		for (int round = 0; round < 20; round++) {
+			runRound(limiter.getLimit(), FAST, false);
+		}
+		assertThat(limiter.getLimit()).isGreaterThan(10);
+	}
+
+	@Test
+	void slowOrOverloadedRequestsBackOffOncePerThresholdInterval() {
+		runRound(1, FAST, false);
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(20));
+
+		complete(SLOW, false);
+		assertThat(limiter.getLimit()).isEqualTo(9);
+
+		// Cùng một đợt chậm: chưa qua một khoảng ngưỡng thì không giảm tiếp
+		complete(SLOW, false);
+		assertThat(limiter.getLimit()).isEqualTo(9);
+
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(20));
+		complete(FAST, true);
+		assertThat(limiter.getLimit()).isEqualTo(8);
+
+		for (int i = 0; i < 50; i++) {
+			clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(20));
+			complete(SLOW, false);
+		}
+		assertThat(limiter.getLimit()).isEqualTo(2);
+	}
+
+	@Test
+	void baselineFollowsWindowMinimumAndDropsOnFasterSample() {
+		complete(FAST, false);
+		assertThat(limiter.getBaselineMillis()).isEqualTo(1.0);
+
+		// Postgres chậm hẳn đi: baseline chỉ lên 5ms sau khi cả một cửa sổ không còn mẫu 1ms
+		for (int second = 1; second <= 60; second++) {
+			clock.set(TimeUnit.SECONDS.toNanos(second));
+			complete(TimeUnit.MILLISECONDS.toNanos(5), false);
+			if (second < 60) {
+				assertThat(limiter.getBaselineMillis()).isEqualTo(1.0);
+			}
+		}
+		assertThat(limiter.getBaselineMillis()).isEqualTo(5.0);
+
+		complete(TimeUnit.MILLISECONDS.toNanos(2), false);
+		assertThat(limiter.getBaselineMillis()).isEqualTo(2.0);
+	}
+
+	private void runRound(int concurrency, long latencyNanos, boolean overloaded) {
+		List<Integer> admitted = new ArrayList<>();
+		for (int i = 0; i < concurrency; i++) {
+			admitted.add(limiter.tryAcquire());
+		}
+		clock.addAndGet(latencyNanos);
+		admitted.forEach(inFlightAtStart -> limiter.onComplete(inFlightAtStart, latencyNanos, overloaded));
+	}
+
+	private void complete(long latencyNanos, boolean overloaded) {
+		limiter.onComplete(limiter.tryAcquire(), latencyNanos, overloaded);
+	}
+
+}